@@ -0,0 +1,617 @@
+package org.vaadin.bread.test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.vaadin.bread.ui.support.BeanExcelBuilder;
+
+import com.vaadin.data.BeanPropertySet;
+import com.vaadin.data.PropertyDefinition;
+import com.vaadin.data.PropertySet;
+
+/**
+ * Streaming export of a 50 column bean by {@link BeanExcelBuilder}, comparing
+ * the compiled column plan with the previous per-cell lookup and type
+ * dispatch. Run with the <code>benchmark</code> profile:
+ * <code>mvn -Pbenchmark test-compile exec:exec -Dbenchmark=BeanExcelBuilder</code>.
+ *
+ * @author Dmitrij Colautti
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class BeanExcelBuilderBenchmark {
+
+    @Param({ "10000" })
+    public int rows;
+
+    private List<WideBean> beans;
+
+    @Setup
+    public void setup() {
+        beans = buildBeans(rows);
+    }
+
+    @Benchmark
+    public int columnPlan() {
+        return export(new BeanExcelBuilder<>(WideBean.class));
+    }
+
+    @Benchmark
+    public int perCellLookup() {
+        return export(new LegacyBeanExcelBuilder());
+    }
+
+    private int export(BeanExcelBuilder<WideBean> builder) {
+        builder.setStreaming(true);
+        SXSSFWorkbook wb = (SXSSFWorkbook) builder.createExcelDocument(beans);
+        int lastRow = wb.getSheetAt(0).getLastRowNum();
+        wb.dispose();
+        return lastRow;
+    }
+
+    private static List<WideBean> buildBeans(int rows) {
+        List<WideBean> beans = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            WideBean bean = new WideBean();
+            bean.setString1("value-" + i);
+            bean.setString2("value-" + i);
+            bean.setString3("value-" + i);
+            bean.setString4("value-" + i);
+            bean.setString5("value-" + i);
+            bean.setString6("value-" + i);
+            bean.setString7("value-" + i);
+            bean.setString8("value-" + i);
+            bean.setString9("value-" + i);
+            bean.setString10("value-" + i);
+            bean.setString11("value-" + i);
+            bean.setString12("value-" + i);
+            bean.setString13("value-" + i);
+            bean.setString14("value-" + i);
+            bean.setString15("value-" + i);
+            bean.setString16("value-" + i);
+            bean.setString17("value-" + i);
+            bean.setString18("value-" + i);
+            bean.setString19("value-" + i);
+            bean.setString20("value-" + i);
+            bean.setInteger1(i);
+            bean.setInteger2(i);
+            bean.setInteger3(i);
+            bean.setInteger4(i);
+            bean.setInteger5(i);
+            bean.setInteger6(i);
+            bean.setInteger7(i);
+            bean.setInteger8(i);
+            bean.setInteger9(i);
+            bean.setInteger10(i);
+            bean.setDouble1(i * 1.5d);
+            bean.setDouble2(i * 1.5d);
+            bean.setDouble3(i * 1.5d);
+            bean.setDouble4(i * 1.5d);
+            bean.setDouble5(i * 1.5d);
+            bean.setDouble6(i * 1.5d);
+            bean.setDouble7(i * 1.5d);
+            bean.setDouble8(i * 1.5d);
+            bean.setDouble9(i * 1.5d);
+            bean.setDouble10(i * 1.5d);
+            bean.setLocalDate1(LocalDate.of(2017, 1, 1).plusDays(i % 365));
+            bean.setLocalDate2(LocalDate.of(2017, 1, 1).plusDays(i % 365));
+            bean.setLocalDate3(LocalDate.of(2017, 1, 1).plusDays(i % 365));
+            bean.setLocalDate4(LocalDate.of(2017, 1, 1).plusDays(i % 365));
+            bean.setLocalDate5(LocalDate.of(2017, 1, 1).plusDays(i % 365));
+            bean.setBoolean1(i % 2 == 0);
+            bean.setBoolean2(i % 2 == 0);
+            bean.setBoolean3(i % 2 == 0);
+            bean.setBoolean4(i % 2 == 0);
+            bean.setBoolean5(i % 2 == 0);
+            beans.add(bean);
+        }
+        return beans;
+    }
+
+    /**
+     * The row building as it was before the column plan: property names and
+     * definitions are resolved for every row and every cell goes through the
+     * type dispatching hooks.
+     */
+    private static class LegacyBeanExcelBuilder extends BeanExcelBuilder<WideBean> {
+
+        private final PropertySet<WideBean> propertySet = BeanPropertySet.get(WideBean.class);
+
+        LegacyBeanExcelBuilder() {
+            super(WideBean.class);
+        }
+
+        @Override
+        protected void buildRows(WideBean bean, Sheet s, int rowNumber) {
+            Row r = s.createRow(rowNumber);
+            int currCol = getStartCol();
+            List<String> props = propertySet.getProperties().map(pd -> pd.getName()).collect(Collectors.toList());
+            for (String propertyName : props) {
+                PropertyDefinition<WideBean, ?> definition = propertySet.getProperty(propertyName)
+                        .orElseThrow(() -> new IllegalArgumentException("Could not resolve property name " + propertyName));
+                Object value = definition.getGetter().apply(bean);
+                Cell cell = buildCell(r, currCol, definition);
+                setCellValue(cell, value, definition);
+                setCellStyle(cell, value, definition, getFormats().get(propertyName));
+                currCol++;
+            }
+        }
+    }
+
+    public static class WideBean {
+
+        private String string1;
+        private String string2;
+        private String string3;
+        private String string4;
+        private String string5;
+        private String string6;
+        private String string7;
+        private String string8;
+        private String string9;
+        private String string10;
+        private String string11;
+        private String string12;
+        private String string13;
+        private String string14;
+        private String string15;
+        private String string16;
+        private String string17;
+        private String string18;
+        private String string19;
+        private String string20;
+        private Integer integer1;
+        private Integer integer2;
+        private Integer integer3;
+        private Integer integer4;
+        private Integer integer5;
+        private Integer integer6;
+        private Integer integer7;
+        private Integer integer8;
+        private Integer integer9;
+        private Integer integer10;
+        private Double double1;
+        private Double double2;
+        private Double double3;
+        private Double double4;
+        private Double double5;
+        private Double double6;
+        private Double double7;
+        private Double double8;
+        private Double double9;
+        private Double double10;
+        private LocalDate localDate1;
+        private LocalDate localDate2;
+        private LocalDate localDate3;
+        private LocalDate localDate4;
+        private LocalDate localDate5;
+        private Boolean boolean1;
+        private Boolean boolean2;
+        private Boolean boolean3;
+        private Boolean boolean4;
+        private Boolean boolean5;
+
+        public String getString1() {
+            return string1;
+        }
+
+        public void setString1(String string1) {
+            this.string1 = string1;
+        }
+
+        public String getString2() {
+            return string2;
+        }
+
+        public void setString2(String string2) {
+            this.string2 = string2;
+        }
+
+        public String getString3() {
+            return string3;
+        }
+
+        public void setString3(String string3) {
+            this.string3 = string3;
+        }
+
+        public String getString4() {
+            return string4;
+        }
+
+        public void setString4(String string4) {
+            this.string4 = string4;
+        }
+
+        public String getString5() {
+            return string5;
+        }
+
+        public void setString5(String string5) {
+            this.string5 = string5;
+        }
+
+        public String getString6() {
+            return string6;
+        }
+
+        public void setString6(String string6) {
+            this.string6 = string6;
+        }
+
+        public String getString7() {
+            return string7;
+        }
+
+        public void setString7(String string7) {
+            this.string7 = string7;
+        }
+
+        public String getString8() {
+            return string8;
+        }
+
+        public void setString8(String string8) {
+            this.string8 = string8;
+        }
+
+        public String getString9() {
+            return string9;
+        }
+
+        public void setString9(String string9) {
+            this.string9 = string9;
+        }
+
+        public String getString10() {
+            return string10;
+        }
+
+        public void setString10(String string10) {
+            this.string10 = string10;
+        }
+
+        public String getString11() {
+            return string11;
+        }
+
+        public void setString11(String string11) {
+            this.string11 = string11;
+        }
+
+        public String getString12() {
+            return string12;
+        }
+
+        public void setString12(String string12) {
+            this.string12 = string12;
+        }
+
+        public String getString13() {
+            return string13;
+        }
+
+        public void setString13(String string13) {
+            this.string13 = string13;
+        }
+
+        public String getString14() {
+            return string14;
+        }
+
+        public void setString14(String string14) {
+            this.string14 = string14;
+        }
+
+        public String getString15() {
+            return string15;
+        }
+
+        public void setString15(String string15) {
+            this.string15 = string15;
+        }
+
+        public String getString16() {
+            return string16;
+        }
+
+        public void setString16(String string16) {
+            this.string16 = string16;
+        }
+
+        public String getString17() {
+            return string17;
+        }
+
+        public void setString17(String string17) {
+            this.string17 = string17;
+        }
+
+        public String getString18() {
+            return string18;
+        }
+
+        public void setString18(String string18) {
+            this.string18 = string18;
+        }
+
+        public String getString19() {
+            return string19;
+        }
+
+        public void setString19(String string19) {
+            this.string19 = string19;
+        }
+
+        public String getString20() {
+            return string20;
+        }
+
+        public void setString20(String string20) {
+            this.string20 = string20;
+        }
+
+        public Integer getInteger1() {
+            return integer1;
+        }
+
+        public void setInteger1(Integer integer1) {
+            this.integer1 = integer1;
+        }
+
+        public Integer getInteger2() {
+            return integer2;
+        }
+
+        public void setInteger2(Integer integer2) {
+            this.integer2 = integer2;
+        }
+
+        public Integer getInteger3() {
+            return integer3;
+        }
+
+        public void setInteger3(Integer integer3) {
+            this.integer3 = integer3;
+        }
+
+        public Integer getInteger4() {
+            return integer4;
+        }
+
+        public void setInteger4(Integer integer4) {
+            this.integer4 = integer4;
+        }
+
+        public Integer getInteger5() {
+            return integer5;
+        }
+
+        public void setInteger5(Integer integer5) {
+            this.integer5 = integer5;
+        }
+
+        public Integer getInteger6() {
+            return integer6;
+        }
+
+        public void setInteger6(Integer integer6) {
+            this.integer6 = integer6;
+        }
+
+        public Integer getInteger7() {
+            return integer7;
+        }
+
+        public void setInteger7(Integer integer7) {
+            this.integer7 = integer7;
+        }
+
+        public Integer getInteger8() {
+            return integer8;
+        }
+
+        public void setInteger8(Integer integer8) {
+            this.integer8 = integer8;
+        }
+
+        public Integer getInteger9() {
+            return integer9;
+        }
+
+        public void setInteger9(Integer integer9) {
+            this.integer9 = integer9;
+        }
+
+        public Integer getInteger10() {
+            return integer10;
+        }
+
+        public void setInteger10(Integer integer10) {
+            this.integer10 = integer10;
+        }
+
+        public Double getDouble1() {
+            return double1;
+        }
+
+        public void setDouble1(Double double1) {
+            this.double1 = double1;
+        }
+
+        public Double getDouble2() {
+            return double2;
+        }
+
+        public void setDouble2(Double double2) {
+            this.double2 = double2;
+        }
+
+        public Double getDouble3() {
+            return double3;
+        }
+
+        public void setDouble3(Double double3) {
+            this.double3 = double3;
+        }
+
+        public Double getDouble4() {
+            return double4;
+        }
+
+        public void setDouble4(Double double4) {
+            this.double4 = double4;
+        }
+
+        public Double getDouble5() {
+            return double5;
+        }
+
+        public void setDouble5(Double double5) {
+            this.double5 = double5;
+        }
+
+        public Double getDouble6() {
+            return double6;
+        }
+
+        public void setDouble6(Double double6) {
+            this.double6 = double6;
+        }
+
+        public Double getDouble7() {
+            return double7;
+        }
+
+        public void setDouble7(Double double7) {
+            this.double7 = double7;
+        }
+
+        public Double getDouble8() {
+            return double8;
+        }
+
+        public void setDouble8(Double double8) {
+            this.double8 = double8;
+        }
+
+        public Double getDouble9() {
+            return double9;
+        }
+
+        public void setDouble9(Double double9) {
+            this.double9 = double9;
+        }
+
+        public Double getDouble10() {
+            return double10;
+        }
+
+        public void setDouble10(Double double10) {
+            this.double10 = double10;
+        }
+
+        public LocalDate getLocalDate1() {
+            return localDate1;
+        }
+
+        public void setLocalDate1(LocalDate localDate1) {
+            this.localDate1 = localDate1;
+        }
+
+        public LocalDate getLocalDate2() {
+            return localDate2;
+        }
+
+        public void setLocalDate2(LocalDate localDate2) {
+            this.localDate2 = localDate2;
+        }
+
+        public LocalDate getLocalDate3() {
+            return localDate3;
+        }
+
+        public void setLocalDate3(LocalDate localDate3) {
+            this.localDate3 = localDate3;
+        }
+
+        public LocalDate getLocalDate4() {
+            return localDate4;
+        }
+
+        public void setLocalDate4(LocalDate localDate4) {
+            this.localDate4 = localDate4;
+        }
+
+        public LocalDate getLocalDate5() {
+            return localDate5;
+        }
+
+        public void setLocalDate5(LocalDate localDate5) {
+            this.localDate5 = localDate5;
+        }
+
+        public Boolean getBoolean1() {
+            return boolean1;
+        }
+
+        public void setBoolean1(Boolean boolean1) {
+            this.boolean1 = boolean1;
+        }
+
+        public Boolean getBoolean2() {
+            return boolean2;
+        }
+
+        public void setBoolean2(Boolean boolean2) {
+            this.boolean2 = boolean2;
+        }
+
+        public Boolean getBoolean3() {
+            return boolean3;
+        }
+
+        public void setBoolean3(Boolean boolean3) {
+            this.boolean3 = boolean3;
+        }
+
+        public Boolean getBoolean4() {
+            return boolean4;
+        }
+
+        public void setBoolean4(Boolean boolean4) {
+            this.boolean4 = boolean4;
+        }
+
+        public Boolean getBoolean5() {
+            return boolean5;
+        }
+
+        public void setBoolean5(Boolean boolean5) {
+            this.boolean5 = boolean5;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package org.vaadin.bread.test;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.vaadin.bread.data.BeanMetadata;
+import org.vaadin.bread.data.PropertyAccessors;
+
+import com.vaadin.data.BeanPropertySet;
+import com.vaadin.data.PropertyDefinition;
+import com.vaadin.data.ValueProvider;
+import com.vaadin.server.Setter;
+
+/**
+ * Reads and writes of a plain, a primitive and a nested property, through the
+ * reflective accessors of {@link BeanPropertySet} and the generated ones of
+ * {@link PropertyAccessors}. Run with the <code>benchmark</code> profile:
+ * <code>mvn -Pbenchmark test-compile exec:exec -Dbenchmark=PropertyAccessors</code>.
+ *
+ * @author Dmitrij Colautti
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PropertyAccessorsBenchmark {
+
+    @Param({ "name", "age", "address.city" })
+    public String property;
+
+    private Person bean;
+    private Object value;
+
+    private ValueProvider<Person, ?> reflectiveGetter;
+    private ValueProvider<Person, ?> generatedGetter;
+    private Setter<Person, Object> reflectiveSetter;
+    private Setter<Person, Object> generatedSetter;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        bean = new Person();
+        bean.setName("name");
+        bean.setAge(42);
+        bean.setAddress(new Address());
+        bean.getAddress().setCity("city");
+
+        PropertyDefinition<Person, ?> definition = BeanPropertySet.get(Person.class).getProperty(property).get();
+        reflectiveGetter = definition.getGetter();
+        value = reflectiveGetter.apply(bean);
+        reflectiveSetter = (Setter<Person, Object>) definition.getSetter().get();
+        generatedGetter = BeanMetadata.of(Person.class).getGetter(property);
+        generatedSetter = (Setter<Person, Object>) BeanMetadata.of(Person.class).getSetter(property);
+    }
+
+    @Benchmark
+    public Object reflectiveRead() {
+        return reflectiveGetter.apply(bean);
+    }
+
+    @Benchmark
+    public Object generatedRead() {
+        return generatedGetter.apply(bean);
+    }
+
+    @Benchmark
+    public void reflectiveWrite() {
+        reflectiveSetter.accept(bean, value);
+    }
+
+    @Benchmark
+    public void generatedWrite() {
+        generatedSetter.accept(bean, value);
+    }
+
+    public static class Person {
+
+        private String name;
+        private int age;
+        private Address address;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public int getAge() {
+            return age;
+        }
+
+        public void setAge(int age) {
+            this.age = age;
+        }
+
+        public Address getAddress() {
+            return address;
+        }
+
+        public void setAddress(Address address) {
+            this.address = address;
+        }
+    }
+
+    public static class Address {
+
+        private String city;
+
+        public String getCity() {
+            return city;
+        }
+
+        public void setCity(String city) {
+            this.city = city;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package org.vaadin.bread.data;
+
+import javax.validation.metadata.BeanDescriptor;
+import javax.validation.metadata.ConstraintDescriptor;
+import javax.validation.metadata.PropertyDescriptor;
+
+import com.vaadin.data.Binder;
+import com.vaadin.data.PropertyDefinition;
+import com.vaadin.data.RequiredFieldConfigurator;
+import com.vaadin.data.util.BeanUtil;
+import com.vaadin.data.validator.BeanValidator;
+
+/**
+ * A binder that validates like a <code>BeanValidationBinder</code>, on the
+ * property set of {@link BeanMetadata}: the bound properties are read and
+ * written through the generated accessors of {@link PropertyAccessors}
+ * instead of by reflection.
+ *
+ * @author Dmitrij Colautti
+ *
+ */
+public class AccessorValidationBinder<BEAN> extends Binder<BEAN> {
+
+	private static final long serialVersionUID = 1L;
+
+	private RequiredFieldConfigurator requiredConfigurator = RequiredFieldConfigurator.DEFAULT;
+
+	public AccessorValidationBinder(Class<BEAN> beanType) {
+		super(BeanMetadata.of(beanType).getPropertySet());
+		if (!BeanUtil.checkBeanValidationAvailable()) {
+			throw new IllegalStateException(getClass().getSimpleName()
+					+ " cannot be used because a JSR-303 Bean Validation implementation was not found on the classpath. Use "
+					+ Binder.class.getSimpleName() + " instead");
+		}
+	}
+
+	/**
+	 * @param configurator shows the required indicator of the fields from the
+	 * constraints of their properties; <code>null</code> to never show it
+	 */
+	public void setRequiredConfigurator(RequiredFieldConfigurator configurator) {
+		requiredConfigurator = configurator;
+	}
+
+	public RequiredFieldConfigurator getRequiredConfigurator() {
+		return requiredConfigurator;
+	}
+
+	@Override
+	protected BindingBuilder<BEAN, ?> configureBinding(BindingBuilder<BEAN, ?> binding,
+			PropertyDefinition<BEAN, ?> definition) {
+		// the holder of a nested property is the type that declares it
+		BeanValidator validator = new BeanValidator(definition.getPropertyHolderType(), definition.getName());
+		if (requiredConfigurator!=null) {
+			configureRequired(binding, definition, validator);
+		}
+		return binding.withValidator(validator);
+	}
+
+	private void configureRequired(BindingBuilder<BEAN, ?> binding, PropertyDefinition<BEAN, ?> definition,
+			BeanValidator validator) {
+		BeanDescriptor descriptor = validator.getJavaxBeanValidator()
+				.getConstraintsForClass(definition.getPropertyHolderType());
+		PropertyDescriptor propertyDescriptor = descriptor.getConstraintsForProperty(definition.getName());
+		if (propertyDescriptor!=null && propertyDescriptor.getConstraintDescriptors().stream()
+				.map(ConstraintDescriptor::getAnnotation)
+				.anyMatch(requiredConfigurator)) {
+			binding.getField().setRequiredIndicatorVisible(true);
+		}
+	}
+}
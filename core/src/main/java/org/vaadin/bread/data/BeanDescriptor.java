@@ -0,0 +1,135 @@
+package org.vaadin.bread.data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.vaadin.data.ValueProvider;
+import com.vaadin.server.Setter;
+
+/**
+ * The properties of a bean class, described at compile time so that
+ * {@link BeanMetadata} doesn't have to introspect the class. The
+ * <code>bread-processor</code> annotation processor generates a subclass
+ * named <code>&lt;Entity&gt;_Bread</code> next to each JPA entity and
+ * embeddable, with method references as accessors and the facts of the JPA
+ * and bean validation annotations. Classes without one are introspected.
+ *
+ * @author Dmitrij Colautti
+ *
+ */
+public abstract class BeanDescriptor<T> {
+
+	/**
+	 * The suffix of the name of the descriptor of a class.
+	 */
+	public static final String SUFFIX = "_Bread";
+
+	private final Class<T> beanType;
+	private final List<Property<T>> properties = new ArrayList<>();
+
+	protected BeanDescriptor(Class<T> beanType) {
+		this.beanType = beanType;
+	}
+
+	/**
+	 * Describes a readable property, the setter is <code>null</code> when it is read-only.
+	 */
+	protected Property<T> property(String name, Class<?> type, ValueProvider<T, ?> getter, Setter<T, ?> setter) {
+		Property<T> property = new Property<>(name, type, getter, setter);
+		properties.add(property);
+		return property;
+	}
+
+	public Class<T> getBeanType() {
+		return beanType;
+	}
+
+	/**
+	 * @return the properties in the order of the bean introspection
+	 */
+	public List<Property<T>> getProperties() {
+		return Collections.unmodifiableList(properties);
+	}
+
+	public static final class Property<T> {
+
+		private final String name;
+		private final Class<?> type;
+		private final ValueProvider<T, ?> getter;
+		private final Setter<T, ?> setter;
+		private String caption;
+		private boolean generated;
+		private boolean required;
+		private boolean id;
+		private int maxLength;
+
+		private Property(String name, Class<?> type, ValueProvider<T, ?> getter, Setter<T, ?> setter) {
+			this.name = name;
+			this.type = type;
+			this.getter = getter;
+			this.setter = setter;
+		}
+
+		public Property<T> caption(String caption) {
+			this.caption = caption;
+			return this;
+		}
+
+		public Property<T> generated() {
+			this.generated = true;
+			return this;
+		}
+
+		public Property<T> required() {
+			this.required = true;
+			return this;
+		}
+
+		public Property<T> id() {
+			this.id = true;
+			return this;
+		}
+
+		public Property<T> maxLength(int maxLength) {
+			this.maxLength = maxLength;
+			return this;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public Class<?> getType() {
+			return type;
+		}
+
+		public ValueProvider<T, ?> getGetter() {
+			return getter;
+		}
+
+		public Setter<T, ?> getSetter() {
+			return setter;
+		}
+
+		public String getCaption() {
+			return caption;
+		}
+
+		public boolean isGenerated() {
+			return generated;
+		}
+
+		public boolean isRequired() {
+			return required;
+		}
+
+		public boolean isId() {
+			return id;
+		}
+
+		public int getMaxLength() {
+			return maxLength;
+		}
+	}
+}
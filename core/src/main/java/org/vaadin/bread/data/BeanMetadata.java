@@ -0,0 +1,463 @@
+package org.vaadin.bread.data;
+
+import java.beans.IntrospectionException;
+import java.beans.PropertyDescriptor;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import javax.persistence.Basic;
+import javax.persistence.Column;
+import javax.persistence.EmbeddedId;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.OneToOne;
+import javax.validation.constraints.NotNull;
+
+import com.vaadin.data.PropertyDefinition;
+import com.vaadin.data.PropertySet;
+import com.vaadin.data.ValueProvider;
+import com.vaadin.data.util.BeanUtil;
+import com.vaadin.server.Setter;
+import com.vaadin.shared.util.SharedUtil;
+import com.vaadin.util.ReflectTools;
+
+/**
+ * What the grid, the forms and the exporters need to know about the
+ * properties of a bean class, introspected once per class and shared.
+ * <p>
+ * The metadata is kept with the class itself (a {@link ClassValue}), so it
+ * goes away with the class loader of a redeployed application instead of
+ * pinning it; {@link #evict(Class)} drops it explicitly.
+ * <p>
+ * A class with a generated {@link BeanDescriptor} is not introspected: the
+ * properties, their facts and their accessors come from the descriptor.
+ *
+ * @author Dmitrij Colautti
+ *
+ */
+public final class BeanMetadata<T> {
+
+	private static final ClassValue<BeanMetadata<?>> METADATA = new ClassValue<BeanMetadata<?>>() {
+
+		@Override
+		protected BeanMetadata<?> computeValue(Class<?> type) {
+			return new BeanMetadata<>(type);
+		}
+	};
+
+	/**
+	 * A readable property of the bean.
+	 */
+	public static final class Property {
+
+		private final String name;
+		private final Class<?> type;
+		private final String caption;
+		private final boolean collection;
+		private final boolean generated;
+		private final boolean required;
+		private final boolean id;
+		private final int maxLength;
+		private final boolean writable;
+		private final Method readMethod;
+		private final Method writeMethod;
+		private volatile Function<Object, Object> reader;
+		private volatile BiConsumer<Object, Object> writer;
+
+		private Property(Class<?> beanType, PropertyDescriptor descriptor) {
+			this.name = descriptor.getName();
+			this.type = descriptor.getPropertyType();
+			this.caption = SharedUtil.propertyIdToHumanFriendly(name);
+			this.collection = type.isArray() || Collection.class.isAssignableFrom(type);
+			this.generated = annotation(beanType, descriptor, GeneratedValue.class)!=null;
+			this.required = required(beanType, descriptor);
+			this.id = annotation(beanType, descriptor, Id.class)!=null
+					|| annotation(beanType, descriptor, EmbeddedId.class)!=null;
+			Column column = annotation(beanType, descriptor, Column.class);
+			this.maxLength = column!=null && type==String.class ? column.length() : 0;
+			this.readMethod = descriptor.getReadMethod();
+			this.writeMethod = descriptor.getWriteMethod();
+			this.writable = writeMethod!=null;
+		}
+
+		@SuppressWarnings("unchecked")
+		private Property(BeanDescriptor.Property<?> described) {
+			this.name = described.getName();
+			this.type = described.getType();
+			this.caption = described.getCaption()!=null ? described.getCaption() : SharedUtil.propertyIdToHumanFriendly(name);
+			this.collection = type.isArray() || Collection.class.isAssignableFrom(type);
+			this.generated = described.isGenerated();
+			this.required = described.isRequired();
+			this.id = described.isId();
+			this.maxLength = described.getMaxLength();
+			this.readMethod = null;
+			this.writeMethod = null;
+			this.writable = described.getSetter()!=null;
+			this.reader = (Function<Object, Object>) described.getGetter();
+			this.writer = (BiConsumer<Object, Object>) described.getSetter();
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public Class<?> getType() {
+			return type;
+		}
+
+		/**
+		 * @return the human friendly name of the property, e.g. "Birth date"
+		 */
+		public String getCaption() {
+			return caption;
+		}
+
+		/**
+		 * @return whether the property is an array or a collection
+		 */
+		public boolean isCollection() {
+			return collection;
+		}
+
+		/**
+		 * @return whether the field or the getter is annotated with <code>@GeneratedValue</code>
+		 */
+		public boolean isGenerated() {
+			return generated;
+		}
+
+		/**
+		 * @return whether the mapping or a <code>@NotNull</code> doesn't allow <code>null</code>,
+		 * also for generated values
+		 */
+		public boolean isRequired() {
+			return required;
+		}
+
+		/**
+		 * @return whether the field or the getter is annotated with <code>@Id</code> or <code>@EmbeddedId</code>
+		 */
+		public boolean isId() {
+			return id;
+		}
+
+		/**
+		 * @return the <code>@Column</code> length of a string, 0 if not mapped by a <code>@Column</code>
+		 */
+		public int getMaxLength() {
+			return maxLength;
+		}
+
+		public boolean isWritable() {
+			return writable;
+		}
+
+		Function<Object, Object> reader() {
+			if (reader==null) {
+				reader = PropertyAccessors.compileGetter(readMethod);
+			}
+			return reader;
+		}
+
+		BiConsumer<Object, Object> writer() {
+			if (writer==null) {
+				writer = PropertyAccessors.compileSetter(writeMethod);
+			}
+			return writer;
+		}
+
+		@Override
+		public String toString() {
+			return name + ":" + type.getSimpleName();
+		}
+	}
+
+	private final Class<T> type;
+	private final Map<String, Property> properties;
+	private final List<Property> propertyList;
+	private final Property idProperty;
+	private final boolean described;
+	private final PropertySet<T> propertySet;
+	private final ConcurrentMap<String, ValueProvider<T, ?>> getters = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, Optional<Setter<T, ?>>> setters = new ConcurrentHashMap<>();
+
+	private BeanMetadata(Class<T> type) {
+		this.type = type;
+		Map<String, Property> properties = new LinkedHashMap<>();
+		BeanDescriptor<T> beanDescriptor = descriptor(type);
+		if (beanDescriptor!=null) {
+			for (BeanDescriptor.Property<T> described : beanDescriptor.getProperties()) {
+				properties.put(described.getName(), new Property(described));
+			}
+		} else {
+			try {
+				for (PropertyDescriptor descriptor : BeanUtil.getBeanPropertyDescriptors(type)) {
+					if (descriptor.getPropertyType()!=null && descriptor.getReadMethod()!=null
+							&& descriptor.getReadMethod().getDeclaringClass()!=Object.class) {
+						properties.put(descriptor.getName(), new Property(type, descriptor));
+					}
+				}
+			} catch (IntrospectionException e) {
+				throw new RuntimeException("Cannot introspect " + type.getName(), e);
+			}
+		}
+		this.properties = properties;
+		this.propertyList = Collections.unmodifiableList(new ArrayList<>(properties.values()));
+		this.idProperty = propertyList.stream().filter(Property::isId).findFirst().orElse(null);
+		this.described = beanDescriptor!=null;
+		this.propertySet = new AccessorPropertySet<>(type);
+	}
+
+	/**
+	 * @return the generated <code>&lt;type&gt;_Bread</code>, <code>null</code> if there is none
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T> BeanDescriptor<T> descriptor(Class<T> type) {
+		if (type.getClassLoader()==null || type.isArray()) {
+			return null;
+		}
+		try {
+			Class<?> descriptorType = Class.forName(type.getName() + BeanDescriptor.SUFFIX, true, type.getClassLoader());
+			if (BeanDescriptor.class.isAssignableFrom(descriptorType)) {
+				BeanDescriptor<T> descriptor = (BeanDescriptor<T>) descriptorType.getDeclaredConstructor().newInstance();
+				return descriptor.getBeanType()==type ? descriptor : null;
+			}
+		} catch (ClassNotFoundException e) {
+			// not processed, introspected
+		} catch (ReflectiveOperationException | LinkageError e) {
+			// generated for another version of the class, introspected
+		}
+		return null;
+	}
+
+	@SuppressWarnings("unchecked")
+	public static <T> BeanMetadata<T> of(Class<T> type) {
+		return (BeanMetadata<T>) METADATA.get(type);
+	}
+
+	/**
+	 * Introspects <code>type</code> again at the next use, e.g. after a class has been reloaded in place.
+	 */
+	public static void evict(Class<?> type) {
+		METADATA.remove(type);
+	}
+
+	public Class<T> getType() {
+		return type;
+	}
+
+	/**
+	 * @return whether the properties come from a generated {@link BeanDescriptor} instead of the introspection
+	 */
+	public boolean isDescribed() {
+		return described;
+	}
+
+	/**
+	 * @return the properties in the order of the bean introspection, the ones of <code>Object</code> excluded
+	 */
+	public List<Property> getProperties() {
+		return propertyList;
+	}
+
+	public Optional<Property> getProperty(String name) {
+		return Optional.ofNullable(properties.get(name));
+	}
+
+	/**
+	 * @return the <code>@Id</code> or <code>@EmbeddedId</code> property, empty for a class that isn't an entity
+	 */
+	public Optional<Property> getIdProperty() {
+		return Optional.ofNullable(idProperty);
+	}
+
+	/**
+	 * @param name a property name, nested ones like <code>"mainGroup.name"</code> included
+	 * @return the type of the property, <code>null</code> if there is no such property
+	 */
+	public Class<?> getPropertyType(String name) {
+		int dot = name.indexOf('.');
+		Property property = properties.get(dot<0 ? name : name.substring(0, dot));
+		if (property==null) {
+			return null;
+		}
+		return dot<0 ? property.getType() : of(property.getType()).getPropertyType(name.substring(dot + 1));
+	}
+
+	/**
+	 * @return the human friendly name of the property, also for the unknown ones
+	 */
+	public String getCaption(String name) {
+		Property property = properties.get(name);
+		return property==null ? SharedUtil.propertyIdToHumanFriendly(name) : property.getCaption();
+	}
+
+	/**
+	 * @param path a property name, nested ones like <code>"mainGroup.name"</code> included
+	 * @return a getter calling the accessor methods directly, see {@link PropertyAccessors}
+	 */
+	public ValueProvider<T, ?> getGetter(String path) {
+		return getters.computeIfAbsent(path, p -> PropertyAccessors.getter(type, p));
+	}
+
+	/**
+	 * @return a setter calling the accessor methods directly, <code>null</code> if the property can't be written
+	 */
+	public Setter<T, ?> getSetter(String path) {
+		return setters.computeIfAbsent(path, p -> Optional.ofNullable(PropertyAccessors.setter(type, p))).orElse(null);
+	}
+
+	/**
+	 * @return the Vaadin property set of the class, whose getters and setters
+	 * are the ones of {@link #getGetter(String)} and {@link #getSetter(String)}
+	 */
+	public PropertySet<T> getPropertySet() {
+		return propertySet;
+	}
+
+	/**
+	 * The properties of the metadata, with the accessors of {@link #getGetter(String)}
+	 * and {@link #getSetter(String)}. Nested properties are resolved like in a
+	 * <code>BeanPropertySet</code>: the name of the definition is the last one of the path.
+	 */
+	private static class AccessorPropertySet<T> implements PropertySet<T> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Class<T> type;
+
+		AccessorPropertySet(Class<T> type) {
+			this.type = type;
+		}
+
+		@Override
+		public Stream<PropertyDefinition<T, ?>> getProperties() {
+			return of(type).getProperties().stream()
+					.map(property -> new AccessorPropertyDefinition<>(this, property.getName(), type));
+		}
+
+		@Override
+		public Optional<PropertyDefinition<T, ?>> getProperty(String name) {
+			int dot = name.lastIndexOf('.');
+			if (dot<0) {
+				return of(type).getProperty(name).map(property -> new AccessorPropertyDefinition<>(this, name, type));
+			}
+			Class<?> holderType = of(type).getPropertyType(name.substring(0, dot));
+			if (holderType==null || !of(holderType).getProperty(name.substring(dot + 1)).isPresent()) {
+				throw new IllegalArgumentException("Cannot find property descriptor [" + name + "] for " + type.getName());
+			}
+			return Optional.of(new AccessorPropertyDefinition<>(this, name, holderType));
+		}
+
+		@Override
+		public String toString() {
+			return "Property set of " + type.getName();
+		}
+	}
+
+	private static class AccessorPropertyDefinition<T, V> implements PropertyDefinition<T, V> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final AccessorPropertySet<T> propertySet;
+		private final String path;
+		private final Class<?> holderType;
+
+		AccessorPropertyDefinition(AccessorPropertySet<T> propertySet, String path, Class<?> holderType) {
+			this.propertySet = propertySet;
+			this.path = path;
+			this.holderType = holderType;
+		}
+
+		private Property property() {
+			return of(holderType).getProperty(getName()).get();
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public ValueProvider<T, V> getGetter() {
+			return (ValueProvider<T, V>) of(propertySet.type).getGetter(path);
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public Optional<Setter<T, V>> getSetter() {
+			if (!property().isWritable()) {
+				return Optional.empty();
+			}
+			return Optional.ofNullable((Setter<T, V>) of(propertySet.type).getSetter(path));
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public Class<V> getType() {
+			return (Class<V>) ReflectTools.convertPrimitiveType(property().getType());
+		}
+
+		@Override
+		public Class<?> getPropertyHolderType() {
+			return holderType;
+		}
+
+		@Override
+		public String getName() {
+			return path.substring(path.lastIndexOf('.') + 1);
+		}
+
+		@Override
+		public String getCaption() {
+			return property().getCaption();
+		}
+
+		@Override
+		public PropertySet<T> getPropertySet() {
+			return propertySet;
+		}
+	}
+
+	private static boolean required(Class<?> beanType, PropertyDescriptor descriptor) {
+		Column column = annotation(beanType, descriptor, Column.class);
+		JoinColumn joinColumn = annotation(beanType, descriptor, JoinColumn.class);
+		Basic basic = annotation(beanType, descriptor, Basic.class);
+		ManyToOne manyToOne = annotation(beanType, descriptor, ManyToOne.class);
+		OneToOne oneToOne = annotation(beanType, descriptor, OneToOne.class);
+		return annotation(beanType, descriptor, NotNull.class)!=null
+				|| annotation(beanType, descriptor, Id.class)!=null
+				|| column!=null && !column.nullable()
+				|| joinColumn!=null && !joinColumn.nullable()
+				|| basic!=null && !basic.optional()
+				|| manyToOne!=null && !manyToOne.optional()
+				|| oneToOne!=null && !oneToOne.optional();
+	}
+
+	private static <A extends Annotation> A annotation(Class<?> beanType, PropertyDescriptor descriptor, Class<A> annotationType) {
+		Method getter = descriptor.getReadMethod();
+		if (getter!=null && getter.getAnnotation(annotationType)!=null) {
+			return getter.getAnnotation(annotationType);
+		}
+		for (Class<?> c = beanType; c!=null && c!=Object.class; c = c.getSuperclass()) {
+			try {
+				Field field = c.getDeclaredField(descriptor.getName());
+				return field.getAnnotation(annotationType);
+			} catch (NoSuchFieldException e) {
+				// declared by a superclass, if at all
+			}
+		}
+		return null;
+	}
+}
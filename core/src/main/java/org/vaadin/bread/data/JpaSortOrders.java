@@ -0,0 +1,111 @@
+package org.vaadin.bread.data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.From;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Order;
+import javax.persistence.criteria.Path;
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.ManagedType;
+import javax.persistence.metamodel.SingularAttribute;
+
+import com.vaadin.data.provider.QuerySortOrder;
+import com.vaadin.shared.data.sort.SortDirection;
+
+/**
+ * Translates the sort orders of a Vaadin query to the <code>orderBy</code>
+ * of a Criteria query, so that the database sorts the page instead of the
+ * application. Nested properties like <code>"mainGroup.name"</code> are
+ * reached through left joins, reused by the following orders, so that rows
+ * with a <code>null</code> association are not dropped.
+ * <p>
+ * Properties must be attributes of the entity: an unknown name is rejected
+ * by the Criteria API, a collection with an {@link IllegalArgumentException}
+ * as it would multiply the rows.
+ *
+ * @author Dmitrij Colautti
+ *
+ */
+public final class JpaSortOrders {
+
+	private JpaSortOrders() {
+	}
+
+	/**
+	 * @param tieBreakers paths appended in ascending order when not already sorted, e.g. the id to make paging stable
+	 */
+	public static List<Order> toOrders(CriteriaBuilder cb, From<?, ?> from, List<QuerySortOrder> sortOrders, String... tieBreakers) {
+		List<Order> orders = new ArrayList<>();
+		List<String> sorted = new ArrayList<>();
+		if (sortOrders!=null) {
+			for (QuerySortOrder sortOrder : sortOrders) {
+				if (sorted.contains(sortOrder.getSorted())) {
+					continue;
+				}
+				Path<?> path = path(from, sortOrder.getSorted());
+				orders.add(sortOrder.getDirection()==SortDirection.DESCENDING ? cb.desc(path) : cb.asc(path));
+				sorted.add(sortOrder.getSorted());
+			}
+		}
+		for (String tieBreaker : tieBreakers) {
+			if (!sorted.contains(tieBreaker)) {
+				orders.add(cb.asc(path(from, tieBreaker)));
+				sorted.add(tieBreaker);
+			}
+		}
+		return orders;
+	}
+
+	/**
+	 * The path of a dotted property, left joining the intermediate associations.
+	 */
+	public static Path<?> path(From<?, ?> from, String property) {
+		String[] names = property.split("\\.");
+		From<?, ?> parent = from;
+		for (int i = 0; i < names.length - 1; i++) {
+			parent = leftJoin(parent, names[i]);
+		}
+		Attribute<?, ?> attribute = attribute(parent, names[names.length - 1]);
+		if (attribute!=null && attribute.isCollection()) {
+			throw new IllegalArgumentException("Cannot sort by the collection " + property);
+		}
+		return parent.get(names[names.length - 1]);
+	}
+
+	private static From<?, ?> leftJoin(From<?, ?> from, String name) {
+		for (Join<?, ?> join : from.getJoins()) {
+			if (join.getJoinType()==JoinType.LEFT && join.getAttribute().getName().equals(name)) {
+				return join;
+			}
+		}
+		Attribute<?, ?> attribute = attribute(from, name);
+		if (attribute!=null && attribute.isCollection()) {
+			throw new IllegalArgumentException("Cannot sort through the collection " + name);
+		}
+		return from.join(name, JoinType.LEFT);
+	}
+
+	/**
+	 * @return the attribute <code>name</code> of the type reached by <code>from</code>, <code>null</code> when it can't be told
+	 */
+	private static Attribute<?, ?> attribute(From<?, ?> from, String name) {
+		ManagedType<?> type = null;
+		if (from.getModel() instanceof ManagedType) {
+			type = (ManagedType<?>) from.getModel();
+		} else if (from instanceof Join && ((Join<?, ?>) from).getAttribute() instanceof SingularAttribute
+				&& ((SingularAttribute<?, ?>) ((Join<?, ?>) from).getAttribute()).getType() instanceof ManagedType) {
+			type = (ManagedType<?>) ((SingularAttribute<?, ?>) ((Join<?, ?>) from).getAttribute()).getType();
+		}
+		if (type==null) {
+			return null;
+		}
+		return type.getAttributes().stream()
+				.filter(attribute -> attribute.getName().equals(name))
+				.findFirst()
+				.orElse(null);
+	}
+}
@@ -6,31 +6,41 @@ import java.lang.reflect.Member;
 import java.lang.reflect.Method;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
-import java.util.Map.Entry;
-import java.util.ResourceBundle;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
-import javax.persistence.Basic;
 import javax.persistence.Column;
 import javax.persistence.GeneratedValue;
-import javax.persistence.Id;
 import javax.persistence.metamodel.Attribute;
 import javax.persistence.metamodel.ManagedType;
 import javax.persistence.metamodel.SingularAttribute;
-import javax.validation.Configuration;
 import javax.validation.MessageInterpolator;
 import javax.validation.Validation;
-import javax.validation.constraints.Size;
 
-import com.vaadin.data.BeanValidationBinder;
 import com.vaadin.data.HasValue;
 import com.vaadin.data.PropertyDefinition;
-import com.vaadin.data.RequiredFieldConfigurator;
 import com.vaadin.data.Validator;
 import com.vaadin.data.validator.StringLengthValidator;
 import com.vaadin.ui.UI;
 
-public class JpaValidationBinder<BEAN> extends BeanValidationBinder<BEAN> {
+/**
+ * An {@link AccessorValidationBinder} that also validates the JPA mapping of the
+ * properties: required when not optional (and not generated), the
+ * <code>@Column</code> length of strings.
+ * <p>
+ * The validators of the attributes and their messages are computed once per
+ * managed type and locale, and shared by the binders of all the forms.
+ */
+public class JpaValidationBinder<BEAN> extends AccessorValidationBinder<BEAN> {
+
+    /**
+     * Weak keys: the metamodel of a closed persistence unit goes away.
+     */
+    private static final Map<ManagedType<?>, ConcurrentMap<Locale, Map<String, AttributeConstraints>>> CONSTRAINTS =
+    		Collections.synchronizedMap(new WeakHashMap<>());
 
     private final Class<BEAN> beanType;
     private ManagedType<BEAN> managedType;
@@ -63,49 +73,76 @@ public class JpaValidationBinder<BEAN> extends BeanValidationBinder<BEAN> {
     }
 
     private void configureRequired(BindingBuilder<BEAN, ?> binding, PropertyDefinition<BEAN, ?> definition) {
-    	Attribute<? super BEAN, ?> attribute = managedType.getAttribute(definition.getName());
-    	
-    	Member javaMember = attribute.getJavaMember();
-
-		AnnotatedElement annotated = null;
-		
-    	if (attribute.getJavaMember() instanceof AnnotatedElement) {
-    		annotated = (AnnotatedElement)attribute.getJavaMember();
-    		
-    		
-    		Column column = annotated.getAnnotation(Column.class);
-    		if (column!=null && column.length()>0) {
-        		if (javaMember instanceof Field && ((Field) javaMember).getType()==String.class 
-        				|| javaMember instanceof Method && ((Method) javaMember).getReturnType()==String.class ) {
-        				
-    				MessageInterpolator dd = Validation.byDefaultProvider().configure().getDefaultMessageInterpolator();
-    				Map<String, Object> attributes = new HashMap<>();
-    				attributes.put("min", 0);
-    				attributes.put("max", column.length());
-    				MessageInterpolatorContext ctx = new MessageInterpolatorContext(
-    						new ConstraintDescriptorImpl(column, null, null,null,null,null,attributes,null, true, null)
-    						, null, null, Collections.EMPTY_MAP, Collections.EMPTY_MAP);
-    				String msg = dd.interpolate("{javax.validation.constraints.Size.message}", ctx, UI.getCurrent().getLocale());
-       				binding.withValidator((Validator) new StringLengthValidator(msg,null,column.length()));
-        		}
-
-    			
-    		}
+    	if (managedType==null || definition.getPropertyHolderType()!=beanType) {
+    		// a nested property is not an attribute of the managed type
+    		return;
+    	}
+    	AttributeConstraints constraints = constraints(managedType, locale()).get(definition.getName());
+    	if (constraints==null) {
+    		return;
+    	}
+    	if (constraints.maxLength>0) {
+    		binding.withValidator((Validator) new StringLengthValidator(constraints.lengthMessage, null, constraints.maxLength));
+    	}
+    	if (constraints.required) {
+    		binding.withValidator((v)-> v!=null, constraints.requiredMessage);
+    		binding.getField().setRequiredIndicatorVisible(true);
     	}
-    	
-		if (attribute instanceof SingularAttribute) {
-			SingularAttribute<?, ?> singAtt = (SingularAttribute<?, ?>)attribute;
-			
-			if (!singAtt.isOptional() && (annotated==null || annotated.getAnnotation(GeneratedValue.class)==null)) {
-				MessageInterpolator dd = Validation.byDefaultProvider().configure().getDefaultMessageInterpolator();
-				binding.withValidator((v)-> v!=null, dd.interpolate("{javax.validation.constraints.NotNull.message}", null, UI.getCurrent().getLocale()));
-				
-				binding.getField().setRequiredIndicatorVisible(true);
-			}
-		}
     }
 
-    
+    private static Locale locale() {
+    	Locale locale = UI.getCurrent()!=null ? UI.getCurrent().getLocale() : null;
+    	return locale!=null ? locale : Locale.getDefault();
+    }
+
+    /**
+     * @return the JPA constraints of the attributes of <code>managedType</code>
+     * that have some, by name, with their messages in <code>locale</code>
+     */
+    public static Map<String, AttributeConstraints> constraints(ManagedType<?> managedType, Locale locale) {
+    	return CONSTRAINTS.computeIfAbsent(managedType, type -> new ConcurrentHashMap<>())
+    			.computeIfAbsent(locale, l -> compile(managedType, l));
+    }
+
+    /**
+     * @return the constraints of the attributes that have some, by name
+     */
+    private static Map<String, AttributeConstraints> compile(ManagedType<?> managedType, Locale locale) {
+    	MessageInterpolator interpolator = DefaultInterpolator.INSTANCE;
+    	String requiredMessage = null;
+    	Map<String, AttributeConstraints> constraints = new HashMap<>();
+    	for (Attribute<?, ?> attribute : managedType.getAttributes()) {
+    		Member javaMember = attribute.getJavaMember();
+    		AnnotatedElement annotated = javaMember instanceof AnnotatedElement ? (AnnotatedElement) javaMember : null;
+
+    		int maxLength = 0;
+    		String lengthMessage = null;
+    		Column column = annotated!=null ? annotated.getAnnotation(Column.class) : null;
+    		if (column!=null && column.length()>0
+    				&& (javaMember instanceof Field && ((Field) javaMember).getType()==String.class
+    				|| javaMember instanceof Method && ((Method) javaMember).getReturnType()==String.class)) {
+    			Map<String, Object> attributes = new HashMap<>();
+    			attributes.put("min", 0);
+    			attributes.put("max", column.length());
+    			MessageInterpolatorContext ctx = new MessageInterpolatorContext(
+    					new ConstraintDescriptorImpl(column, null, null,null,null,null,attributes,null, true, null)
+    					, null, null, Collections.emptyMap(), Collections.emptyMap());
+    			maxLength = column.length();
+    			lengthMessage = interpolator.interpolate("{javax.validation.constraints.Size.message}", ctx, locale);
+    		}
+
+    		boolean required = attribute instanceof SingularAttribute && !((SingularAttribute<?, ?>) attribute).isOptional()
+    				&& (annotated==null || annotated.getAnnotation(GeneratedValue.class)==null);
+    		if (required && requiredMessage==null) {
+    			requiredMessage = interpolator.interpolate("{javax.validation.constraints.NotNull.message}", null, locale);
+    		}
+
+    		if (maxLength>0 || required) {
+    			constraints.put(attribute.getName(), new AttributeConstraints(maxLength, lengthMessage, required, requiredMessage));
+    		}
+    	}
+    	return constraints;
+    }
 
 	public ManagedType<BEAN> getManagedType() {
 		return managedType;
@@ -115,4 +152,49 @@ public class JpaValidationBinder<BEAN> extends BeanValidationBinder<BEAN> {
 	public void setManagedType(ManagedType<BEAN> managedType) {
 		this.managedType = managedType;
 	}
+
+	/**
+	 * Bootstrapping the validation configuration is expensive, done once.
+	 */
+	private static class DefaultInterpolator {
+
+		static final MessageInterpolator INSTANCE = Validation.byDefaultProvider().configure().getDefaultMessageInterpolator();
+	}
+
+	public static final class AttributeConstraints {
+
+		private final int maxLength;
+		private final String lengthMessage;
+		private final boolean required;
+		private final String requiredMessage;
+
+		AttributeConstraints(int maxLength, String lengthMessage, boolean required, String requiredMessage) {
+			this.maxLength = maxLength;
+			this.lengthMessage = lengthMessage;
+			this.required = required;
+			this.requiredMessage = requiredMessage;
+		}
+
+		public int getMaxLength() {
+			return maxLength;
+		}
+
+		public boolean isRequired() {
+			return required;
+		}
+
+		/**
+		 * @return the message of the constraint <code>value</code> violates,
+		 * <code>null</code> when it is valid
+		 */
+		public String validate(Object value) {
+			if (value==null) {
+				return required ? requiredMessage : null;
+			}
+			if (maxLength>0 && value instanceof String && ((String) value).length()>maxLength) {
+				return lengthMessage;
+			}
+			return null;
+		}
+	}
 }
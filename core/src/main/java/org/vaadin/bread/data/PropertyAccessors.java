@@ -0,0 +1,230 @@
+package org.vaadin.bread.data;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import com.vaadin.data.ValueProvider;
+import com.vaadin.server.Setter;
+
+/**
+ * Creates getters and setters that call the accessor methods of a bean
+ * directly, through classes generated by {@link LambdaMetafactory}, instead
+ * of going through <code>Method.invoke</code> like the property definitions
+ * of Vaadin. Nested paths like <code>"mainGroup.name"</code> are supported: a
+ * <code>null</code> along the path reads as <code>null</code> and ignores
+ * writes.
+ * <p>
+ * Methods that can't be linked this way (not public, or of a class not
+ * visible from this library) are called by reflection. The accessors are
+ * serializable: they are generated again after deserialization. Use the
+ * cached ones of {@link BeanMetadata}.
+ *
+ * @author Dmitrij Colautti
+ *
+ */
+public final class PropertyAccessors {
+
+	private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+	private PropertyAccessors() {
+	}
+
+	public static <T, V> ValueProvider<T, V> getter(Class<T> beanType, String path) {
+		return new PathGetter<>(beanType, path);
+	}
+
+	/**
+	 * @return <code>null</code> when the last property of the path has no setter
+	 */
+	public static <T, V> Setter<T, V> setter(Class<T> beanType, String path) {
+		int dot = path.lastIndexOf('.');
+		Class<?> holderType = dot<0 ? beanType : BeanMetadata.of(beanType).getPropertyType(path.substring(0, dot));
+		BeanMetadata.Property property = holderType==null ? null
+				: BeanMetadata.of(holderType).getProperty(path.substring(dot + 1)).orElse(null);
+		if (property==null) {
+			throw new IllegalArgumentException("No property " + path + " in " + beanType.getName());
+		}
+		return !property.isWritable() ? null : new PathSetter<>(beanType, path);
+	}
+
+	/**
+	 * @return a function calling <code>getter</code> on its argument
+	 */
+	@SuppressWarnings("unchecked")
+	static Function<Object, Object> compileGetter(Method getter) {
+		if (isLinkable(getter)) {
+			try {
+				MethodHandle handle = LOOKUP.unreflect(getter);
+				CallSite site = LambdaMetafactory.metafactory(LOOKUP, "apply",
+						MethodType.methodType(Function.class),
+						MethodType.methodType(Object.class, Object.class),
+						handle, handle.type().wrap());
+				return (Function<Object, Object>) site.getTarget().invokeExact();
+			} catch (Throwable e) {
+				// called by reflection below
+			}
+		}
+		makeAccessible(getter);
+		return bean -> invoke(getter, bean);
+	}
+
+	/**
+	 * @return a function calling <code>setter</code> on its first argument with the second one
+	 */
+	@SuppressWarnings("unchecked")
+	static BiConsumer<Object, Object> compileSetter(Method setter) {
+		if (isLinkable(setter)) {
+			try {
+				MethodHandle handle = LOOKUP.unreflect(setter);
+				CallSite site = LambdaMetafactory.metafactory(LOOKUP, "accept",
+						MethodType.methodType(BiConsumer.class),
+						MethodType.methodType(void.class, Object.class, Object.class),
+						handle, handle.type().wrap().changeReturnType(void.class));
+				return (BiConsumer<Object, Object>) site.getTarget().invokeExact();
+			} catch (Throwable e) {
+				// called by reflection below
+			}
+		}
+		makeAccessible(setter);
+		return (bean, value) -> invoke(setter, bean, value);
+	}
+
+	/**
+	 * A public method of a class that is not public can still be called once accessible.
+	 */
+	private static void makeAccessible(Method method) {
+		try {
+			method.setAccessible(true);
+		} catch (RuntimeException e) {
+			// Method.invoke reports it
+		}
+	}
+
+	/**
+	 * The generated class belongs to this library: it must see the bean class
+	 * and the method must be public.
+	 */
+	private static boolean isLinkable(Method method) {
+		Class<?> declaringClass = method.getDeclaringClass();
+		if (!Modifier.isPublic(method.getModifiers()) || !Modifier.isPublic(declaringClass.getModifiers())) {
+			return false;
+		}
+		try {
+			return Class.forName(declaringClass.getName(), false, PropertyAccessors.class.getClassLoader())==declaringClass;
+		} catch (ClassNotFoundException | LinkageError e) {
+			return false;
+		}
+	}
+
+	private static Object invoke(Method method, Object bean, Object... args) {
+		try {
+			return method.invoke(bean, args);
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException(e);
+		} catch (InvocationTargetException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+	/**
+	 * The functions reading each property of a path, from the bean type.
+	 */
+	@SuppressWarnings("unchecked")
+	private static Function<Object, Object>[] compileReads(Class<?> beanType, String[] names) {
+		Function<Object, Object>[] reads = new Function[names.length];
+		Class<?> type = beanType;
+		for (int i = 0; i < names.length; i++) {
+			String name = names[i];
+			BeanMetadata.Property property = BeanMetadata.of(type).getProperty(name)
+					.orElseThrow(() -> new IllegalArgumentException("No property " + name + " in " + beanType.getName()));
+			reads[i] = property.reader();
+			type = property.getType();
+		}
+		return reads;
+	}
+
+	private static class PathGetter<T, V> implements ValueProvider<T, V> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Class<T> beanType;
+		private final String path;
+		private transient Function<Object, Object>[] reads;
+
+		PathGetter(Class<T> beanType, String path) {
+			this.beanType = beanType;
+			this.path = path;
+			this.reads = compileReads(beanType, path.split("\\."));
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public V apply(T bean) {
+			Object value = bean;
+			for (int i = 0; i < reads.length && value!=null; i++) {
+				value = reads[i].apply(value);
+			}
+			return (V) value;
+		}
+
+		private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+			in.defaultReadObject();
+			reads = compileReads(beanType, path.split("\\."));
+		}
+	}
+
+	private static class PathSetter<T, V> implements Setter<T, V> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Class<T> beanType;
+		private final String path;
+		private transient Function<Object, Object>[] parentReads;
+		private transient BiConsumer<Object, Object> write;
+
+		PathSetter(Class<T> beanType, String path) {
+			this.beanType = beanType;
+			this.path = path;
+			compile();
+		}
+
+		private void compile() {
+			String[] names = path.split("\\.");
+			String[] parentNames = new String[names.length - 1];
+			System.arraycopy(names, 0, parentNames, 0, parentNames.length);
+			parentReads = compileReads(beanType, parentNames);
+			Class<?> holderType = parentNames.length==0 ? beanType
+					: BeanMetadata.of(beanType).getPropertyType(path.substring(0, path.lastIndexOf('.')));
+			write = BeanMetadata.of(holderType).getProperty(names[names.length - 1]).get().writer();
+		}
+
+		@Override
+		public void accept(T bean, V value) {
+			Object holder = bean;
+			for (int i = 0; i < parentReads.length && holder!=null; i++) {
+				holder = parentReads[i].apply(holder);
+			}
+			if (holder!=null) {
+				write.accept(holder, value);
+			}
+		}
+
+		private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+			in.defaultReadObject();
+			compile();
+		}
+	}
+}
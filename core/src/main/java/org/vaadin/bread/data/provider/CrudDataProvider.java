@@ -0,0 +1,274 @@
+package org.vaadin.bread.data.provider;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+import org.vaadin.bread.ui.crud.CountOperationListener;
+
+import com.vaadin.data.ValueProvider;
+import com.vaadin.data.provider.DataProvider;
+import com.vaadin.data.provider.DataProviderWrapper;
+import com.vaadin.data.provider.Query;
+import com.vaadin.data.provider.QuerySortOrder;
+
+/**
+ * Wraps the data provider of a crud to refresh only what an operation
+ * changed: an updated item is refreshed by id, an added or removed item
+ * updates the last known size instead of running the count query again. The
+ * size is recounted by the next {@link #refreshAll()} and whenever the
+ * wrapped provider is refreshed by someone else.
+ * <p>
+ * With a {@link FetchWithCount} backend the count also loads the first page,
+ * which answers the first page query of the same refresh. A count found in
+ * the {@link CountCache} is used instead, the first page is then queried as
+ * usual.
+ *
+ * @author Dmitrij Colautti
+ *
+ */
+public class CrudDataProvider<T, F> extends DataProviderWrapper<T, F, F> {
+
+	private static final long serialVersionUID = 1L;
+
+	public static final int DEFAULT_FIRST_PAGE_SIZE = 50;
+
+	/**
+	 * Counts kept by the owner of the provider, e.g. per filter value.
+	 */
+	public interface CountCache<T> extends Serializable {
+
+		/**
+		 * @return the count of the filter of <code>query</code>, <code>null</code> when unknown
+		 */
+		Integer get(Query<T, ?> query);
+
+		void put(Query<T, ?> query, int count);
+	}
+
+	private ValueProvider<T, ?> idGetter;
+	private CountOperationListener<T> countOperation;
+	private FetchWithCount<T> fetchWithCount;
+	private CountCache<T> countCache;
+	private int firstPageSize = DEFAULT_FIRST_PAGE_SIZE;
+	private List<QuerySortOrder> lastSortOrders = Collections.emptyList();
+
+	private List<T> firstPage;
+	private Object firstPageFilter;
+	private List<QuerySortOrder> firstPageSortOrders;
+
+	private boolean sizeKnown;
+	private Object sizeFilter;
+	private int size;
+	private boolean keepSize;
+
+	public CrudDataProvider(DataProvider<T, F> dataProvider) {
+		this(dataProvider, null);
+	}
+
+	/**
+	 * @param idGetter gives the identity of the items, the item itself when <code>null</code>
+	 */
+	public CrudDataProvider(DataProvider<T, F> dataProvider, ValueProvider<T, ?> idGetter) {
+		super(dataProvider);
+		this.idGetter = idGetter;
+		dataProvider.addDataProviderListener(event -> {
+			if (!keepSize) {
+				forgetSize();
+			}
+		});
+	}
+
+	@Override
+	protected F getFilter(Query<T, F> query) {
+		return query.getFilter().orElse(null);
+	}
+
+	@Override
+	public Object getId(T item) {
+		Objects.requireNonNull(item, "Cannot provide an id for a null item.");
+		return idGetter==null ? super.getId(item) : idGetter.apply(item);
+	}
+
+	@Override
+	public int size(Query<T, F> query) {
+		F filter = getFilter(query);
+		synchronized (this) {
+			if (sizeKnown && Objects.equals(filter, sizeFilter)) {
+				return size;
+			}
+		}
+		int counted;
+		if (fetchWithCount!=null) {
+			Integer cached = countCache!=null ? countCache.get(query) : null;
+			if (cached!=null) {
+				counted = cached;
+			} else {
+				counted = fetchFirstPage(filter);
+				if (countCache!=null) {
+					countCache.put(query, counted);
+				}
+			}
+		} else {
+			counted = countOperation==null ? super.size(query) : countOperation.count(query);
+		}
+		synchronized (this) {
+			sizeKnown = true;
+			sizeFilter = filter;
+			size = counted;
+		}
+		return counted;
+	}
+
+	/**
+	 * Loads the first page with the sorting of the last first page query, the
+	 * grid asks for it right after the size.
+	 */
+	private int fetchFirstPage(F filter) {
+		List<QuerySortOrder> sortOrders;
+		int limit;
+		synchronized (this) {
+			sortOrders = lastSortOrders;
+			limit = firstPageSize;
+		}
+		FetchWithCount.Page<T> page = fetchWithCount.fetchWithCount(new Query<>(0, limit, sortOrders, null, filter));
+		synchronized (this) {
+			firstPage = page.getItems().size()<limit ? page.getItems() : page.getItems().subList(0, limit);
+			firstPageFilter = filter;
+			firstPageSortOrders = sortOrders;
+		}
+		return page.getTotalCount();
+	}
+
+	@Override
+	public Stream<T> fetch(Query<T, F> query) {
+		List<T> page = null;
+		synchronized (this) {
+			if (query.getOffset()==0) {
+				if (firstPage!=null && Objects.equals(getFilter(query), firstPageFilter)
+						&& sameSortOrders(query.getSortOrders(), firstPageSortOrders)
+						&& (query.getLimit()<=firstPage.size() || firstPage.size()<firstPageSize)) {
+					page = firstPage.subList(0, Math.min(query.getLimit(), firstPage.size()));
+				}
+				lastSortOrders = query.getSortOrders();
+			}
+			firstPage = null;
+		}
+		return page!=null ? page.stream() : super.fetch(query);
+	}
+
+	private static boolean sameSortOrders(List<QuerySortOrder> a, List<QuerySortOrder> b) {
+		if (a.size()!=b.size()) {
+			return false;
+		}
+		for (int i = 0; i < a.size(); i++) {
+			if (!a.get(i).getSorted().equals(b.get(i).getSorted()) || a.get(i).getDirection()!=b.get(i).getDirection()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Shows an item added by the crud: the page queries run again, the count does not.
+	 */
+	public void itemAdded(T item) {
+		refreshWithSizeDelta(1);
+	}
+
+	/**
+	 * Hides an item deleted by the crud: the page queries run again, the count does not.
+	 */
+	public void itemRemoved(T item) {
+		refreshWithSizeDelta(-1);
+	}
+
+	private void refreshWithSizeDelta(int delta) {
+		synchronized (this) {
+			if (sizeKnown) {
+				size = Math.max(0, size + delta);
+			}
+		}
+		keepSize = true;
+		try {
+			super.refreshAll();
+		} finally {
+			keepSize = false;
+		}
+	}
+
+	@Override
+	public void refreshAll() {
+		forgetSize();
+		super.refreshAll();
+	}
+
+	private void forgetSize() {
+		synchronized (this) {
+			sizeKnown = false;
+			sizeFilter = null;
+			firstPage = null;
+		}
+	}
+
+	public ValueProvider<T, ?> getIdGetter() {
+		return idGetter;
+	}
+
+	public void setIdGetter(ValueProvider<T, ?> idGetter) {
+		this.idGetter = idGetter;
+	}
+
+	public CountOperationListener<T> getCountOperation() {
+		return countOperation;
+	}
+
+	/**
+	 * Counts the items instead of the wrapped provider, which is still queried for the pages.
+	 */
+	public void setCountOperation(CountOperationListener<T> countOperation) {
+		this.countOperation = countOperation;
+	}
+
+	public FetchWithCount<T> getFetchWithCount() {
+		return fetchWithCount;
+	}
+
+	/**
+	 * Counts the items with the first page of the refresh, the count operation is not used then.
+	 */
+	public void setFetchWithCount(FetchWithCount<T> fetchWithCount) {
+		this.fetchWithCount = fetchWithCount;
+	}
+
+	public CountCache<T> getCountCache() {
+		return countCache;
+	}
+
+	/**
+	 * Consulted before a {@link FetchWithCount} backend, and given the totals it
+	 * returns. Without a fetch with count the count operation is expected to
+	 * cache by itself.
+	 */
+	public void setCountCache(CountCache<T> countCache) {
+		this.countCache = countCache;
+	}
+
+	public int getFirstPageSize() {
+		return firstPageSize;
+	}
+
+	/**
+	 * The number of items loaded with the count, a first page query asking for
+	 * more goes to the wrapped provider.
+	 */
+	public void setFirstPageSize(int firstPageSize) {
+		this.firstPageSize = firstPageSize;
+	}
+
+	public DataProvider<T, F> getWrappedDataProvider() {
+		return dataProvider;
+	}
+}
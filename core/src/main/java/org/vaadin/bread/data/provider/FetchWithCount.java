@@ -0,0 +1,46 @@
+package org.vaadin.bread.data.provider;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
+
+import com.vaadin.data.provider.Query;
+
+/**
+ * A backend able to return a page of items together with the total count in
+ * a single call, e.g. with <code>COUNT(*) OVER()</code> or both queries in one
+ * transaction. {@link CrudDataProvider} uses it to answer the size query of a
+ * refresh and the first page query that follows it with one round trip.
+ *
+ * @author Dmitrij Colautti
+ *
+ */
+@FunctionalInterface
+public interface FetchWithCount<T> extends Serializable {
+
+	/**
+	 * @param query the filter, sorting, offset and limit of the page
+	 */
+	Page<T> fetchWithCount(Query<T, ?> query);
+
+	public static final class Page<T> implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		private final List<T> items;
+		private final int totalCount;
+
+		public Page(List<T> items, int totalCount) {
+			this.items = items==null ? Collections.emptyList() : items;
+			this.totalCount = totalCount;
+		}
+
+		public List<T> getItems() {
+			return items;
+		}
+
+		public int getTotalCount() {
+			return totalCount;
+		}
+	}
+}
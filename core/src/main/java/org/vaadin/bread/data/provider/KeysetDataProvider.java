@@ -0,0 +1,175 @@
+package org.vaadin.bread.data.provider;
+
+import java.io.Serializable;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.vaadin.bread.ui.support.FilterSignature;
+
+import com.vaadin.data.ValueProvider;
+import com.vaadin.data.provider.AbstractBackEndDataProvider;
+import com.vaadin.data.provider.CallbackDataProvider.CountCallback;
+import com.vaadin.data.provider.CallbackDataProvider.FetchCallback;
+import com.vaadin.data.provider.Query;
+import com.vaadin.data.provider.QuerySortOrder;
+
+/**
+ * Maps the offset queries of a component to keyset (seek) queries: "the
+ * <code>limit</code> items after the one with key X". The keys at the page
+ * boundaries already seen are kept per filter and sorting, so that scrolling
+ * on reads a page from an index instead of scanning all the rows before it.
+ * <p>
+ * A query far from every known boundary (a jump of the scrollbar) can't be
+ * resolved by key: it goes to the offset callback, when given, and its last
+ * item becomes a new boundary; otherwise the backend skips the rows from the
+ * nearest boundary. The boundaries are dropped by {@link #refreshAll()}.
+ * <p>
+ * The backend must return the items in a total order consistent with the
+ * keys, e.g. the sorting followed by the id. A backend that can only seek in
+ * the order of the keys sends the sorted queries to the offset callback with
+ * {@link #setSortedByOffset(boolean)}.
+ *
+ * @author Dmitrij Colautti
+ *
+ */
+public class KeysetDataProvider<T, F, K> extends AbstractBackEndDataProvider<T, F> {
+
+	private static final long serialVersionUID = 1L;
+
+	public static final int DEFAULT_MAX_SKIP = 500;
+
+	private static final int MAX_SORTINGS = 16;
+	private static final int MAX_BOUNDARIES = 100_000;
+
+	/**
+	 * Fetches the items following <code>afterKey</code> in the given sorting.
+	 */
+	@FunctionalInterface
+	public interface KeysetFetchCallback<T, F, K> extends Serializable {
+
+		/**
+		 * @param afterKey the key of the last item before the page, <code>null</code> for the first page
+		 */
+		Stream<T> fetchAfter(K afterKey, int limit, List<QuerySortOrder> sortOrders, F filter);
+	}
+
+	private final KeysetFetchCallback<T, F, K> keysetFetch;
+	private final FetchCallback<T, F> offsetFetch;
+	private final CountCallback<T, F> count;
+	private final ValueProvider<T, K> keyGetter;
+	private int maxSkip = DEFAULT_MAX_SKIP;
+	private boolean sortedByOffset;
+
+	private final LinkedHashMap<FilterSignature, TreeMap<Integer, K>> boundaries = new LinkedHashMap<FilterSignature, TreeMap<Integer, K>>(16, 0.75f, true) {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<FilterSignature, TreeMap<Integer, K>> eldest) {
+			return size()>MAX_SORTINGS;
+		}
+	};
+
+	public KeysetDataProvider(KeysetFetchCallback<T, F, K> keysetFetch, CountCallback<T, F> count, ValueProvider<T, K> keyGetter) {
+		this(keysetFetch, null, count, keyGetter);
+	}
+
+	/**
+	 * @param offsetFetch resolves the jumps farther than {@link #getMaxSkip()} from a known boundary, may be <code>null</code>
+	 */
+	public KeysetDataProvider(KeysetFetchCallback<T, F, K> keysetFetch, FetchCallback<T, F> offsetFetch,
+			CountCallback<T, F> count, ValueProvider<T, K> keyGetter) {
+		this.keysetFetch = keysetFetch;
+		this.offsetFetch = offsetFetch;
+		this.count = count;
+		this.keyGetter = keyGetter;
+	}
+
+	@Override
+	protected Stream<T> fetchFromBackEnd(Query<T, F> query) {
+		F filter = query.getFilter().orElse(null);
+		FilterSignature sorting = FilterSignature.of(filter, query.getSortOrders());
+		int offset = query.getOffset();
+
+		int start = 0;
+		K afterKey = null;
+		synchronized (this) {
+			Map.Entry<Integer, K> boundary = boundaries(sorting).floorEntry(offset);
+			if (boundary!=null) {
+				start = boundary.getKey();
+				afterKey = boundary.getValue();
+			}
+		}
+
+		List<T> items;
+		int skip = offset - start;
+		if (offsetFetch!=null && (skip>maxSkip || sortedByOffset && !query.getSortOrders().isEmpty())) {
+			items = offsetFetch.fetch(query).collect(Collectors.toList());
+		} else {
+			int limit = (int) Math.min(Integer.MAX_VALUE, (long) skip + query.getLimit());
+			try (Stream<T> stream = keysetFetch.fetchAfter(afterKey, limit, query.getSortOrders(), filter)) {
+				items = stream.skip(skip).collect(Collectors.toList());
+			}
+		}
+
+		if (!items.isEmpty()) {
+			K lastKey = keyGetter.apply(items.get(items.size() - 1));
+			synchronized (this) {
+				TreeMap<Integer, K> keys = boundaries(sorting);
+				keys.put(offset + items.size(), lastKey);
+				if (keys.size()>MAX_BOUNDARIES) {
+					keys.pollFirstEntry();
+				}
+			}
+		}
+		return items.stream();
+	}
+
+	private TreeMap<Integer, K> boundaries(FilterSignature sorting) {
+		return boundaries.computeIfAbsent(sorting, s -> new TreeMap<>());
+	}
+
+	@Override
+	protected int sizeInBackEnd(Query<T, F> query) {
+		return count.count(query);
+	}
+
+	@Override
+	public void refreshAll() {
+		synchronized (this) {
+			boundaries.clear();
+		}
+		super.refreshAll();
+	}
+
+	public int getMaxSkip() {
+		return maxSkip;
+	}
+
+	/**
+	 * The rows the backend may skip from the nearest known boundary before
+	 * the offset callback is used instead.
+	 */
+	public void setMaxSkip(int maxSkip) {
+		this.maxSkip = maxSkip;
+	}
+
+	public boolean isSortedByOffset() {
+		return sortedByOffset;
+	}
+
+	/**
+	 * Sends the queries with sort orders to the offset callback, the keyset
+	 * callback is then only used in the order of the keys.
+	 */
+	public void setSortedByOffset(boolean sortedByOffset) {
+		if (sortedByOffset && offsetFetch==null) {
+			throw new IllegalStateException("No offset callback to send the sorted queries to");
+		}
+		this.sortedByOffset = sortedByOffset;
+	}
+}
@@ -0,0 +1,257 @@
+package org.vaadin.bread.data.provider;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import com.vaadin.server.VaadinSession;
+
+/**
+ * Pages of items recently read from a backend, kept for
+ * {@link #getTimeToLiveMillis()} and bounded by entries and by bytes, the
+ * least recently used ones are dropped first. The bytes are not measured:
+ * unless given to {@link #put(Key, List, long)}, the bytes of a page are its
+ * number of items times {@link #getItemBytes()}, a fixed guess.
+ * <p>
+ * The pages of a domain type are dropped by {@link #invalidate(Class)}, which
+ * <code>AbstractCrud</code> calls after its operations. Pages also showing
+ * data of other types, e.g. the name of the group of a user, are not dropped
+ * when that data changes: {@link #clear()} drops all the pages.
+ * <p>
+ * Pages are keyed by a scope as well, which tells apart the data providers
+ * that return different items for the same filter.
+ * <p>
+ * The pages are not serialized with the session.
+ *
+ * @author Dmitrij Colautti
+ *
+ */
+public class PageCache implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	public static final int DEFAULT_MAX_ENTRIES = 200;
+	public static final long DEFAULT_MAX_BYTES = 16L * 1024 * 1024;
+	public static final long DEFAULT_TIME_TO_LIVE_MILLIS = 60_000;
+	public static final int DEFAULT_ITEM_BYTES = 512;
+
+	public static final class Key implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Class<?> domainType;
+		private final String scope;
+		private final Serializable signature;
+		private final int offset;
+		private final int limit;
+
+		/**
+		 * @param scope identifies the data provider
+		 * @param signature the filter and the sorting compared with <code>equals</code>, e.g. a {@link org.vaadin.bread.ui.support.FilterSignature}
+		 */
+		public Key(Class<?> domainType, String scope, Serializable signature, int offset, int limit) {
+			this.domainType = domainType;
+			this.scope = scope;
+			this.signature = signature;
+			this.offset = offset;
+			this.limit = limit;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return domainType.equals(other.domainType) && scope.equals(other.scope)
+					&& signature.equals(other.signature) && offset==other.offset && limit==other.limit;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(domainType, scope, signature, offset, limit);
+		}
+	}
+
+	private static final class Entry {
+
+		private final List<?> items;
+		private final long bytes;
+		private final long expiresAt;
+
+		Entry(List<?> items, long bytes, long expiresAt) {
+			this.items = items;
+			this.bytes = bytes;
+			this.expiresAt = expiresAt;
+		}
+	}
+
+	private int maxEntries = DEFAULT_MAX_ENTRIES;
+	private long maxBytes = DEFAULT_MAX_BYTES;
+	private long timeToLiveMillis = DEFAULT_TIME_TO_LIVE_MILLIS;
+	private int itemBytes = DEFAULT_ITEM_BYTES;
+
+	private transient LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private long totalBytes;
+	private long hits;
+	private long misses;
+
+	/**
+	 * @return the cache of the current session, a new cache outside of a session
+	 */
+	public static PageCache getForSession() {
+		VaadinSession session = VaadinSession.getCurrent();
+		if (session==null) {
+			return new PageCache();
+		}
+		PageCache cache = session.getAttribute(PageCache.class);
+		if (cache==null) {
+			cache = new PageCache();
+			session.setAttribute(PageCache.class, cache);
+		}
+		return cache;
+	}
+
+	/**
+	 * @return the cached items, <code>null</code> when missing or expired
+	 */
+	@SuppressWarnings("unchecked")
+	public synchronized <T> List<T> get(Key key) {
+		Entry entry = entries.get(key);
+		if (entry!=null && entry.expiresAt<System.currentTimeMillis()) {
+			remove(key);
+			entry = null;
+		}
+		if (entry==null) {
+			misses++;
+			return null;
+		}
+		hits++;
+		return (List<T>) entry.items;
+	}
+
+	/**
+	 * Caches <code>items</code>, estimating their bytes with {@link #getItemBytes()}.
+	 */
+	public synchronized void put(Key key, List<?> items) {
+		put(key, items, (long) items.size() * itemBytes);
+	}
+
+	/**
+	 * Caches <code>items</code>, sized by the caller. A page larger than
+	 * {@link #getMaxBytes()} is not cached.
+	 */
+	public synchronized void put(Key key, List<?> items, long bytes) {
+		if (bytes>maxBytes) {
+			return;
+		}
+		remove(key);
+		entries.put(key, new Entry(items, bytes, System.currentTimeMillis() + timeToLiveMillis));
+		totalBytes += bytes;
+		evict();
+	}
+
+	private void evict() {
+		Iterator<Entry> eldest = entries.values().iterator();
+		while ((entries.size()>maxEntries || totalBytes>maxBytes) && eldest.hasNext()) {
+			totalBytes -= eldest.next().bytes;
+			eldest.remove();
+		}
+	}
+
+	private void remove(Key key) {
+		Entry entry = entries.remove(key);
+		if (entry!=null) {
+			totalBytes -= entry.bytes;
+		}
+	}
+
+	public synchronized void invalidate(Class<?> domainType) {
+		Iterator<Map.Entry<Key, Entry>> iterator = entries.entrySet().iterator();
+		while (iterator.hasNext()) {
+			Map.Entry<Key, Entry> entry = iterator.next();
+			if (entry.getKey().domainType.equals(domainType)) {
+				totalBytes -= entry.getValue().bytes;
+				iterator.remove();
+			}
+		}
+	}
+
+	/**
+	 * Drops all the pages, of every domain type and scope.
+	 */
+	public synchronized void clear() {
+		entries.clear();
+		totalBytes = 0;
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	public synchronized long getTotalBytes() {
+		return totalBytes;
+	}
+
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	public synchronized void resetStatistics() {
+		hits = 0;
+		misses = 0;
+	}
+
+	public synchronized int getMaxEntries() {
+		return maxEntries;
+	}
+
+	public synchronized void setMaxEntries(int maxEntries) {
+		this.maxEntries = maxEntries;
+		evict();
+	}
+
+	public synchronized long getMaxBytes() {
+		return maxBytes;
+	}
+
+	public synchronized void setMaxBytes(long maxBytes) {
+		this.maxBytes = maxBytes;
+		evict();
+	}
+
+	public synchronized long getTimeToLiveMillis() {
+		return timeToLiveMillis;
+	}
+
+	public synchronized void setTimeToLiveMillis(long timeToLiveMillis) {
+		this.timeToLiveMillis = timeToLiveMillis;
+	}
+
+	public synchronized int getItemBytes() {
+		return itemBytes;
+	}
+
+	/**
+	 * The guessed size of an item, the bytes of a page put without a size
+	 * are its items times this.
+	 */
+	public synchronized void setItemBytes(int itemBytes) {
+		this.itemBytes = itemBytes;
+	}
+
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		entries = new LinkedHashMap<>(16, 0.75f, true);
+		totalBytes = 0;
+	}
+}
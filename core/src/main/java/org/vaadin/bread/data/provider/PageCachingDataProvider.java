@@ -0,0 +1,88 @@
+package org.vaadin.bread.data.provider;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.vaadin.bread.ui.support.FilterSignature;
+
+import com.vaadin.data.provider.DataProvider;
+import com.vaadin.data.provider.DataProviderWrapper;
+import com.vaadin.data.provider.Query;
+import com.vaadin.server.SerializableSupplier;
+
+/**
+ * Serves the pages of a data provider from a {@link PageCache}, keyed by
+ * scope, filter, sorting, offset and limit. Refreshing does not drop the
+ * pages, the cache does it when the data changes or the pages expire.
+ * <p>
+ * Data providers returning the same items share their pages when they have
+ * the same scope, by default the scope is unique to this provider.
+ *
+ * @author Dmitrij Colautti
+ *
+ */
+public class PageCachingDataProvider<T, F> extends DataProviderWrapper<T, F, F> {
+
+	private static final long serialVersionUID = 1L;
+
+	private final PageCache cache;
+	private final Class<T> domainType;
+	private final String scope;
+	private final SerializableSupplier<?> filterSupplier;
+
+	public PageCachingDataProvider(DataProvider<T, F> dataProvider, PageCache cache, Class<T> domainType) {
+		this(dataProvider, cache, domainType, UUID.randomUUID().toString(), null);
+	}
+
+	/**
+	 * @param scope identifies the wrapped provider in the cache
+	 * @param filterSupplier the filter applied inside the wrapped provider (e.g. a configurable filter), part of the key
+	 */
+	public PageCachingDataProvider(DataProvider<T, F> dataProvider, PageCache cache, Class<T> domainType,
+			String scope, SerializableSupplier<?> filterSupplier) {
+		super(dataProvider);
+		this.cache = cache;
+		this.domainType = domainType;
+		this.scope = scope;
+		this.filterSupplier = filterSupplier;
+	}
+
+	@Override
+	protected F getFilter(Query<T, F> query) {
+		return query.getFilter().orElse(null);
+	}
+
+	@Override
+	public Stream<T> fetch(Query<T, F> query) {
+		FilterSignature signature = FilterSignature.of(getFilter(query), query.getSortOrders());
+		if (filterSupplier!=null) {
+			signature = signature.with(filterSupplier.get(), Collections.emptyList());
+		}
+		PageCache.Key key = new PageCache.Key(domainType, scope, signature, query.getOffset(), query.getLimit());
+		if ((long) query.getLimit() * cache.getItemBytes()>cache.getMaxBytes()) {
+			// e.g. a fetch of all the items, too large to be cached
+			return super.fetch(query);
+		}
+		List<T> items = cache.get(key);
+		if (items==null) {
+			items = super.fetch(query).collect(Collectors.toList());
+			cache.put(key, items);
+		}
+		return items.stream();
+	}
+
+	public PageCache getCache() {
+		return cache;
+	}
+
+	public String getScope() {
+		return scope;
+	}
+
+	public DataProvider<T, F> getWrappedDataProvider() {
+		return dataProvider;
+	}
+}
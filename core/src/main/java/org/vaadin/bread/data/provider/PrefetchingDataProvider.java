@@ -0,0 +1,254 @@
+package org.vaadin.bread.data.provider;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.vaadin.bread.ui.support.FilterSignature;
+
+import com.vaadin.data.provider.DataProvider;
+import com.vaadin.data.provider.DataProviderWrapper;
+import com.vaadin.data.provider.Query;
+
+/**
+ * Reads ahead: after serving a page it fetches the next one (and optionally
+ * the previous one) in the background, with the same filter and sorting, so
+ * that scrolling to it doesn't wait for the backend. A query arriving while
+ * its page is still being prefetched waits for it instead of running twice.
+ * <p>
+ * The last {@link #getMaxPages()} pages are buffered, they are dropped when
+ * the wrapped provider is refreshed; the dropped pages that are still waiting
+ * for a prefetch thread are not fetched. The wrapped provider is queried from
+ * the prefetch threads and must allow it.
+ *
+ * @author Dmitrij Colautti
+ *
+ */
+public class PrefetchingDataProvider<T, F> extends DataProviderWrapper<T, F, F> {
+
+	private static final long serialVersionUID = 1L;
+
+	public static final int DEFAULT_MAX_PAGES = 4;
+
+	private static final Executor DEFAULT_EXECUTOR = createDefaultExecutor();
+
+	private static final class Page<T> {
+
+		private final FilterSignature sorting;
+		private final int offset;
+		private final int limit;
+		private final CompletableFuture<List<T>> items;
+
+		Page(FilterSignature sorting, int offset, int limit, CompletableFuture<List<T>> items) {
+			this.sorting = sorting;
+			this.offset = offset;
+			this.limit = limit;
+			this.items = items;
+		}
+
+		boolean covers(FilterSignature sorting, int offset, int limit) {
+			return this.sorting.equals(sorting) && this.offset<=offset
+					&& (long) offset + limit<=(long) this.offset + this.limit;
+		}
+	}
+
+	private transient Executor executor = DEFAULT_EXECUTOR;
+	private int maxPages = DEFAULT_MAX_PAGES;
+	private boolean prefetchPrevious;
+
+	private transient LinkedList<Page<T>> pages = new LinkedList<>();
+	private long hits;
+	private long misses;
+
+	public PrefetchingDataProvider(DataProvider<T, F> dataProvider) {
+		super(dataProvider);
+		dataProvider.addDataProviderListener(event -> clear());
+	}
+
+	private static Executor createDefaultExecutor() {
+		AtomicInteger threads = new AtomicInteger();
+		int size = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(size, size, 60, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<>(64), r -> {
+					Thread thread = new Thread(r, "bread-prefetch-" + threads.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				});
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+	@Override
+	protected F getFilter(Query<T, F> query) {
+		return query.getFilter().orElse(null);
+	}
+
+	@Override
+	public Stream<T> fetch(Query<T, F> query) {
+		F filter = getFilter(query);
+		FilterSignature sorting = FilterSignature.of(filter, query.getSortOrders());
+		int offset = query.getOffset();
+		int limit = query.getLimit();
+
+		List<T> items = buffered(sorting, offset, limit);
+		if (items==null) {
+			items = super.fetch(query).collect(Collectors.toList());
+		}
+
+		if (limit<Integer.MAX_VALUE) {
+			if (items.size()==limit) {
+				prefetch(query, sorting, offset + limit);
+			}
+			if (prefetchPrevious && offset>0) {
+				prefetch(query, sorting, Math.max(0, offset - limit));
+			}
+		}
+		return items.stream();
+	}
+
+	/**
+	 * @return the buffered items of the range, <code>null</code> when not buffered
+	 */
+	private List<T> buffered(FilterSignature sorting, int offset, int limit) {
+		Page<T> page = null;
+		synchronized (this) {
+			for (Page<T> candidate : pages) {
+				if (candidate.covers(sorting, offset, limit)) {
+					page = candidate;
+					break;
+				}
+			}
+			if (page==null) {
+				misses++;
+				return null;
+			}
+			hits++;
+		}
+		try {
+			List<T> items = page.items.join();
+			int from = Math.min(items.size(), offset - page.offset);
+			return new ArrayList<>(items.subList(from, Math.min(items.size(), from + limit)));
+		} catch (CompletionException | CancellationException e) {
+			// failed, or dropped meanwhile
+			synchronized (this) {
+				pages.remove(page);
+				hits--;
+				misses++;
+			}
+			return null;
+		}
+	}
+
+	private void prefetch(Query<T, F> query, FilterSignature sorting, int offset) {
+		int limit = query.getLimit();
+		Query<T, F> next = new Query<>(offset, limit, query.getSortOrders(), query.getInMemorySorting(), getFilter(query));
+		CompletableFuture<List<T>> items = new CompletableFuture<>();
+		Page<T> page = new Page<>(sorting, offset, limit, items);
+		synchronized (this) {
+			for (Page<T> buffered : pages) {
+				if (buffered.covers(sorting, offset, limit)) {
+					return;
+				}
+			}
+			pages.addFirst(page);
+			while (pages.size()>maxPages) {
+				pages.removeLast().items.cancel(false);
+			}
+		}
+		try {
+			executor.execute(() -> {
+				if (items.isDone()) {
+					return;
+				}
+				try {
+					items.complete(dataProvider.fetch(next).collect(Collectors.toList()));
+				} catch (RuntimeException e) {
+					items.completeExceptionally(e);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			// best effort, the page is fetched when needed
+			synchronized (this) {
+				pages.remove(page);
+			}
+			items.completeExceptionally(e);
+		}
+	}
+
+	/**
+	 * Drops the buffered pages. The ones not fetched yet are cancelled, those
+	 * being fetched complete for nobody.
+	 */
+	public synchronized void clear() {
+		for (Page<T> page : pages) {
+			page.items.cancel(false);
+		}
+		pages.clear();
+	}
+
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		executor = DEFAULT_EXECUTOR;
+		pages = new LinkedList<>();
+	}
+
+	/**
+	 * @return the ratio of the queries served by a prefetched page
+	 */
+	public synchronized double getHitRate() {
+		return hits + misses==0 ? 0 : (double) hits / (hits + misses);
+	}
+
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	public synchronized void resetStatistics() {
+		hits = 0;
+		misses = 0;
+	}
+
+	public int getMaxPages() {
+		return maxPages;
+	}
+
+	public void setMaxPages(int maxPages) {
+		this.maxPages = maxPages;
+	}
+
+	public boolean isPrefetchPrevious() {
+		return prefetchPrevious;
+	}
+
+	/**
+	 * Also reads the page before the one served, for grids scrolled upwards.
+	 */
+	public void setPrefetchPrevious(boolean prefetchPrevious) {
+		this.prefetchPrevious = prefetchPrevious;
+	}
+
+	public void setExecutor(Executor executor) {
+		this.executor = executor;
+	}
+
+	public DataProvider<T, F> getWrappedDataProvider() {
+		return dataProvider;
+	}
+}
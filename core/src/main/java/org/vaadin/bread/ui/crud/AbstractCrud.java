@@ -1,30 +1,73 @@
 package org.vaadin.bread.ui.crud;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.vaadin.bread.data.provider.PageCache;
 import org.vaadin.bread.ui.form.FormFactory;
 import org.vaadin.bread.ui.layout.CrudLayout;
+import org.vaadin.bread.ui.support.BeanCsvBuilder;
 import org.vaadin.bread.ui.support.BeanExcelBuilder;
+import org.vaadin.bread.ui.support.BeanImporter;
+import org.vaadin.bread.ui.support.CsvOnDemandStreamResource;
 import org.vaadin.bread.ui.support.ExcelOnDemandStreamResource;
+import org.vaadin.bread.ui.support.ExportCache;
+import org.vaadin.bread.ui.support.ExportJob;
+import org.vaadin.bread.ui.support.FilterSignature;
+import org.vaadin.bread.ui.support.PartitionedExcelExporter;
+import org.vaadin.bread.ui.support.StreamingDownloadResource;
+import org.vaadin.bread.ui.support.StreamingDownloadResource.ContentWriter;
 
 import com.vaadin.data.provider.DataProvider;
+import com.vaadin.data.provider.Query;
+import com.vaadin.data.provider.QuerySortOrder;
 import com.vaadin.server.Resource;
+import com.vaadin.server.SerializableComparator;
+import com.vaadin.server.SerializableSupplier;
+import com.vaadin.server.VaadinSession;
+import com.vaadin.shared.Registration;
 import com.vaadin.ui.Composite;
+import com.vaadin.ui.UI;
 
 /**
  * @author Alejandro Duarte
  */
 public abstract class AbstractCrud<T> extends Composite implements Crud<T> {
 
+    /**
+     * Rows between two cancellation checks of the jobs of {@link #buildExcelExportJob()}.
+     */
+    protected static final int EXPORT_JOB_PROGRESS_INTERVAL = 100;
+
     protected Class<T> domainType;
 
     protected DataProvider<T, ?> dataProvider;
     protected AddOperationListener<T> addOperation = t -> null;
+    protected BatchAddOperationListener<T> batchAddOperation = domainObjects -> {
+        List<T> added = new ArrayList<>(domainObjects.size());
+        for (T domainObject : domainObjects) {
+            added.add(addOperation.perform(domainObject));
+        }
+        return added;
+    };
     protected UpdateOperationListener<T> updateOperation = t -> null;
     protected DeleteOperationListener<T> deleteOperation = t -> { };
+    protected CountOperationListener<T> countOperation;
+    protected Map<FilterSignature, Integer> countCache;
     protected Map<String, Resource> exportOperations = new HashMap<>();
+    protected List<DataChangeListener<T>> dataChangeListeners = new ArrayList<>();
+    protected Object filter;
+    protected transient ExportCache exportCache;
+    protected SerializableSupplier<ExportCache> exportCacheLookup;
+    protected String cacheScope;
+    protected PageCache pageCache;
 
     protected CrudLayout crudLayout;
     protected FormFactory<T> crudFormFactory;
@@ -33,14 +76,30 @@ public abstract class AbstractCrud<T> extends Composite implements Crud<T> {
         this.domainType = domainType;
         this.crudLayout = crudLayout;
         this.crudFormFactory = crudFormFactory;
+        this.cacheScope = getClass().getName() + "/" + domainType.getName();
                 
         exportOperations.put("EXCEL", new ExcelOnDemandStreamResource() {
 			
 			@Override
-			protected XSSFWorkbook getWorkbook() {
-				return new BeanExcelBuilder<T>(domainType).createExcelDocument(dataProvider);
+			protected ContentWriter prepareContent() {
+				return cached("EXCEL", super.prepareContent());
+			}
+			
+			@Override
+			protected Supplier<Workbook> prepareWorkbook() {
+				BeanExcelBuilder<T> builder = buildExcelBuilder();
+				DataProvider<T, ?> exportedDataProvider = getExportDataProvider();
+				return () -> builder.createExcelDocument(exportedDataProvider);
+			}
+			
+			@Override
+			protected Workbook getWorkbook() {
+				return prepareWorkbook().get();
 			}
 		});
+        exportOperations.put("CSV", buildCsvExporter(BeanCsvBuilder.COMMA, false));
+        exportOperations.put("TSV", buildCsvExporter(BeanCsvBuilder.TAB, false));
+        exportOperations.put("EXCEL_ZIP", buildPartitionedExcelExporter(PartitionedExcelExporter.DEFAULT_ROWS_PER_PART));
 
         setCompositionRoot(crudLayout);
         setSizeFull();
@@ -70,6 +129,14 @@ public abstract class AbstractCrud<T> extends Composite implements Crud<T> {
         this.addOperation = addOperation;
     }
 
+    /**
+     * By default every object is passed to the add operation.
+     */
+    @Override
+    public void setBatchAddOperation(BatchAddOperationListener<T> batchAddOperation) {
+        this.batchAddOperation = batchAddOperation;
+    }
+
     @Override
     public void setUpdateOperation(UpdateOperationListener<T> updateOperation) {
         this.updateOperation = updateOperation;
@@ -80,6 +147,15 @@ public abstract class AbstractCrud<T> extends Composite implements Crud<T> {
         this.deleteOperation = deleteOperation;
     }
 
+    /**
+     * By default the data provider is sized.
+     */
+    @Override
+    public void setCountOperation(CountOperationListener<T> countOperation) {
+        this.countOperation = countOperation;
+        clearCountCache();
+    }
+
     @Override
     public void setOperations(DataProvider<T, ?> dataProvider, AddOperationListener<T> addOperation, UpdateOperationListener<T> updateOperation, DeleteOperationListener<T> deleteOperation) {
         setDataProvider(dataProvider);
@@ -97,8 +173,22 @@ public abstract class AbstractCrud<T> extends Composite implements Crud<T> {
     public void setCrudListener(CrudListener<T> crudListener) {
     	setDataProvider(crudListener.getDataProvider());
         setAddOperation(crudListener::add);
+        setBatchAddOperation(crudListener::addAll);
         setUpdateOperation(crudListener::update);
         setDeleteOperation(crudListener::delete);
+        setCountOperation(overridesCount(crudListener) ? crudListener::count : null);
+    }
+
+    /**
+     * The default count of a listener would build a second data provider,
+     * the one of the crud is sized instead.
+     */
+    private static boolean overridesCount(CrudListener<?> crudListener) {
+        try {
+            return !crudListener.getClass().getMethod("count", Query.class).isDefault();
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
     }
 
     public void addExporter(String name, Resource exporter) {
@@ -116,4 +206,367 @@ public abstract class AbstractCrud<T> extends Composite implements Crud<T> {
 	public DataProvider<T, ?> getDataProvider() {
 		return dataProvider;
 	}
+
+    /**
+     * Called while the session is locked, the returned builder is used
+     * outside of it.
+     */
+    protected BeanExcelBuilder<T> buildExcelBuilder() {
+        BeanExcelBuilder<T> builder = new BeanExcelBuilder<T>(domainType);
+        builder.setStreaming(true);
+        builder.setSortOrders(getBackEndSorting());
+        builder.setInMemorySorting(getInMemorySorting());
+        return builder;
+    }
+
+    /**
+     * Calls {@link #buildExcelBuilder()} from an export thread, locking
+     * <code>session</code> meanwhile.
+     */
+    private BeanExcelBuilder<T> buildExcelBuilder(VaadinSession session) {
+        if (session==null || session.hasLock()) {
+            return buildExcelBuilder();
+        }
+        session.lock();
+        try {
+            return buildExcelBuilder();
+        } finally {
+            session.unlock();
+        }
+    }
+
+    /**
+     * @return the provider the exports read from, by default the one of the
+     * crud: exports must not go through the caches of the displayed pages
+     */
+    protected DataProvider<T, ?> getExportDataProvider() {
+        return dataProvider;
+    }
+
+    /**
+     * @return a resource exporting the current items with the columns and
+     * formats of {@link #buildExcelBuilder()}, to be registered with
+     * {@link #addExporter(String, Resource)}
+     */
+    public CsvOnDemandStreamResource<T> buildCsvExporter(char separator, boolean gzip) {
+        return new CsvOnDemandStreamResource<T>(separator, gzip) {
+
+            @Override
+            protected ContentWriter prepareContent() {
+                return cached(getFilename(), super.prepareContent());
+            }
+
+            @Override
+            protected BeanCsvBuilder<T> getBuilder() {
+                return new BeanCsvBuilder<T>(buildExcelBuilder());
+            }
+
+            @Override
+            protected DataProvider<T, ?> getDataProvider() {
+                return getExportDataProvider();
+            }
+        };
+    }
+
+    /**
+     * @return a resource exporting the current items as a zip of workbooks of
+     * at most <code>rowsPerPart</code> rows, generated in parallel
+     */
+    public StreamingDownloadResource buildPartitionedExcelExporter(int rowsPerPart) {
+        return new StreamingDownloadResource() {
+
+            @Override
+            protected ContentWriter prepareContent() {
+                VaadinSession session = VaadinSession.getCurrent();
+                PartitionedExcelExporter<T> exporter = new PartitionedExcelExporter<>(
+                        () -> buildExcelBuilder(session));
+                exporter.setRowsPerPart(rowsPerPart);
+                DataProvider<T, ?> exportedDataProvider = getExportDataProvider();
+                return cached("EXCEL_ZIP", out -> exporter.writeZip(exportedDataProvider, out));
+            }
+
+            @Override
+            public String getFilename() {
+                return "export.zip";
+            }
+
+            @Override
+            public String getMIMEType() {
+                return "application/zip";
+            }
+        };
+    }
+
+    /**
+     * @return an importer passing the imported objects to the batch add operation,
+     * validating them against the JPA type of the add form
+     */
+    public BeanImporter<T> buildImporter() {
+        BeanImporter<T> importer = new BeanImporter<T>(domainType, this::performBatchAdd);
+        importer.setJpaTypeForJpaValidation(crudFormFactory.getConfiguration(CrudOperation.ADD).getJpaTypeForJpaValidation());
+        importer.setLocale(getLocale());
+        return importer;
+    }
+
+    /**
+     * @return a job exporting the current items to Excel through the export
+     * cache, to be submitted to an {@link org.vaadin.bread.ui.support.ExportJobManager}
+     */
+    public ExportJob buildExcelExportJob() {
+        BeanExcelBuilder<T> builder = buildExcelBuilder();
+        builder.setProgressInterval(EXPORT_JOB_PROGRESS_INTERVAL);
+        DataProvider<T, ?> exportedDataProvider = getExportDataProvider();
+        ContentWriter writer = cached("EXCEL", out -> builder.writeExcelDocument(exportedDataProvider, out));
+        return new ExportJob("export.xlsx", ExcelOnDemandStreamResource.MIME_TYPE, (out, progress) -> {
+            builder.setProgressListener(progress);
+            writer.writeTo(out);
+        });
+    }
+
+    protected T performAdd(T domainObject) {
+        T added = addOperation.perform(domainObject);
+        fireDataChanged(CrudOperation.ADD, added);
+        return added;
+    }
+
+    /**
+     * Called by the importer, usually outside of the session lock. The data
+     * change is notified once for the whole batch, with a <code>null</code>
+     * object, through {@link UI#access(Runnable)} when the crud is attached.
+     */
+    protected Collection<T> performBatchAdd(Collection<T> domainObjects) {
+        Collection<T> added = batchAddOperation.perform(domainObjects);
+        UI ui = getUI();
+        if (ui==null) {
+            fireDataChanged(CrudOperation.ADD, null);
+        } else {
+            ui.access(() -> fireDataChanged(CrudOperation.ADD, null));
+        }
+        return added;
+    }
+
+    protected T performUpdate(T domainObject) {
+        T updated = updateOperation.perform(domainObject);
+        fireDataChanged(CrudOperation.UPDATE, updated);
+        return updated;
+    }
+
+    protected void performDelete(T domainObject) {
+        deleteOperation.perform(domainObject);
+        fireDataChanged(CrudOperation.DELETE, domainObject);
+    }
+
+    /**
+     * Counts the items with the count operation, or by sizing the data
+     * provider, through the count cache when enabled.
+     */
+    protected int performCount(Query<T, ?> query) {
+        Integer cached = getCachedCount(query);
+        if (cached!=null) {
+            return cached;
+        }
+        int count = countOperation!=null ? countOperation.count(query) : countItems(query);
+        putCachedCount(query, count);
+        return count;
+    }
+
+    /**
+     * @return the count of the filter of <code>query</code> in the count cache,
+     * <code>null</code> when not cached or the cache is disabled
+     */
+    protected Integer getCachedCount(Query<T, ?> query) {
+        Map<FilterSignature, Integer> countCache = this.countCache;
+        if (countCache==null) {
+            return null;
+        }
+        synchronized (countCache) {
+            return countCache.get(countKey(query));
+        }
+    }
+
+    /**
+     * Keeps a count of the filter of <code>query</code>, e.g. one read with the
+     * first page, when the count cache is enabled.
+     */
+    protected void putCachedCount(Query<T, ?> query, int count) {
+        Map<FilterSignature, Integer> countCache = this.countCache;
+        if (countCache!=null) {
+            synchronized (countCache) {
+                countCache.put(countKey(query), count);
+            }
+        }
+    }
+
+    private FilterSignature countKey(Query<T, ?> query) {
+        return FilterSignature.of(query.getFilter().isPresent() ? query.getFilter().get() : filter, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    protected int countItems(Query<T, ?> query) {
+        return ((DataProvider<T, Object>) dataProvider).size((Query<T, Object>) query);
+    }
+
+    /**
+     * Keeps the counts of the last <code>size</code> filter values until the
+     * next operation of this crud, 0 disables the cache. Counts of data
+     * changed by others are stale until {@link #clearCountCache()}.
+     */
+    public void setCountCacheSize(int size) {
+        if (size<=0) {
+            countCache = null;
+        } else {
+            countCache = new LinkedHashMap<FilterSignature, Integer>(16, 0.75f, true) {
+
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<FilterSignature, Integer> eldest) {
+                    return size()>size;
+                }
+            };
+        }
+    }
+
+    public void clearCountCache() {
+        Map<FilterSignature, Integer> countCache = this.countCache;
+        if (countCache!=null) {
+            synchronized (countCache) {
+                countCache.clear();
+            }
+        }
+    }
+
+    protected void fireDataChanged(CrudOperation operation, T domainObject) {
+        clearCountCache();
+        if (pageCache!=null) {
+            pageCache.invalidate(domainType);
+        }
+        ExportCache exportCache = getExportCache();
+        if (exportCache!=null) {
+            exportCache.invalidate(domainType);
+        }
+        for (DataChangeListener<T> listener : new ArrayList<>(dataChangeListeners)) {
+            listener.dataChanged(operation, domainObject);
+        }
+    }
+
+    /**
+     * Notified after the add, update and delete operations performed by this crud.
+     */
+    public Registration addDataChangeListener(DataChangeListener<T> listener) {
+        dataChangeListeners.add(listener);
+        return () -> dataChangeListeners.remove(listener);
+    }
+
+    /**
+     * Wraps the content of an exporter so that it is served from the export
+     * cache, if one is set, for the same scope, filter state and sorting.
+     * Filters holding values that can't be digested, e.g. entities, and
+     * in-memory sortings without sort orders are not cached.
+     */
+    protected ContentWriter cached(String exporterName, ContentWriter writer) {
+        ExportCache exportCache = getExportCache();
+        if (exportCache==null || cacheScope==null) {
+            return writer;
+        }
+        List<QuerySortOrder> inMemorySortOrders = getInMemorySortOrders();
+        if (getInMemorySorting()!=null && inMemorySortOrders.isEmpty()) {
+            return writer;
+        }
+        String signature = FilterSignature.of(filter, getBackEndSorting()).with(null, inMemorySortOrders).getDigest();
+        if (signature==null) {
+            return writer;
+        }
+        return exportCache.cached(new ExportCache.Key(domainType, cacheScope, exporterName, signature), writer);
+    }
+
+    public Object getFilter() {
+        return filter;
+    }
+
+    /**
+     * The filter bean applied by the data provider, its state keys the cached exports.
+     */
+    public void setFilter(Object filter) {
+        this.filter = filter;
+    }
+
+    public PageCache getPageCache() {
+        return pageCache;
+    }
+
+    /**
+     * Caches the pages read from the data provider, e.g. in
+     * {@link PageCache#getForSession()}. The pages of the domain type are
+     * invalidated by the operations of this crud; pages showing data of other
+     * types, e.g. the name of the group of a user, stay stale until they
+     * expire or {@link PageCache#clear()} is called.
+     */
+    public void setPageCache(PageCache pageCache) {
+        this.pageCache = pageCache;
+    }
+
+    public ExportCache getExportCache() {
+        if (exportCache==null && exportCacheLookup!=null) {
+            exportCache = exportCacheLookup.get();
+        }
+        return exportCache;
+    }
+
+    /**
+     * Caches the generated exports, e.g. in {@link ExportCache#getDefault()}.
+     * The exports of the domain type are invalidated by the operations of this crud.
+     * <p>
+     * The cache is not serialized with the session: the default one is looked
+     * up again after deserialization, others have to be set through
+     * {@link #setExportCacheLookup(SerializableSupplier)}.
+     */
+    public void setExportCache(ExportCache exportCache) {
+        this.exportCache = exportCache;
+        exportCacheLookup = exportCache!=null && exportCache==ExportCache.getDefault() ? ExportCache::getDefault : null;
+    }
+
+    /**
+     * Caches the generated exports in the cache returned by <code>exportCacheLookup</code>,
+     * called again after the session is deserialized.
+     */
+    public void setExportCacheLookup(SerializableSupplier<ExportCache> exportCacheLookup) {
+        this.exportCacheLookup = exportCacheLookup;
+        exportCache = null;
+    }
+
+    public String getCacheScope() {
+        return cacheScope;
+    }
+
+    /**
+     * Only the cruds with the same scope share their cached pages and
+     * exports. By default the scope is the class of the crud and the domain
+     * type, so the same view shares them across UIs and sessions. Cruds of
+     * the same class whose data providers return different items for the
+     * same filter, e.g. the data of the current user, must be told apart,
+     * e.g. by the user id. <code>null</code> disables the caching.
+     */
+    public void setCacheScope(String cacheScope) {
+        this.cacheScope = cacheScope;
+    }
+
+    /**
+     * @return the sort orders currently applied to the displayed items, passed on to exports
+     */
+    protected List<QuerySortOrder> getBackEndSorting() {
+        return Collections.emptyList();
+    }
+
+    protected SerializableComparator<T> getInMemorySorting() {
+        return null;
+    }
+
+    /**
+     * @return the sort orders the in-memory sorting is derived from, e.g.
+     * the sorted columns, so that cached exports tell it apart
+     */
+    protected List<QuerySortOrder> getInMemorySortOrders() {
+        return Collections.emptyList();
+    }
 }
@@ -0,0 +1,16 @@
+package org.vaadin.bread.ui.crud;
+
+import java.io.Serializable;
+import java.util.Collection;
+
+/**
+ * Adds many domain objects at once, e.g. in a single transaction.
+ *
+ * @author Dmitrij Colautti
+ */
+@FunctionalInterface
+public interface BatchAddOperationListener<T> extends Serializable {
+
+    Collection<T> perform(Collection<T> domainObjects);
+
+}
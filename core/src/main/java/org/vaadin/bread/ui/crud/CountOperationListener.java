@@ -0,0 +1,19 @@
+package org.vaadin.bread.ui.crud;
+
+import java.io.Serializable;
+
+import com.vaadin.data.provider.Query;
+
+/**
+ * Counts the domain objects matching a query without loading them, e.g. with
+ * a <code>select count(*)</code>. The filter of the query is empty when the
+ * data provider applies its own filter.
+ *
+ * @author Dmitrij Colautti
+ */
+@FunctionalInterface
+public interface CountOperationListener<T> extends Serializable {
+
+    int count(Query<T, ?> query);
+
+}
@@ -29,10 +29,14 @@ public interface Crud<T> extends Component {
 
     void setAddOperation(AddOperationListener<T> addOperation);
 
+    void setBatchAddOperation(BatchAddOperationListener<T> batchAddOperation);
+
     void setUpdateOperation(UpdateOperationListener<T> updateOperation);
 
     void setDeleteOperation(DeleteOperationListener<T> deleteOperation);
 
+    void setCountOperation(CountOperationListener<T> countOperation);
+
     void setOperations(DataProvider<T, ?> dataProvider, AddOperationListener<T> addOperation, UpdateOperationListener<T> updateOperation, DeleteOperationListener<T> deleteOperation);
 
     void setCrudListener(CrudListener<T> crudListener);
@@ -1,8 +1,12 @@
 package org.vaadin.bread.ui.crud;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 
 import com.vaadin.data.provider.DataProvider;
+import com.vaadin.data.provider.Query;
 
 /**
  * @author Alejandro Duarte
@@ -13,6 +17,25 @@ public interface CrudListener<T> extends Serializable {
 
     T add(T domainObjectToAdd);
 
+    /**
+     * Called by imports, adds the objects one by one unless overridden.
+     */
+    default Collection<T> addAll(Collection<T> domainObjectsToAdd) {
+        List<T> added = new ArrayList<>(domainObjectsToAdd.size());
+        for (T domainObject : domainObjectsToAdd) {
+            added.add(add(domainObject));
+        }
+        return added;
+    }
+
+    /**
+     * Called for the row count, sizes a new data provider unless overridden.
+     */
+    @SuppressWarnings("unchecked")
+    default int count(Query<T, ?> query) {
+        return ((DataProvider<T, Object>) getDataProvider()).size((Query<T, Object>) query);
+    }
+
     T update(T domainObjectToUpdate);
 
     void delete(T domainObjectToDelete);
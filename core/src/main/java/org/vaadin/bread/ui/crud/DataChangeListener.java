@@ -0,0 +1,16 @@
+package org.vaadin.bread.ui.crud;
+
+import java.io.Serializable;
+
+/**
+ * Notified after a crud operation changed a domain object. The object is
+ * <code>null</code> when a batch of objects was added at once.
+ *
+ * @author Dmitrij Colautti
+ */
+@FunctionalInterface
+public interface DataChangeListener<T> extends Serializable {
+
+    void dataChanged(CrudOperation operation, T domainObject);
+
+}
@@ -37,7 +37,7 @@ public class EditableGridCrud<T> extends GridCrud<T> {
         }
 
         @Override
-        public AbstractOrderedLayout buildNewForm(OperationMode operationMode, T domainObject, boolean readOnly) {
+        protected AbstractOrderedLayout buildForm(OperationMode operationMode, T domainObject, boolean readOnly) {
             throw new UnsupportedOperationException("Building forms is not supported. Grid.Editor is used instead.");
         }
 
@@ -79,9 +79,8 @@ public class EditableGridCrud<T> extends GridCrud<T> {
             editor = grid.getEditor();
             editor.setEnabled(true);
             editor.addSaveListener(e -> {
-            	T updatedObject = updateOperation.perform(e.getBean());
+            	T updatedObject = performUpdate(e.getBean());
                 try {
-                    refreshGrid();
                     if (items.contains(updatedObject)) {
                         grid.asSingleSelect().setValue(updatedObject);
                         // TODO: grid.scrollTo(updatedObject);
@@ -145,9 +144,8 @@ public class EditableGridCrud<T> extends GridCrud<T> {
         delete.addClickListener(e -> {
         	T value = grid.asSingleSelect().getValue();
             try {
-                deleteOperation.perform(value);
+                performDelete(value);
                 window.close();
-                refreshGrid();
                 grid.asSingleSelect().clear();
                 Notification.show(deletedMessage);
 
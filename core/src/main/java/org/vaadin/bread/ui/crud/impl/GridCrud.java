@@ -1,12 +1,20 @@
 package org.vaadin.bread.ui.crud.impl;
 
-import java.beans.IntrospectionException;
-import java.beans.PropertyDescriptor;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.LinkedHashMap;
 import java.util.List;
-
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
+
+import org.vaadin.bread.data.BeanMetadata;
+import org.vaadin.bread.data.provider.CrudDataProvider;
+import org.vaadin.bread.data.provider.FetchWithCount;
+import org.vaadin.bread.data.provider.PageCache;
+import org.vaadin.bread.data.provider.PageCachingDataProvider;
+import org.vaadin.bread.data.provider.PrefetchingDataProvider;
 import org.vaadin.bread.ui.crud.AbstractCrud;
+import org.vaadin.bread.ui.crud.CrudListener;
 import org.vaadin.bread.ui.crud.CrudOperation;
 import org.vaadin.bread.ui.crud.OperationException;
 import org.vaadin.bread.ui.form.FormConfiguration;
@@ -14,16 +22,24 @@ import org.vaadin.bread.ui.form.FormFactory;
 import org.vaadin.bread.ui.form.impl.form.factory.FormFactoryBuilder;
 import org.vaadin.bread.ui.layout.CrudLayout;
 import org.vaadin.bread.ui.layout.impl.WindowBasedCrudLayout;
+import org.vaadin.bread.ui.support.ExportJob;
+import org.vaadin.bread.ui.support.ExportJobIndicator;
+import org.vaadin.bread.ui.support.ExportJobManager;
 
+import com.vaadin.data.ValueProvider;
 import com.vaadin.data.provider.DataProvider;
 import com.vaadin.data.provider.Query;
-import com.vaadin.data.util.BeanUtil;
+import com.vaadin.data.provider.QuerySortOrder;
 import com.vaadin.icons.VaadinIcons;
 import com.vaadin.server.FileDownloader;
 import com.vaadin.server.FontAwesome;
+import com.vaadin.server.SerializableComparator;
+import com.vaadin.server.SerializableSupplier;
+import com.vaadin.server.VaadinSession;
 import com.vaadin.ui.Button;
 import com.vaadin.ui.Component;
 import com.vaadin.ui.Grid;
+import com.vaadin.ui.Grid.Column;
 import com.vaadin.ui.Notification;
 
 /**
@@ -35,6 +51,7 @@ public class GridCrud<T> extends AbstractCrud<T> {
     protected String rowCountCaption = "%d items(s) found";
     protected String savedMessage = "Item saved";
     protected String deletedMessage = "Item deleted";
+    protected String exportRejectedMessage = "Too many exports are running, please try again later";
 
     protected Button findAllButton;
     protected Button addButton;
@@ -43,7 +60,15 @@ public class GridCrud<T> extends AbstractCrud<T> {
     protected Grid<T> grid;
 
     protected LinkedHashMap<String, Button> exporterButtons = new LinkedHashMap<>();
+    protected ExportJobIndicator exportJobIndicator;
+    protected transient ExportJobManager exportJobManager;
     protected Collection<T> items;
+    protected CrudDataProvider<T, Object> crudDataProvider;
+    protected ValueProvider<T, ?> idGetter;
+    protected FetchWithCount<T> fetchWithCount;
+    protected PrefetchingDataProvider<T, Object> prefetchingDataProvider;
+    protected DataProvider<T, ?> backEndDataProvider;
+    private boolean prefetchEnabled;
     private boolean clickRowToUpdate;
 
     public GridCrud(Class<T> domainType) {
@@ -62,6 +87,7 @@ public class GridCrud<T> extends AbstractCrud<T> {
     public GridCrud(Class<T> domainType, CrudLayout crudLayout, FormFactory<T> crudFormFactory) {
         super(domainType, crudLayout, crudFormFactory);
         initLayout();
+        addDataChangeListener(this::refreshItem);
     }
 
     protected void initLayout() {
@@ -85,31 +111,25 @@ public class GridCrud<T> extends AbstractCrud<T> {
         deleteButton.setIcon(VaadinIcons.TRASH);
         crudLayout.addToolbarComponent(deleteButton);
 
-        grid = new Grid<>(domainType);
+        grid = Grid.withPropertySet(BeanMetadata.of(domainType).getPropertySet());
         grid.setSizeFull();
         grid.addSelectionListener(e -> gridSelectionChanged());
         
-		try {
-			grid.removeAllColumns();
-			List<PropertyDescriptor> descriptors;
-			descriptors = BeanUtil.getBeanPropertyDescriptors(domainType);
-			descriptors.stream()
-			.filter(d -> !d.getName().equals("class"))
-			.forEach(pd -> {
-				Class<?> propertyType = pd.getPropertyType();
-				if (!(propertyType.isArray() || Collection.class.isAssignableFrom(propertyType))) {        			
-					grid.addColumn(pd.getName());
-				}
-			});
-		} catch (IntrospectionException e1) {
-			throw new RuntimeException(e1);
-		}
+		grid.removeAllColumns();
+		BeanMetadata.of(domainType).getProperties().stream()
+		.filter(property -> !property.isCollection())
+		.forEach(property -> {
+			Class<?> propertyType = property.getType();
+			Column<T, ?> column = grid.addColumn(property.getName());
+			// the backend can't order by an entity, see setSortProperty
+			column.setSortable(propertyType.isPrimitive() || Comparable.class.isAssignableFrom(propertyType));
+		});
         crudLayout.setMainComponent(grid);
         
         Button btn = new Button(FontAwesome.FILE_EXCEL_O.getHtml());
         btn.setDescription("Export Excel");
         btn.setCaptionAsHtml(true);
-        addExporterMenu("EXCEL", btn);
+        addBackgroundExporterMenu("EXCEL", btn, this::buildExcelExportJob);
 
         updateButtons();
     }
@@ -143,15 +163,215 @@ public class GridCrud<T> extends AbstractCrud<T> {
     public void refreshGrid() {
     	dataProvider.refreshAll();
     }
+
+    /**
+     * Shows the result of an operation without reloading the whole grid when
+     * possible: an updated item is refreshed in place, an added or deleted
+     * one only adjusts the row count. Sorting (for updates) and filtering make
+     * the position or presence of the item unknown and fall back to
+     * {@link #refreshGrid()}.
+     */
+    protected void refreshItem(CrudOperation operation, T domainObject) {
+        if (crudDataProvider==null || domainObject==null || isFiltered()) {
+            refreshGrid();
+            return;
+        }
+        switch (operation) {
+        case ADD:
+            crudDataProvider.itemAdded(domainObject);
+            break;
+        case DELETE:
+            crudDataProvider.itemRemoved(domainObject);
+            break;
+        case UPDATE:
+            if (getBackEndSorting().isEmpty() && getInMemorySorting()==null) {
+                crudDataProvider.refreshItem(domainObject);
+            } else {
+                refreshGrid();
+            }
+            break;
+        default:
+            break;
+        }
+    }
+
+    /**
+     * @return whether the filter bean has any property set, empty strings and collections excluded
+     */
+    protected boolean isFiltered() {
+        Object filter = getFilter();
+        if (filter==null) {
+            return false;
+        }
+        return BeanMetadata.of(filter.getClass()).getPropertySet().getProperties().anyMatch(property -> {
+            @SuppressWarnings("unchecked")
+            Object value = ((ValueProvider<Object, ?>) property.getGetter()).apply(filter);
+            return value!=null && !"".equals(value) && !(value instanceof Collection && ((Collection<?>) value).isEmpty());
+        });
+    }
     
+    @Override
+    protected List<QuerySortOrder> getBackEndSorting() {
+        return grid.getDataCommunicator().getBackEndSorting();
+    }
+
+    @Override
+    protected SerializableComparator<T> getInMemorySorting() {
+        Comparator<T> comparator = grid.getDataCommunicator().getInMemorySorting();
+        return comparator == null ? null : comparator::compare;
+    }
+
+    @Override
+    protected List<QuerySortOrder> getInMemorySortOrders() {
+        return grid.getSortOrder().stream()
+                .map(order -> new QuerySortOrder(order.getSorted().getId(), order.getDirection()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Sorts a column by properties of the backend, e.g. an entity column by
+     * <code>"mainGroup.name"</code>. The sort orders reach the data provider
+     * as {@link QuerySortOrder}s with these property names.
+     */
+    public void setSortProperty(String columnId, String... properties) {
+        grid.getColumn(columnId).setSortProperty(properties).setSortable(properties.length>0);
+    }
+
     public void setClickRowToUpdate(boolean clickRowToUpdate) {
         this.clickRowToUpdate = clickRowToUpdate;
     }
     
     @Override
+    @SuppressWarnings("unchecked")
     public void setDataProvider(DataProvider<T, ?> dataProvider) {
-    	super.setDataProvider(dataProvider);
-    	grid.setDataProvider(dataProvider);
+    	backEndDataProvider = dataProvider;
+    	DataProvider<T, Object> pages = (DataProvider<T, Object>) dataProvider;
+    	prefetchingDataProvider = dataProvider==null || !prefetchEnabled ? null : new PrefetchingDataProvider<>(pages);
+    	if (prefetchingDataProvider!=null) {
+    		pages = prefetchingDataProvider;
+    	}
+    	if (dataProvider!=null && pageCache!=null && cacheScope!=null) {
+    		pages = new PageCachingDataProvider<>(pages, pageCache, domainType, cacheScope, this::getFilter);
+    	}
+    	crudDataProvider = dataProvider==null ? null : new CrudDataProvider<>(pages, idGetter);
+    	if (crudDataProvider!=null) {
+    		crudDataProvider.setCountOperation(this::performCount);
+    		crudDataProvider.setCountCache(new CrudDataProvider.CountCache<T>() {
+
+    			private static final long serialVersionUID = 1L;
+
+    			@Override
+    			public Integer get(Query<T, ?> query) {
+    				return getCachedCount(query);
+    			}
+
+    			@Override
+    			public void put(Query<T, ?> query, int count) {
+    				putCachedCount(query, count);
+    			}
+    		});
+    		crudDataProvider.setFetchWithCount(fetchWithCount!=null || !(dataProvider instanceof FetchWithCount)
+    				? fetchWithCount : (FetchWithCount<T>) dataProvider);
+    	}
+    	super.setDataProvider(crudDataProvider);
+    	grid.setDataProvider(crudDataProvider);
+    }
+
+    /**
+     * Exports read the data provider given to the crud, not the prefetching
+     * and page caching one of the grid.
+     */
+    @Override
+    protected DataProvider<T, ?> getExportDataProvider() {
+        return backEndDataProvider;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected int countItems(Query<T, ?> query) {
+        if (backEndDataProvider==null) {
+            return super.countItems(query);
+        }
+        return ((DataProvider<T, Object>) backEndDataProvider).size((Query<T, Object>) query);
+    }
+
+    /**
+     * A listener implementing {@link FetchWithCount} loads the first page
+     * of the grid with the count.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void setCrudListener(CrudListener<T> crudListener) {
+        fetchWithCount = crudListener instanceof FetchWithCount ? (FetchWithCount<T>) crudListener : null;
+        super.setCrudListener(crudListener);
+    }
+
+    public FetchWithCount<T> getFetchWithCount() {
+        return fetchWithCount;
+    }
+
+    public void setFetchWithCount(FetchWithCount<T> fetchWithCount) {
+        this.fetchWithCount = fetchWithCount;
+        if (crudDataProvider!=null) {
+            crudDataProvider.setFetchWithCount(fetchWithCount);
+        }
+    }
+
+    public boolean isPrefetchEnabled() {
+        return prefetchEnabled;
+    }
+
+    /**
+     * Reads the next page of the grid in the background while the current
+     * one is shown, see {@link PrefetchingDataProvider}.
+     */
+    public void setPrefetchEnabled(boolean prefetchEnabled) {
+        if (this.prefetchEnabled==prefetchEnabled) {
+            return;
+        }
+        this.prefetchEnabled = prefetchEnabled;
+        if (backEndDataProvider!=null) {
+            setDataProvider(backEndDataProvider);
+        }
+    }
+
+    @Override
+    public void setPageCache(PageCache pageCache) {
+        super.setPageCache(pageCache);
+        if (backEndDataProvider!=null) {
+            setDataProvider(backEndDataProvider);
+        }
+    }
+
+    @Override
+    public void setCacheScope(String cacheScope) {
+        super.setCacheScope(cacheScope);
+        if (backEndDataProvider!=null && pageCache!=null) {
+            setDataProvider(backEndDataProvider);
+        }
+    }
+
+    /**
+     * @return the prefetching provider, with its hit rate, when prefetching is enabled
+     */
+    public PrefetchingDataProvider<T, Object> getPrefetchingDataProvider() {
+        return prefetchingDataProvider;
+    }
+
+    public ValueProvider<T, ?> getIdGetter() {
+        return idGetter;
+    }
+
+    /**
+     * Identifies the items across queries, e.g. <code>User::getId</code>, so
+     * that an updated copy replaces its row. The items themselves (their
+     * <code>equals</code>) are used when not set.
+     */
+    public void setIdGetter(ValueProvider<T, ?> idGetter) {
+        this.idGetter = idGetter;
+        if (crudDataProvider!=null) {
+            crudDataProvider.setIdGetter(idGetter);
+        }
     }
 
     protected void updateButtons() {
@@ -184,7 +404,13 @@ public class GridCrud<T> extends AbstractCrud<T> {
 
     protected void findAllButtonClicked() {
         grid.asSingleSelect().clear();
+        clearCountCache();
+        if (pageCache!=null) {
+            // the pages also show data of other types, e.g. referenced entities
+            pageCache.clear();
+        }
         refreshGrid();
+        // counted once for the caption and the grid
         Notification.show(String.format(rowCountCaption, grid.getDataProvider().size(new Query())));
     }
 
@@ -193,8 +419,7 @@ public class GridCrud<T> extends AbstractCrud<T> {
             T domainObject = domainType.newInstance();
             showForm(CrudOperation.ADD, domainObject, false, savedMessage, event -> {
                 try {
-                    T addedObject = addOperation.perform(domainObject);
-                    refreshGrid();
+                    T addedObject = performAdd(domainObject);
                     grid.asSingleSelect().setValue(addedObject);
                     // TODO: grid.scrollTo(addedObject);
                 } catch (OperationException e1) {
@@ -213,9 +438,8 @@ public class GridCrud<T> extends AbstractCrud<T> {
         T domainObject = grid.asSingleSelect().getValue();
         showForm(CrudOperation.UPDATE, domainObject, false, savedMessage, event -> {
             try {
-                T updatedObject = updateOperation.perform(domainObject);
+                T updatedObject = performUpdate(domainObject);
                 grid.asSingleSelect().clear();
-                refreshGrid();
                 grid.asSingleSelect().setValue(updatedObject);
                 // TODO: grid.scrollTo(updatedObject);
             } catch (OperationException e1) {
@@ -231,8 +455,7 @@ public class GridCrud<T> extends AbstractCrud<T> {
         T domainObject = grid.asSingleSelect().getValue();
         showForm(CrudOperation.DELETE, domainObject, true, deletedMessage, event -> {
             try {
-                deleteOperation.perform(domainObject);
-                refreshGrid();
+                performDelete(domainObject);
                 grid.asSingleSelect().clear();
             } catch (OperationException e1) {
                 refreshGrid();
@@ -297,6 +520,28 @@ public class GridCrud<T> extends AbstractCrud<T> {
     public void setDeletedMessage(String deletedMessage) {
         this.deletedMessage = deletedMessage;
     }
+
+    public void setExportRejectedMessage(String exportRejectedMessage) {
+        this.exportRejectedMessage = exportRejectedMessage;
+    }
+
+    /**
+     * @return the manager running the background exports, {@link ExportJobManager#getDefault()} unless set
+     */
+    public ExportJobManager getExportJobManager() {
+        if (exportJobManager==null) {
+            exportJobManager = ExportJobManager.getDefault();
+        }
+        return exportJobManager;
+    }
+
+    /**
+     * The manager is not serialized with the session, it has to be set again
+     * after deserialization when it isn't the default one.
+     */
+    public void setExportJobManager(ExportJobManager exportJobManager) {
+        this.exportJobManager = exportJobManager;
+    }
     
     public Button getExporterMenu(String name) {
     	return exporterButtons.get(name);
@@ -309,6 +554,37 @@ public class GridCrud<T> extends AbstractCrud<T> {
 
     	return this;
     }
+
+    /**
+     * Adds a button starting the job built by <code>jobFactory</code> in the
+     * background, e.g. <code>crud::buildExcelExportJob</code>. Its progress and
+     * then a download button are shown in the toolbar.
+     */
+    public GridCrud<T> addBackgroundExporterMenu(String name, Button exporterButton, SerializableSupplier<ExportJob> jobFactory) {
+    	exporterButtons.put(name, exporterButton);
+    	exporterButton.addClickListener(e -> startExportJob(jobFactory.get()));
+        crudLayout.addToolbarComponent(exporterButton);
+
+    	return this;
+    }
+
+    protected void startExportJob(ExportJob job) {
+    	if (exportJobIndicator==null) {
+    		exportJobIndicator = new ExportJobIndicator();
+    		crudLayout.addToolbarComponent(exportJobIndicator);
+    	}
+    	try {
+    		getExportJobManager().submit(job, VaadinSession.getCurrent());
+    	} catch (RejectedExecutionException e) {
+    		Notification.show(exportRejectedMessage, Notification.Type.WARNING_MESSAGE);
+    		return;
+    	}
+    	exportJobIndicator.setJob(job);
+    }
+
+    public ExportJobIndicator getExportJobIndicator() {
+    	return exportJobIndicator;
+    }
     
     protected Component getToolbar() {
     	return crudLayout.getToolbar();
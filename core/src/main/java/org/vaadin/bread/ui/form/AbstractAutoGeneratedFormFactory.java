@@ -1,12 +1,17 @@
 package org.vaadin.bread.ui.form;
 
+import java.io.Serializable;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
+import org.vaadin.bread.data.AccessorValidationBinder;
+import org.vaadin.bread.data.BeanMetadata;
 import org.vaadin.bread.data.JpaValidationBinder;
 import org.vaadin.bread.data.converter.StringToByteConverter;
 import org.vaadin.bread.data.converter.StringToCharacterConverter;
@@ -15,9 +20,9 @@ import org.vaadin.bread.ui.crud.OperationException;
 import org.vaadin.bread.ui.crud.OperationMode;
 import org.vaadin.bread.ui.form.impl.field.provider.DefaultFieldProvider;
 
-import com.vaadin.data.BeanValidationBinder;
 import com.vaadin.data.Binder;
 import com.vaadin.data.HasValue;
+import com.vaadin.data.PropertySet;
 import com.vaadin.data.converter.LocalDateToDateConverter;
 import com.vaadin.data.converter.StringToBigDecimalConverter;
 import com.vaadin.data.converter.StringToBigIntegerConverter;
@@ -25,8 +30,6 @@ import com.vaadin.data.converter.StringToDoubleConverter;
 import com.vaadin.data.converter.StringToFloatConverter;
 import com.vaadin.data.converter.StringToIntegerConverter;
 import com.vaadin.data.converter.StringToLongConverter;
-import com.vaadin.data.util.BeanUtil;
-import com.vaadin.shared.util.SharedUtil;
 import com.vaadin.ui.AbstractComponent;
 import com.vaadin.ui.AbstractTextField;
 import com.vaadin.ui.Button;
@@ -47,11 +50,87 @@ public abstract class AbstractAutoGeneratedFormFactory<T> extends AbstractFormFa
 
     protected Binder<T> binder;
 
+    protected boolean reuseForms;
+    protected Map<OperationMode, BuiltForm<T>> builtForms = new HashMap<>();
+    private BuiltForm<T> building;
+
+    /**
+     * A form built by this factory: its buttons write the bean it currently
+     * shows, which changes when the form is reused.
+     */
+    protected static class BuiltForm<T> implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        protected final boolean readOnly;
+        protected Component form;
+        protected Binder<T> binder;
+        @SuppressWarnings("rawtypes")
+        protected List<HasValue> fields = new ArrayList<>();
+        protected T domainObject;
+
+        protected BuiltForm(boolean readOnly, T domainObject) {
+            this.readOnly = readOnly;
+            this.domainObject = domainObject;
+        }
+    }
+
     public AbstractAutoGeneratedFormFactory(Class<T> domainType, OperationMode[] operationModes) {
     	super(operationModes);
         this.domainType = domainType;
     }
 
+    /**
+     * Builds the form, or with {@link #setReuseForms(boolean)} reads
+     * <code>domainObject</code> into the form already built for the mode.
+     */
+    @Override
+    public Component buildNewForm(OperationMode operationMode, T domainObject, boolean readOnly) {
+        BuiltForm<T> built = builtForms.get(operationMode);
+        if (reuseForms && built!=null && built.readOnly==readOnly) {
+            built.domainObject = domainObject;
+            binder = built.binder;
+            binder.readBean(domainObject);
+            focusFirstField(built.fields, readOnly);
+            return built.form;
+        }
+
+        built = new BuiltForm<>(readOnly, domainObject);
+        building = built;
+        try {
+            built.form = buildForm(operationMode, domainObject, readOnly);
+        } finally {
+            building = null;
+        }
+        if (reuseForms) {
+            builtForms.put(operationMode, built);
+        }
+        return built.form;
+    }
+
+    protected abstract Component buildForm(OperationMode operationMode, T domainObject, boolean readOnly);
+
+    public boolean isReuseForms() {
+        return reuseForms;
+    }
+
+    /**
+     * Keeps the form built for each operation mode and only reads the next
+     * beans into it, so that browsing a grid sends the changed values to the
+     * client instead of a new component tree. The fields, buttons and layout
+     * stay the ones of the first build: call {@link #clearBuiltForms()} after
+     * changing the configuration. The operation listeners are looked up when
+     * a button is clicked.
+     */
+    public void setReuseForms(boolean reuseForms) {
+        this.reuseForms = reuseForms;
+        clearBuiltForms();
+    }
+
+    public void clearBuiltForms() {
+        builtForms.clear();
+    }
+
 
     public void setValidationErrorMessage(String validationErrorMessage) {
         this.validationErrorMessage = validationErrorMessage;
@@ -64,6 +143,9 @@ public abstract class AbstractAutoGeneratedFormFactory<T> extends AbstractFormFa
     @SuppressWarnings("rawtypes")
 	protected List<HasValue> buildFields(OperationMode operationMode, T domainObject, boolean readOnly) {
         binder = buildBinder(operationMode, domainObject);
+        if (building!=null) {
+            building.binder = binder;
+        }
         ArrayList<HasValue> fields = new ArrayList<>();
         FormConfiguration configuration = getConfiguration(operationMode);
 
@@ -75,7 +157,7 @@ public abstract class AbstractAutoGeneratedFormFactory<T> extends AbstractFormFa
                     fieldCaption = configuration.getFieldCaptions().get(i);
                 }
 
-                Class<?> propertyType = BeanUtil.getPropertyType(domainObject.getClass(), property);
+                Class<?> propertyType = BeanMetadata.of(domainObject.getClass()).getPropertyType(property);
 
                 if (propertyType == null) {
                     throw new RuntimeException("Cannot find type for property " + domainObject.getClass().getName() + "." + property);
@@ -97,15 +179,23 @@ public abstract class AbstractAutoGeneratedFormFactory<T> extends AbstractFormFa
         }
 
         binder.readBean(domainObject);
+        if (building!=null) {
+            building.fields = fields;
+        }
 
+        focusFirstField(fields, readOnly);
+
+        return fields;
+    }
+
+    @SuppressWarnings("rawtypes")
+    private void focusFirstField(List<HasValue> fields, boolean readOnly) {
         if (!fields.isEmpty() && !readOnly) {
             HasValue field = fields.get(0);
             if (field instanceof Component.Focusable) {
                 ((Component.Focusable) field).focus();
             }
         }
-
-        return fields;
     }
 
     @SuppressWarnings({ "unchecked", "rawtypes" })
@@ -120,7 +210,7 @@ public abstract class AbstractAutoGeneratedFormFactory<T> extends AbstractFormFa
             if (fieldType != null) {
                 field = fieldType.newInstance();
             } else {
-                field = new DefaultFieldProvider(propertyType).buildField();
+                field = new DefaultFieldProvider(propertyType, configuration.getLookupOperations().get(propertyType)).buildField();
             }
         }
 
@@ -132,7 +222,7 @@ public abstract class AbstractAutoGeneratedFormFactory<T> extends AbstractFormFa
             if (fieldCaption != null) {
                 ((AbstractComponent) field).setCaption(fieldCaption);
             } else {
-                ((AbstractComponent) field).setCaption(SharedUtil.propertyIdToHumanFriendly(property));
+                ((AbstractComponent) field).setCaption(BeanMetadata.of(domainType).getCaption(property));
             }
         }
 
@@ -194,10 +284,10 @@ public abstract class AbstractAutoGeneratedFormFactory<T> extends AbstractFormFa
             if (getConfiguration(operationMode).getJpaTypeForJpaValidation()!=null) {
             	binder = new JpaValidationBinder(getConfiguration(operationMode).getJpaTypeForJpaValidation(), domainObject.getClass());
             } else {
-            	binder = new BeanValidationBinder(domainObject.getClass());
+            	binder = new AccessorValidationBinder(domainObject.getClass());
             }
         } else {
-            binder = new Binder(domainObject.getClass());
+            binder = Binder.withPropertySet((PropertySet) BeanMetadata.of(domainObject.getClass()).getPropertySet());
         }
 
         return binder;
@@ -215,12 +305,16 @@ public abstract class AbstractAutoGeneratedFormFactory<T> extends AbstractFormFa
         if (set!=null) {
         	set.forEach(styleName -> button.addStyleName(styleName));
         }
+        BuiltForm<T> built = building;
+        Binder<T> formBinder = binder;
         button.addClickListener(event -> {
-            if (domainObject==null || binder.writeBeanIfValid(domainObject)) {
+            T bean = built==null ? domainObject : built.domainObject;
+            if (bean==null || formBinder.writeBeanIfValid(bean)) {
+                Button.ClickListener listener = reuseForms ? getConfiguration(operationMode).getOperationActionListener(operationAction) : null;
                 try {
-                    clickListener.buttonClick(event);
+                    (listener==null ? clickListener : listener).buttonClick(event);
                 } catch (Exception e) {
-                    showError(operationMode, operationAction, domainObject, e);
+                    showError(operationMode, operationAction, bean, e);
                 }
             } else {
                 Notification.show(validationErrorMessage);
@@ -99,6 +99,16 @@ public abstract class AbstractFormFactory<T> implements FormFactory<T> {
         Arrays.stream(operationModes).forEach(operationMode -> setFieldProvider(operationMode, property, provider));
     }
 
+    @Override
+    public <L> void setLookupOperation(OperationMode operationMode, Class<L> type, LookupOperation<L> lookupOperation) {
+        getConfiguration(operationMode).setLookupOperation(type, lookupOperation);
+    }
+
+    @Override
+    public <L> void setLookupOperation(Class<L> type, LookupOperation<L> lookupOperation) {
+        Arrays.stream(operationModes).forEach(operationMode -> setLookupOperation(operationMode, type, lookupOperation));
+    }
+
     @Override
     public void setButtonCaption(OperationMode operationMode, OperationAction operationAction, String caption) {
     	getConfiguration(operationMode).setButtonCaption(operationAction, caption);
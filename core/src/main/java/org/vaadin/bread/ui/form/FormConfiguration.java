@@ -1,27 +1,20 @@
 package org.vaadin.bread.ui.form;
 
-import java.beans.IntrospectionException;
-import java.beans.PropertyDescriptor;
 import java.io.Serializable;
-import java.lang.reflect.AnnotatedElement;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
-import javax.persistence.GeneratedValue;
-import javax.persistence.metamodel.Attribute;
 import javax.persistence.metamodel.ManagedType;
 
+import org.vaadin.bread.data.BeanMetadata;
 import org.vaadin.bread.ui.crud.OperationAction;
 import org.vaadin.bread.ui.form.impl.field.provider.DefaultFieldProvider;
 
 import com.vaadin.data.HasValue;
-import com.vaadin.data.util.BeanUtil;
-import com.vaadin.shared.util.SharedUtil;
 import com.vaadin.ui.Button;
 
 /**
@@ -37,6 +30,7 @@ public class FormConfiguration implements Serializable {
 	protected Map<Object, Class<? extends HasValue>> fieldTypes = new HashMap<>();
     protected Map<Object, FieldCreationListener> fieldCreationListeners = new HashMap<>();
     protected Map<Object, FieldProvider> fieldProviders = new HashMap<>();
+    protected Map<Class<?>, LookupOperation<?>> lookupOperations = new HashMap<>();
     protected Map<OperationAction, Button.ClickListener> actionListeners = new HashMap<>();
     protected List<OperationAction> operationActions = new ArrayList<>();
     
@@ -99,6 +93,21 @@ public class FormConfiguration implements Serializable {
         this.fieldProviders = fieldProviders;
     }
 
+    public Map<Class<?>, LookupOperation<?>> getLookupOperations() {
+        return lookupOperations;
+    }
+
+    /**
+     * The default fields of the properties of <code>type</code> load their
+     * options with <code>lookupOperation</code>.
+     */
+    public <T> void setLookupOperation(Class<T> type, LookupOperation<T> lookupOperation) {
+        lookupOperations.put(type, lookupOperation);
+        fieldProviders.replaceAll((property, provider) -> provider instanceof DefaultFieldProvider
+                && ((DefaultFieldProvider) provider).getType() == type
+                ? new DefaultFieldProvider(type, lookupOperation) : provider);
+    }
+
 	public List<OperationAction> getOperationActions() {
 		return operationActions;
 	}
@@ -125,32 +134,17 @@ public class FormConfiguration implements Serializable {
 
 
 	public void buildSensitiveDefaults(Class<?> clazz) {
-	    try {
-	        List<PropertyDescriptor> descriptors = BeanUtil.getBeanPropertyDescriptors(clazz);
-	        descriptors.stream()
-	        	.filter(d -> !d.getName().equals("class"))
-	        	.forEach(pd -> {
-	        		Class<?> propertyType = pd.getPropertyType();
-	        		if (!(propertyType.isArray() || Collection.class.isAssignableFrom(propertyType))) {
-	        			visibleProperties.add(pd.getName());
-	        			fieldCaptions.add(SharedUtil.propertyIdToHumanFriendly(pd.getName()));
-	        			
-	        			if (jpaTypeForJpaValidation!=null) {
-	        				Attribute<?, ?> attribute = jpaTypeForJpaValidation.getAttribute(pd.getName());
-	        				if (attribute.getJavaMember() instanceof AnnotatedElement) {
-	        					AnnotatedElement annotated = (AnnotatedElement)attribute.getJavaMember();
-	        					if (annotated!=null && annotated.getAnnotation(GeneratedValue.class)!=null) {
-	        						disabledProperties.add(pd.getName());
-	        					}
-	        				}
-	        			}
-	        			fieldProviders.put(pd.getName(), new DefaultFieldProvider(pd.getPropertyType()));            		
-	        		}
-	        	});
-	        
-	    } catch (IntrospectionException e) {
-	        throw new RuntimeException(e);
-	    }
+	    BeanMetadata.of(clazz).getProperties().stream()
+	    	.filter(property -> !property.isCollection())
+	    	.forEach(property -> {
+	    		visibleProperties.add(property.getName());
+	    		fieldCaptions.add(property.getCaption());
+	    		
+	    		if (jpaTypeForJpaValidation!=null && property.isGenerated()) {
+	    			disabledProperties.add(property.getName());
+	    		}
+	    		fieldProviders.put(property.getName(), new DefaultFieldProvider(property.getType(), lookupOperations.get(property.getType())));            		
+	    	});
 	}
 
 }
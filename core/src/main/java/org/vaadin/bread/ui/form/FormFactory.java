@@ -43,6 +43,10 @@ public interface FormFactory<T> {
 
     void setFieldProvider(String property, FieldProvider provider);
 
+    <L> void setLookupOperation(OperationMode operationMode, Class<L> type, LookupOperation<L> lookupOperation);
+
+    <L> void setLookupOperation(Class<L> type, LookupOperation<L> lookupOperation);
+
     void setUseBeanValidation(OperationMode operationMode, boolean useBeanValidation);
 
     void setUseBeanValidation(boolean useBeanValidation);
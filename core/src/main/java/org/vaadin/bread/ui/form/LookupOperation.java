@@ -0,0 +1,29 @@
+package org.vaadin.bread.ui.form;
+
+import java.io.Serializable;
+import java.util.stream.Stream;
+
+/**
+ * Searches the options of a field in the backend, a page at a time, e.g.
+ * the groups whose name contains the text typed in a combo box.
+ *
+ * @author Dmitrij Colautti
+ */
+public interface LookupOperation<T> extends Serializable {
+
+    /**
+     * @param filterText the text typed by the user, empty when none
+     */
+    Stream<T> fetch(String filterText, int offset, int limit);
+
+    int count(String filterText);
+
+    /**
+     * Reloads the value of a field, e.g. when the bean holds a reference
+     * with only the id loaded. <code>null</code> keeps the value as it is.
+     */
+    default T findById(Object id) {
+        return null;
+    }
+
+}
@@ -0,0 +1,151 @@
+package org.vaadin.bread.ui.form.impl.field;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.vaadin.bread.ui.form.LookupOperation;
+
+import com.vaadin.data.ValueProvider;
+import com.vaadin.data.provider.CallbackDataProvider;
+import com.vaadin.data.provider.ConfigurableFilterDataProvider;
+import com.vaadin.icons.VaadinIcons;
+import com.vaadin.shared.ui.ValueChangeMode;
+import com.vaadin.ui.Component;
+import com.vaadin.ui.CustomField;
+import com.vaadin.ui.Grid;
+import com.vaadin.ui.ItemCaptionGenerator;
+import com.vaadin.ui.Label;
+import com.vaadin.ui.TextField;
+import com.vaadin.ui.VerticalLayout;
+import com.vaadin.ui.renderers.HtmlRenderer;
+import com.vaadin.ui.themes.ValoTheme;
+
+/**
+ * Selects many options of a large collection: the options are searched and
+ * paged in the backend by a {@link LookupOperation}, only the selected ones
+ * are kept, by id. The value is the set of the selected items.
+ *
+ * @author Dmitrij Colautti
+ */
+public class LazyMultiSelect<T> extends CustomField<Set<T>> {
+
+    private static final long serialVersionUID = 1L;
+
+    protected LookupOperation<T> lookupOperation;
+    protected ItemCaptionGenerator<T> itemCaptionGenerator;
+    protected ValueProvider<T, ?> idGetter;
+
+    protected TextField searchField;
+    protected Grid<T> grid;
+    protected Label selectionLabel;
+    protected String selectionCaption = "%d selected";
+    protected int rows = 6;
+
+    private final Map<Object, T> selection = new LinkedHashMap<>();
+
+    /**
+     * @param idGetter identifies the options, the selection is kept by these ids
+     */
+    public LazyMultiSelect(String caption, LookupOperation<T> lookupOperation, ItemCaptionGenerator<T> itemCaptionGenerator, ValueProvider<T, ?> idGetter) {
+        setCaption(caption);
+        this.lookupOperation = lookupOperation;
+        this.itemCaptionGenerator = itemCaptionGenerator;
+        this.idGetter = idGetter;
+    }
+
+    @Override
+    protected Component initContent() {
+        ConfigurableFilterDataProvider<T, Void, String> dataProvider = new CallbackDataProvider<T, String>(
+                query -> lookupOperation.fetch(query.getFilter().orElse(""), query.getOffset(), query.getLimit()),
+                query -> lookupOperation.count(query.getFilter().orElse("")),
+                item -> idGetter.apply(item)).withConfigurableFilter();
+
+        searchField = new TextField();
+        searchField.setPlaceholder("Search");
+        searchField.setWidth("100%");
+        searchField.setValueChangeMode(ValueChangeMode.LAZY);
+        searchField.addValueChangeListener(e -> dataProvider.setFilter(e.getValue()));
+
+        // the selection is kept here by id: the selection model of the grid compares the items with equals
+        grid = new Grid<>();
+        grid.addColumn(item -> (selection.containsKey(idGetter.apply(item))
+                ? VaadinIcons.CHECK_SQUARE_O : VaadinIcons.THIN_SQUARE).getHtml(), new HtmlRenderer());
+        grid.addColumn(itemCaptionGenerator::apply);
+        grid.setHeaderVisible(false);
+        grid.setWidth("100%");
+        grid.setHeightByRows(rows);
+        grid.setDataProvider(dataProvider);
+        grid.setSelectionMode(Grid.SelectionMode.NONE);
+        grid.addItemClickListener(e -> {
+            if (!isReadOnly()) {
+                toggle(e.getItem(), true);
+            }
+        });
+
+        selectionLabel = new Label();
+        selectionLabel.addStyleName(ValoTheme.LABEL_SMALL);
+        updateSelectionLabel();
+
+        VerticalLayout layout = new VerticalLayout(searchField, grid, selectionLabel);
+        layout.setMargin(false);
+        layout.setSpacing(false);
+        return layout;
+    }
+
+    protected void toggle(T item, boolean userOriginated) {
+        Set<T> oldValue = getValue();
+        Object id = idGetter.apply(item);
+        if (selection.remove(id) == null) {
+            selection.put(id, item);
+        }
+        grid.getDataProvider().refreshItem(item);
+        updateSelectionLabel();
+        fireEvent(createValueChange(oldValue, userOriginated));
+    }
+
+    @Override
+    public Set<T> getValue() {
+        return Collections.unmodifiableSet(new LinkedHashSet<>(selection.values()));
+    }
+
+    @Override
+    protected void doSetValue(Set<T> value) {
+        selection.clear();
+        if (value != null) {
+            value.forEach(item -> selection.put(idGetter.apply(item), item));
+        }
+        if (grid != null) {
+            grid.getDataProvider().refreshAll();
+        }
+        updateSelectionLabel();
+    }
+
+    private void updateSelectionLabel() {
+        if (selectionLabel != null) {
+            selectionLabel.setValue(String.format(selectionCaption, selection.size()));
+        }
+    }
+
+    /**
+     * @return the ids of the selected items
+     */
+    public Set<Object> getSelectedIds() {
+        return Collections.unmodifiableSet(new LinkedHashSet<>(selection.keySet()));
+    }
+
+    public void setSelectionCaption(String selectionCaption) {
+        this.selectionCaption = selectionCaption;
+        updateSelectionLabel();
+    }
+
+    public void setRows(int rows) {
+        this.rows = rows;
+        if (grid != null) {
+            grid.setHeightByRows(rows);
+        }
+    }
+
+}
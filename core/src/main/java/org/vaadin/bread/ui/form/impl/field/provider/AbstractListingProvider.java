@@ -5,6 +5,7 @@ import java.util.Collection;
 import org.vaadin.bread.ui.form.FieldProvider;
 
 import com.vaadin.data.HasValue;
+import com.vaadin.server.SerializableSupplier;
 import com.vaadin.ui.AbstractListing;
 import com.vaadin.ui.ItemCaptionGenerator;
 
@@ -16,6 +17,7 @@ public abstract class AbstractListingProvider<F extends AbstractListing, T> impl
 
     protected String caption;
     protected Collection<T> items;
+    protected SerializableSupplier<? extends Collection<T>> itemsSupplier;
     protected ItemCaptionGenerator<T> itemCaptionGenerator;
 
     protected abstract F buildAbstractListing();
@@ -34,12 +36,26 @@ public abstract class AbstractListingProvider<F extends AbstractListing, T> impl
         this.itemCaptionGenerator = itemCaptionGenerator;
     }
 
+    /**
+     * @param itemsSupplier called for every field built, e.g. a shared
+     * {@link org.vaadin.bread.ui.support.ReferenceDataCache.ReferenceData}
+     */
+    public AbstractListingProvider(String caption, SerializableSupplier<? extends Collection<T>> itemsSupplier, ItemCaptionGenerator<T> itemCaptionGenerator) {
+        this.caption = caption;
+        this.itemsSupplier = itemsSupplier;
+        this.itemCaptionGenerator = itemCaptionGenerator;
+    }
+
+    protected Collection<T> getItems() {
+        return itemsSupplier!=null ? itemsSupplier.get() : items;
+    }
+
     @SuppressWarnings("unchecked")
 	@Override
     public HasValue buildField() {
         F field = buildAbstractListing();
         field.setCaption(caption);
-        field.setItems(items);
+        field.setItems(getItems());
         return (HasValue) field;
     }
 
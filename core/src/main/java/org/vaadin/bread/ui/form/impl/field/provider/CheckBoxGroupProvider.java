@@ -2,6 +2,7 @@ package org.vaadin.bread.ui.form.impl.field.provider;
 
 import java.util.Collection;
 
+import com.vaadin.server.SerializableSupplier;
 import com.vaadin.ui.CheckBoxGroup;
 import com.vaadin.ui.ItemCaptionGenerator;
 
@@ -22,9 +23,13 @@ public class CheckBoxGroupProvider<T> extends AbstractListingProvider<CheckBoxGr
         super(caption, items, itemCaptionGenerator);
     }
 
+    public CheckBoxGroupProvider(String caption, SerializableSupplier<? extends Collection<T>> itemsSupplier, ItemCaptionGenerator<T> itemCaptionGenerator) {
+        super(caption, itemsSupplier, itemCaptionGenerator);
+    }
+
     @Override
     protected CheckBoxGroup<T> buildAbstractListing() {
-        CheckBoxGroup<T> field = new CheckBoxGroup<>(caption, items);
+        CheckBoxGroup<T> field = new CheckBoxGroup<>(caption, getItems());
         field.setItemCaptionGenerator(itemCaptionGenerator);
         return field;
     }
@@ -2,6 +2,7 @@ package org.vaadin.bread.ui.form.impl.field.provider;
 
 import java.util.Collection;
 
+import com.vaadin.server.SerializableSupplier;
 import com.vaadin.ui.ComboBox;
 import com.vaadin.ui.ItemCaptionGenerator;
 
@@ -22,9 +23,13 @@ public class ComboBoxProvider<T> extends AbstractListingProvider<ComboBox<T>, T>
         super(caption, items, itemCaptionGenerator);
     }
 
+    public ComboBoxProvider(String caption, SerializableSupplier<? extends Collection<T>> itemsSupplier, ItemCaptionGenerator<T> itemCaptionGenerator) {
+        super(caption, itemsSupplier, itemCaptionGenerator);
+    }
+
     @Override
     protected ComboBox<T> buildAbstractListing() {
-        ComboBox<T> field = new ComboBox<>(caption, items);
+        ComboBox<T> field = new ComboBox<>(caption, getItems());
         field.setItemCaptionGenerator(itemCaptionGenerator);
         return field;
     }
@@ -5,9 +5,12 @@ import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.Date;
 
+import org.vaadin.bread.data.BeanMetadata;
 import org.vaadin.bread.ui.form.FieldProvider;
+import org.vaadin.bread.ui.form.LookupOperation;
 
 import com.vaadin.data.HasValue;
+import com.vaadin.data.ValueProvider;
 import com.vaadin.shared.ui.datefield.DateResolution;
 import com.vaadin.shared.ui.datefield.DateTimeResolution;
 import com.vaadin.ui.CheckBox;
@@ -23,11 +26,24 @@ import com.vaadin.ui.TextField;
 public class DefaultFieldProvider implements FieldProvider {
 
     private Class<?> type;
+    private LookupOperation<?> lookupOperation;
 
     public DefaultFieldProvider(Class<?> type) {
         this.type = type;
     }
 
+    /**
+     * @param lookupOperation loads the options of the combo box built for other types, may be <code>null</code>
+     */
+    public DefaultFieldProvider(Class<?> type, LookupOperation<?> lookupOperation) {
+        this.type = type;
+        this.lookupOperation = lookupOperation;
+    }
+
+    public Class<?> getType() {
+        return type;
+    }
+
     @Override
     public HasValue buildField() {
         if (Boolean.class.isAssignableFrom(type) || boolean.class == type) {
@@ -62,8 +78,22 @@ public class DefaultFieldProvider implements FieldProvider {
             return new TextField();
         }
 
+        if (lookupOperation != null) {
+            return buildLookupField(type);
+        }
+
         ComboBox comboBox = new ComboBox();
         return comboBox;
     }
 
+    private <T> HasValue<?> buildLookupField(Class<T> itemType) {
+        // the lookup operation was given for this type
+        @SuppressWarnings("unchecked")
+        LookupOperation<T> itemLookup = (LookupOperation<T>) lookupOperation;
+        // the id of an entity tells the references to reload
+        ValueProvider<T, ?> idGetter = BeanMetadata.of(itemType).getIdProperty()
+                .map(id -> BeanMetadata.of(itemType).getGetter(id.getName())).orElse(null);
+        return new LazyComboBoxProvider<T>(null, itemLookup, t -> t == null ? "" : t.toString(), idGetter, itemType).buildField();
+    }
+
 }
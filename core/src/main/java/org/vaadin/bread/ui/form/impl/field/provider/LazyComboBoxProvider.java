@@ -0,0 +1,119 @@
+package org.vaadin.bread.ui.form.impl.field.provider;
+
+import javax.persistence.Persistence;
+import javax.persistence.PersistenceUtil;
+
+import org.vaadin.bread.ui.form.FieldProvider;
+import org.vaadin.bread.ui.form.LookupOperation;
+
+import com.vaadin.data.HasValue;
+import com.vaadin.data.ValueProvider;
+import com.vaadin.data.provider.CallbackDataProvider;
+import com.vaadin.ui.ComboBox;
+import com.vaadin.ui.ItemCaptionGenerator;
+
+/**
+ * A combo box reading its options from a {@link LookupOperation} a page at a
+ * time, filtered in the backend by the typed text, for references to tables
+ * too large to be listed.
+ *
+ * @author Dmitrij Colautti
+ */
+public class LazyComboBoxProvider<T> implements FieldProvider {
+
+    protected String caption;
+    protected LookupOperation<T> lookupOperation;
+    protected ItemCaptionGenerator<T> itemCaptionGenerator;
+    protected ValueProvider<T, ?> idGetter;
+    protected Class<T> itemType;
+
+    public LazyComboBoxProvider(LookupOperation<T> lookupOperation) {
+        this(null, lookupOperation);
+    }
+
+    public LazyComboBoxProvider(String caption, LookupOperation<T> lookupOperation) {
+        this(caption, lookupOperation, t -> t == null ? "" : t.toString());
+    }
+
+    public LazyComboBoxProvider(String caption, LookupOperation<T> lookupOperation, ItemCaptionGenerator<T> itemCaptionGenerator) {
+        this(caption, lookupOperation, itemCaptionGenerator, null);
+    }
+
+    /**
+     * @param idGetter identifies the options
+     */
+    public LazyComboBoxProvider(String caption, LookupOperation<T> lookupOperation, ItemCaptionGenerator<T> itemCaptionGenerator, ValueProvider<T, ?> idGetter) {
+        this(caption, lookupOperation, itemCaptionGenerator, idGetter, null);
+    }
+
+    /**
+     * The value of the bean is shown as it is. It is reloaded with
+     * {@link LookupOperation#findById(Object)} only when it is a lazy reference
+     * that was never loaded or, if <code>itemType</code> is given, when it is
+     * an id instead of an item.
+     *
+     * @param idGetter identifies the options and the references to reload
+     * @param itemType the type of the options, may be <code>null</code>
+     */
+    public LazyComboBoxProvider(String caption, LookupOperation<T> lookupOperation, ItemCaptionGenerator<T> itemCaptionGenerator, ValueProvider<T, ?> idGetter, Class<T> itemType) {
+        this.caption = caption;
+        this.lookupOperation = lookupOperation;
+        this.itemCaptionGenerator = itemCaptionGenerator;
+        this.idGetter = idGetter;
+        this.itemType = itemType;
+    }
+
+    @Override
+    public HasValue buildField() {
+        ComboBox<T> field = new LookupComboBox<>(caption, lookupOperation, idGetter, itemType);
+        field.setItemCaptionGenerator(itemCaptionGenerator);
+        return field;
+    }
+
+    private static class LookupComboBox<T> extends ComboBox<T> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final LookupOperation<T> lookupOperation;
+        private final ValueProvider<T, ?> idGetter;
+        private final Class<T> itemType;
+
+        LookupComboBox(String caption, LookupOperation<T> lookupOperation, ValueProvider<T, ?> idGetter, Class<T> itemType) {
+            super(caption);
+            this.lookupOperation = lookupOperation;
+            this.idGetter = idGetter;
+            this.itemType = itemType;
+            setDataProvider(new CallbackDataProvider<T, String>(
+                    query -> lookupOperation.fetch(query.getFilter().orElse(""), query.getOffset(), query.getLimit()),
+                    query -> lookupOperation.count(query.getFilter().orElse("")),
+                    idGetter==null ? item -> item : item -> idGetter.apply(item)),
+                    filterText -> filterText);
+        }
+
+        @Override
+        public void setValue(T value) {
+            if (value!=null && idGetter!=null) {
+                Object id = null;
+                if (itemType!=null && !itemType.isInstance(value)) {
+                    id = value;
+                } else if (!PersistenceUtilHolder.INSTANCE.isLoaded(value)) {
+                    id = idGetter.apply(value);
+                }
+                T found = id!=null ? lookupOperation.findById(id) : null;
+                if (found!=null) {
+                    value = found;
+                }
+            }
+            super.setValue(value);
+        }
+    }
+
+    /**
+     * Resolves the persistence providers once.
+     */
+    private static class PersistenceUtilHolder {
+
+        static final PersistenceUtil INSTANCE = Persistence.getPersistenceUtil();
+    }
+
+}
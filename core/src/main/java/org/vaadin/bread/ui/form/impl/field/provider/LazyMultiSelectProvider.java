@@ -0,0 +1,40 @@
+package org.vaadin.bread.ui.form.impl.field.provider;
+
+import org.vaadin.bread.ui.form.FieldProvider;
+import org.vaadin.bread.ui.form.LookupOperation;
+import org.vaadin.bread.ui.form.impl.field.LazyMultiSelect;
+
+import com.vaadin.data.HasValue;
+import com.vaadin.data.ValueProvider;
+import com.vaadin.ui.ItemCaptionGenerator;
+
+/**
+ * A {@link LazyMultiSelect} for <code>Set</code> properties with too many
+ * options to be listed, e.g. a large <code>@ManyToMany</code>.
+ *
+ * @author Dmitrij Colautti
+ */
+public class LazyMultiSelectProvider<T> implements FieldProvider {
+
+    protected String caption;
+    protected LookupOperation<T> lookupOperation;
+    protected ItemCaptionGenerator<T> itemCaptionGenerator;
+    protected ValueProvider<T, ?> idGetter;
+
+    public LazyMultiSelectProvider(LookupOperation<T> lookupOperation, ValueProvider<T, ?> idGetter) {
+        this(null, lookupOperation, t -> t == null ? "" : t.toString(), idGetter);
+    }
+
+    public LazyMultiSelectProvider(String caption, LookupOperation<T> lookupOperation, ItemCaptionGenerator<T> itemCaptionGenerator, ValueProvider<T, ?> idGetter) {
+        this.caption = caption;
+        this.lookupOperation = lookupOperation;
+        this.itemCaptionGenerator = itemCaptionGenerator;
+        this.idGetter = idGetter;
+    }
+
+    @Override
+    public HasValue buildField() {
+        return new LazyMultiSelect<>(caption, lookupOperation, itemCaptionGenerator, idGetter);
+    }
+
+}
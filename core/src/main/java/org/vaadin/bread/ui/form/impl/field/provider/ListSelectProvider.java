@@ -2,6 +2,7 @@ package org.vaadin.bread.ui.form.impl.field.provider;
 
 import java.util.Collection;
 
+import com.vaadin.server.SerializableSupplier;
 import com.vaadin.ui.ItemCaptionGenerator;
 import com.vaadin.ui.ListSelect;
 
@@ -22,9 +23,13 @@ public class ListSelectProvider<T> extends AbstractListingProvider<ListSelect<T>
         super(caption, items, itemCaptionGenerator);
     }
 
+    public ListSelectProvider(String caption, SerializableSupplier<? extends Collection<T>> itemsSupplier, ItemCaptionGenerator<T> itemCaptionGenerator) {
+        super(caption, itemsSupplier, itemCaptionGenerator);
+    }
+
     @Override
     protected ListSelect<T> buildAbstractListing() {
-        ListSelect<T> field = new ListSelect<>(caption, items);
+        ListSelect<T> field = new ListSelect<>(caption, getItems());
         field.setItemCaptionGenerator(itemCaptionGenerator);
         return field;
     }
@@ -2,6 +2,7 @@ package org.vaadin.bread.ui.form.impl.field.provider;
 
 import java.util.Collection;
 
+import com.vaadin.server.SerializableSupplier;
 import com.vaadin.ui.ItemCaptionGenerator;
 import com.vaadin.ui.NativeSelect;
 
@@ -22,9 +23,13 @@ public class NativeSelectProvider<T> extends AbstractListingProvider<NativeSelec
         super(caption, items, itemCaptionGenerator);
     }
 
+    public NativeSelectProvider(String caption, SerializableSupplier<? extends Collection<T>> itemsSupplier, ItemCaptionGenerator<T> itemCaptionGenerator) {
+        super(caption, itemsSupplier, itemCaptionGenerator);
+    }
+
     @Override
     protected NativeSelect<T> buildAbstractListing() {
-        NativeSelect<T> field = new NativeSelect<>(caption, items);
+        NativeSelect<T> field = new NativeSelect<>(caption, getItems());
         field.setItemCaptionGenerator(itemCaptionGenerator);
         return field;
     }
@@ -2,6 +2,7 @@ package org.vaadin.bread.ui.form.impl.field.provider;
 
 import java.util.Collection;
 
+import com.vaadin.server.SerializableSupplier;
 import com.vaadin.ui.ItemCaptionGenerator;
 import com.vaadin.ui.RadioButtonGroup;
 
@@ -22,9 +23,13 @@ public class RadioButtonGroupProvider<T> extends AbstractListingProvider<RadioBu
         super(caption, items, itemCaptionGenerator);
     }
 
+    public RadioButtonGroupProvider(String caption, SerializableSupplier<? extends Collection<T>> itemsSupplier, ItemCaptionGenerator<T> itemCaptionGenerator) {
+        super(caption, itemsSupplier, itemCaptionGenerator);
+    }
+
     @Override
     protected RadioButtonGroup<T> buildAbstractListing() {
-        RadioButtonGroup<T> field = new RadioButtonGroup<>(caption, items);
+        RadioButtonGroup<T> field = new RadioButtonGroup<>(caption, getItems());
         field.setItemCaptionGenerator(itemCaptionGenerator);
         return field;
     }
@@ -2,6 +2,7 @@ package org.vaadin.bread.ui.form.impl.field.provider;
 
 import java.util.Collection;
 
+import com.vaadin.server.SerializableSupplier;
 import com.vaadin.ui.ItemCaptionGenerator;
 import com.vaadin.ui.TwinColSelect;
 
@@ -22,9 +23,13 @@ public class TwinColSelectProvider<T> extends AbstractListingProvider<TwinColSel
         super(caption, items, itemCaptionGenerator);
     }
 
+    public TwinColSelectProvider(String caption, SerializableSupplier<? extends Collection<T>> itemsSupplier, ItemCaptionGenerator<T> itemCaptionGenerator) {
+        super(caption, itemsSupplier, itemCaptionGenerator);
+    }
+
     @Override
     protected TwinColSelect<T> buildAbstractListing() {
-        TwinColSelect<T> field = new TwinColSelect<>(caption, items);
+        TwinColSelect<T> field = new TwinColSelect<>(caption, getItems());
         field.setItemCaptionGenerator(itemCaptionGenerator);
         return field;
     }
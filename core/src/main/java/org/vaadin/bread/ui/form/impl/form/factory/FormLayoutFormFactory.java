@@ -22,7 +22,7 @@ public class FormLayoutFormFactory<T> extends AbstractAutoGeneratedFormFactory<T
     }
 
     @Override
-    public Component buildNewForm(OperationMode operationMode, T domainObject, boolean readOnly) {
+    protected Component buildForm(OperationMode operationMode, T domainObject, boolean readOnly) {
         FormLayout formLayout = new FormLayout();
 
         List<HasValue> fields = buildFields(operationMode, domainObject, readOnly);
@@ -27,7 +27,7 @@ public class GridLayoutFormFactory<T> extends AbstractAutoGeneratedFormFactory<T
     }
 
     @Override
-    public Component buildNewForm(OperationMode operationMode, T domainObject, boolean readOnly) {
+    protected Component buildForm(OperationMode operationMode, T domainObject, boolean readOnly) {
         GridLayout gridLayout = new GridLayout(columns, rows);
         gridLayout.setSizeFull();
         gridLayout.setSpacing(true);
@@ -121,17 +121,25 @@ public abstract class AbstractTwoComponentsCrudLayout extends Composite implemen
     public void showForm(CrudOperation operation, Component form) {
         String caption = formCaptions.get(operation);
         if (caption != null) {
-            Label label = new Label(caption);
-            label.addStyleName(ValoTheme.LABEL_COLORED);
-            formCaptionLayout.removeAllComponents();
-            formCaptionLayout.addComponent(label);
-            secondComponent.addComponent(formCaptionLayout, secondComponent.getComponentCount() - 1);
+            if (formCaptionLayout.getComponentCount() != 1
+                    || !caption.equals(((Label) formCaptionLayout.getComponent(0)).getValue())) {
+                Label label = new Label(caption);
+                label.addStyleName(ValoTheme.LABEL_COLORED);
+                formCaptionLayout.removeAllComponents();
+                formCaptionLayout.addComponent(label);
+            }
+            if (formCaptionLayout.getParent() != secondComponent) {
+                secondComponent.addComponent(formCaptionLayout, secondComponent.getComponentCount() - 1);
+            }
         } else {
             secondComponent.removeComponent(formCaptionLayout);
         }
 
-        formComponentLayout.removeAllComponents();
-        formComponentLayout.addComponent(form);
+        // a reused form is already shown, re-adding it would send it again
+        if (formComponentLayout.getComponentCount() != 1 || formComponentLayout.getComponent(0) != form) {
+            formComponentLayout.removeAllComponents();
+            formComponentLayout.addComponent(form);
+        }
     }
 
     @Override
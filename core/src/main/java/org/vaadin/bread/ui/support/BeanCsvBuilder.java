@@ -0,0 +1,454 @@
+package org.vaadin.bread.ui.support;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.RichTextString;
+import org.vaadin.bread.data.BeanMetadata;
+
+import com.vaadin.data.PropertyDefinition;
+import com.vaadin.data.PropertySet;
+import com.vaadin.data.ValueProvider;
+import com.vaadin.data.provider.DataProvider;
+import com.vaadin.data.provider.QuerySortOrder;
+import com.vaadin.server.SerializableComparator;
+import com.vaadin.shared.util.SharedUtil;
+
+/**
+ * Writes beans as CSV (or TSV, or any other separator) without building any
+ * document model: rows are fetched page by page and encoded straight into a
+ * buffered channel writer, optionally gzip compressed.
+ * <p>
+ * Properties, headers and formats have the same meaning as in
+ * {@link BeanExcelBuilder} and can be copied from one with
+ * {@link #BeanCsvBuilder(BeanExcelBuilder)}. Excel formats are applied to
+ * numbers and dates, values without a format are written as plain numbers and
+ * ISO dates.
+ *
+ * @author Dmitrij Colautti
+ *
+ */
+public class BeanCsvBuilder<T> {
+
+	public static final char COMMA = ',';
+	public static final char SEMICOLON = ';';
+	public static final char TAB = '\t';
+
+	public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+	private char separator = COMMA;
+	private String lineSeparator = "\r\n";
+	private Charset charset = StandardCharsets.UTF_8;
+	private boolean writeHeaders = true;
+	private boolean gzip;
+	private String nullValue = "";
+	private int bufferSize = DEFAULT_BUFFER_SIZE;
+
+	private int fetchSize = PagedDataFetcher.DEFAULT_PAGE_SIZE;
+	private List<QuerySortOrder> sortOrders;
+	private SerializableComparator<T> inMemorySorting;
+	private Object filter;
+
+	private ExportProgressListener progressListener;
+	private int progressInterval = 1000;
+
+	private List<String> properties;
+	private List<String> columnsHeaders;
+	private Map<String, String> formats = new HashMap<>();
+	private PropertySet<T> propertySet;
+
+	private DataFormatter dataFormatter;
+
+	public BeanCsvBuilder(Class<T> clazz) {
+		this.propertySet = BeanMetadata.of(clazz).getPropertySet();
+	}
+
+	/**
+	 * Copies properties, headers, formats, sorting, filter and fetch size of
+	 * <code>configuration</code>.
+	 */
+	public BeanCsvBuilder(BeanExcelBuilder<T> configuration) {
+		this.propertySet = configuration.getPropertySet();
+		if (configuration.getProperties()!=null) {
+			this.properties = new ArrayList<>(configuration.getProperties());
+		}
+		if (configuration.getColumnsHeaders()!=null) {
+			this.columnsHeaders = new ArrayList<>(configuration.getColumnsHeaders());
+		}
+		this.formats = new HashMap<>(configuration.getFormats());
+		this.fetchSize = configuration.getFetchSize();
+		this.sortOrders = configuration.getSortOrders();
+		this.inMemorySorting = configuration.getInMemorySorting();
+		this.filter = configuration.getFilter();
+	}
+
+	public void writeCsvDocument(Collection<T> beans, OutputStream out) throws IOException {
+		writeCsvDocument(DataProvider.ofCollection(beans), out);
+	}
+
+	/**
+	 * Writes all the items of <code>dataProvider</code> to <code>out</code>,
+	 * which is flushed but not closed.
+	 */
+	public void writeCsvDocument(DataProvider<T, ?> dataProvider, OutputStream out) throws IOException {
+		GZIPOutputStream gzipOut = gzip ? new GZIPOutputStream(out, bufferSize) : null;
+		Writer writer = new BufferedWriter(Channels.newWriter(Channels.newChannel(gzip ? gzipOut : out),
+				charset.newEncoder(), bufferSize), bufferSize);
+
+		dataFormatter = new DataFormatter();
+		List<CsvColumn<T>> columns = buildColumnPlan();
+
+		if (writeHeaders) {
+			List<String> headers = columnsHeaders;
+			if (headers==null) {
+				headers = new ArrayList<>(columns.size());
+				for (CsvColumn<T> column : columns) {
+					headers.add(SharedUtil.propertyIdToHumanFriendly(column.propertyName));
+				}
+			}
+			for (int i = 0; i < headers.size(); i++) {
+				if (i>0) {
+					writer.write(separator);
+				}
+				writeField(writer, headers.get(i));
+			}
+			writer.write(lineSeparator);
+		}
+
+		long[] rows = new long[1];
+		try {
+			buildFetcher(dataProvider).forEach(bean -> {
+				try {
+					writeRow(writer, bean, columns);
+				} catch (IOException e) {
+					throw new ExportIOException(e);
+				}
+				if (progressListener!=null && ++rows[0] % progressInterval == 0) {
+					progressListener.rowsWritten(rows[0]);
+				}
+			});
+		} catch (ExportIOException e) {
+			throw e.getCause();
+		}
+		if (progressListener!=null) {
+			progressListener.rowsWritten(rows[0]);
+		}
+
+		writer.flush();
+		if (gzipOut!=null) {
+			gzipOut.finish();
+		}
+		out.flush();
+	}
+
+	protected PagedDataFetcher<T> buildFetcher(DataProvider<T, ?> dataProvider) {
+		PagedDataFetcher<T> fetcher = new PagedDataFetcher<>(dataProvider);
+		fetcher.setPageSize(fetchSize);
+		fetcher.setSortOrders(sortOrders);
+		fetcher.setInMemorySorting(inMemorySorting);
+		fetcher.setFilter(filter);
+		return fetcher;
+	}
+
+	protected void writeRow(Writer writer, T bean, List<CsvColumn<T>> columns) throws IOException {
+		for (int i = 0, n = columns.size(); i < n; i++) {
+			if (i>0) {
+				writer.write(separator);
+			}
+			CsvColumn<T> column = columns.get(i);
+			Object value = column.getter.apply(bean);
+			writeField(writer, value==null ? nullValue : column.formatter.apply(value));
+		}
+		writer.write(lineSeparator);
+	}
+
+	/**
+	 * Quotes the value when it contains the separator, a quote or a line break.
+	 */
+	protected void writeField(Writer writer, String value) throws IOException {
+		boolean quote = false;
+		for (int i = 0, n = value.length(); i < n && !quote; i++) {
+			char c = value.charAt(i);
+			quote = c==separator || c=='"' || c=='\n' || c=='\r';
+		}
+		if (!quote) {
+			writer.write(value);
+			return;
+		}
+		writer.write('"');
+		for (int i = 0, n = value.length(); i < n; i++) {
+			char c = value.charAt(i);
+			if (c=='"') {
+				writer.write('"');
+			}
+			writer.write(c);
+		}
+		writer.write('"');
+	}
+
+	protected List<CsvColumn<T>> buildColumnPlan() {
+		List<String> props = properties;
+		if (props==null) {
+			props = new ArrayList<>();
+			propertySet.getProperties().map(PropertyDefinition::getName).forEach(props::add);
+		}
+
+		List<CsvColumn<T>> plan = new ArrayList<>(props.size());
+		for (String propertyName : props) {
+			PropertyDefinition<T, ?> definition = propertySet
+					.getProperty(propertyName)
+					.orElseThrow(() -> new IllegalArgumentException(
+							"Could not resolve property name " + propertyName
+							));
+			plan.add(new CsvColumn<>(propertyName, definition.getGetter(),
+					buildFormatter(definition, formats.get(propertyName))));
+		}
+		return plan;
+	}
+
+	/**
+	 * @return converts the non null values of the property to text
+	 */
+	protected Function<Object, String> buildFormatter(PropertyDefinition<T, ?> definition, String format) {
+		Class<?> type = definition.getType();
+
+		if (String.class.isAssignableFrom(type)) {
+			return value -> (String) value;
+		} else if (Date.class.isAssignableFrom(type)) {
+			if (format!=null) {
+				return value -> formatRaw(DateUtil.getExcelDate((Date) value), format);
+			}
+			// java.sql.Date does not support toInstant()
+			return value -> LocalDateTime.ofInstant(Instant.ofEpochMilli(((Date) value).getTime()), ZoneId.systemDefault()).toString();
+		} else if (Calendar.class.isAssignableFrom(type)) {
+			if (format!=null) {
+				return value -> formatRaw(DateUtil.getExcelDate((Calendar) value, false), format);
+			}
+			return value -> LocalDateTime.ofInstant(((Calendar) value).toInstant(), ZoneId.systemDefault()).toString();
+		} else if (LocalDate.class.isAssignableFrom(type)) {
+			if (format!=null) {
+				return value -> formatRaw(DateUtil.getExcelDate(java.sql.Date.valueOf((LocalDate) value)), format);
+			}
+			return value -> value.toString();
+		} else if (LocalDateTime.class.isAssignableFrom(type)) {
+			if (format!=null) {
+				return value -> formatRaw(DateUtil.getExcelDate(java.sql.Timestamp.valueOf((LocalDateTime) value)), format);
+			}
+			return value -> value.toString();
+		} else if (Number.class.isAssignableFrom(type) || (type.isPrimitive() && boolean.class!=type && char.class!=type)) {
+			if (format!=null) {
+				return value -> formatRaw(((Number) value).doubleValue(), format);
+			}
+			return value -> value instanceof Double || value instanceof Float
+					? BigDecimal.valueOf(((Number) value).doubleValue()).stripTrailingZeros().toPlainString()
+					: value.toString();
+		} else if (type.isEnum()) {
+			return value -> ((Enum<?>) value).name();
+		} else if (RichTextString.class.isAssignableFrom(type)) {
+			return value -> ((RichTextString) value).getString();
+		}
+
+		return String::valueOf;
+	}
+
+	private String formatRaw(double value, String format) {
+		return dataFormatter.formatRawCellContents(value, -1, format);
+	}
+
+	protected static class CsvColumn<T> {
+
+		private final String propertyName;
+		private final ValueProvider<T, ?> getter;
+		private final Function<Object, String> formatter;
+
+		public CsvColumn(String propertyName, ValueProvider<T, ?> getter, Function<Object, String> formatter) {
+			this.propertyName = propertyName;
+			this.getter = getter;
+			this.formatter = formatter;
+		}
+
+		public String getPropertyName() {
+			return propertyName;
+		}
+	}
+
+	/**
+	 * Carries a write failure out of the fetch callback.
+	 */
+	private static class ExportIOException extends RuntimeException {
+
+		private static final long serialVersionUID = 1L;
+
+		ExportIOException(IOException cause) {
+			super(cause);
+		}
+
+		@Override
+		public synchronized IOException getCause() {
+			return (IOException) super.getCause();
+		}
+	}
+
+	public char getSeparator() {
+		return separator;
+	}
+
+	public void setSeparator(char separator) {
+		this.separator = separator;
+	}
+
+	public String getLineSeparator() {
+		return lineSeparator;
+	}
+
+	public void setLineSeparator(String lineSeparator) {
+		this.lineSeparator = lineSeparator;
+	}
+
+	public Charset getCharset() {
+		return charset;
+	}
+
+	public void setCharset(Charset charset) {
+		this.charset = charset;
+	}
+
+	public boolean isWriteHeaders() {
+		return writeHeaders;
+	}
+
+	public void setWriteHeaders(boolean writeHeaders) {
+		this.writeHeaders = writeHeaders;
+	}
+
+	public boolean isGzip() {
+		return gzip;
+	}
+
+	public void setGzip(boolean gzip) {
+		this.gzip = gzip;
+	}
+
+	public String getNullValue() {
+		return nullValue;
+	}
+
+	public void setNullValue(String nullValue) {
+		this.nullValue = nullValue;
+	}
+
+	public int getBufferSize() {
+		return bufferSize;
+	}
+
+	public void setBufferSize(int bufferSize) {
+		this.bufferSize = bufferSize;
+	}
+
+	public Collection<String> getProperties() {
+		return properties;
+	}
+
+	public void setProperties(List<String> properties) {
+		this.properties = properties;
+	}
+
+	public void setProperties(String... properties) {
+		this.properties = new ArrayList<>();
+		Collections.addAll(this.properties, properties);
+	}
+
+	public Collection<String> getColumnsHeaders() {
+		return columnsHeaders;
+	}
+
+	public void setColumnsHeaders(List<String> columnsHeaders) {
+		this.columnsHeaders = columnsHeaders;
+	}
+
+	public void setColumnsHeaders(String... columnsHeaders) {
+		this.columnsHeaders = new ArrayList<>();
+		Collections.addAll(this.columnsHeaders, columnsHeaders);
+	}
+
+	public Map<String, String> getFormats() {
+		return formats;
+	}
+
+	public void setFormats(Map<String, String> formats) {
+		this.formats = formats;
+	}
+
+	public int getFetchSize() {
+		return fetchSize;
+	}
+
+	public void setFetchSize(int fetchSize) {
+		this.fetchSize = fetchSize;
+	}
+
+	public List<QuerySortOrder> getSortOrders() {
+		return sortOrders;
+	}
+
+	public void setSortOrders(List<QuerySortOrder> sortOrders) {
+		this.sortOrders = sortOrders;
+	}
+
+	public SerializableComparator<T> getInMemorySorting() {
+		return inMemorySorting;
+	}
+
+	public void setInMemorySorting(SerializableComparator<T> inMemorySorting) {
+		this.inMemorySorting = inMemorySorting;
+	}
+
+	public Object getFilter() {
+		return filter;
+	}
+
+	public void setFilter(Object filter) {
+		this.filter = filter;
+	}
+
+	public ExportProgressListener getProgressListener() {
+		return progressListener;
+	}
+
+	public void setProgressListener(ExportProgressListener progressListener) {
+		this.progressListener = progressListener;
+	}
+
+	public int getProgressInterval() {
+		return progressInterval;
+	}
+
+	public void setProgressInterval(int progressInterval) {
+		if (progressInterval<1) {
+			throw new IllegalArgumentException("Progress interval must be positive: " + progressInterval);
+		}
+		this.progressInterval = progressInterval;
+	}
+}
@@ -1,5 +1,7 @@
 package org.vaadin.bread.ui.support;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -13,46 +15,92 @@ import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
+import org.apache.poi.ss.SpreadsheetVersion;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellStyle;
 import org.apache.poi.ss.usermodel.CellType;
-import org.apache.poi.ss.usermodel.CreationHelper;
 import org.apache.poi.ss.usermodel.DateUtil;
 import org.apache.poi.ss.usermodel.RichTextString;
 import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
-import org.apache.poi.xssf.usermodel.XSSFCell;
-import org.apache.poi.xssf.usermodel.XSSFRow;
-import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.vaadin.bread.data.BeanMetadata;
 
-import com.vaadin.data.BeanPropertySet;
 import com.vaadin.data.PropertyDefinition;
 import com.vaadin.data.PropertySet;
 import com.vaadin.data.provider.DataProvider;
-import com.vaadin.data.provider.Query;
+import com.vaadin.data.provider.QuerySortOrder;
+import com.vaadin.server.SerializableComparator;
 import com.vaadin.shared.util.SharedUtil;
 
 public class BeanExcelBuilder<T> {
 	
 	public static final String dateCellStyleFormat = "m/d/yy";
 	public static final String dateTimeCellStyleFormat = "m/d/yy hh:mm:ss";
+	public static final int MAX_ROWS_PER_SHEET = SpreadsheetVersion.EXCEL2007.getMaxRows();
 
 	private int startCol;
 	private int startRow;
 	private String sheetName;
 	
+	private boolean streaming;
+	private int rowAccessWindowSize = SXSSFWorkbook.DEFAULT_WINDOW_SIZE;
+	private boolean compressTempFiles = true;
+	private int maxRowsPerSheet = MAX_ROWS_PER_SHEET;
+	
+	private int fetchSize = PagedDataFetcher.DEFAULT_PAGE_SIZE;
+	private List<QuerySortOrder> sortOrders;
+	private SerializableComparator<T> inMemorySorting;
+	private Object filter;
+	private int offset;
+	private int limit = Integer.MAX_VALUE;
+	
+	private ExportProgressListener progressListener;
+	private int progressInterval = 1000;
+	
 	private List<String> properties;
 	private List<String> columnsHeaders;
 	
 	private Map<String, String> formats = new HashMap<>();
 	private PropertySet<T> propertySet;
+	private CellStyleRegistry styleRegistry;
+	private List<ExcelColumn<T>> columns;
 	
 	public BeanExcelBuilder(Class<T> clazz) {
-		this.propertySet = BeanPropertySet.get(clazz);
+		this.propertySet = BeanMetadata.of(clazz).getPropertySet();
+	}
+	
+	/**
+	 * Copies the configuration of <code>configuration</code>, not its hooks.
+	 */
+	public BeanExcelBuilder(BeanExcelBuilder<T> configuration) {
+		this.propertySet = configuration.propertySet;
+		this.startCol = configuration.startCol;
+		this.startRow = configuration.startRow;
+		this.sheetName = configuration.sheetName;
+		this.streaming = configuration.streaming;
+		this.rowAccessWindowSize = configuration.rowAccessWindowSize;
+		this.compressTempFiles = configuration.compressTempFiles;
+		this.maxRowsPerSheet = configuration.maxRowsPerSheet;
+		this.fetchSize = configuration.fetchSize;
+		this.sortOrders = configuration.sortOrders;
+		this.inMemorySorting = configuration.inMemorySorting;
+		this.filter = configuration.filter;
+		this.offset = configuration.offset;
+		this.limit = configuration.limit;
+		this.progressInterval = configuration.progressInterval;
+		this.properties = configuration.properties;
+		this.columnsHeaders = configuration.columnsHeaders;
+		this.formats = new HashMap<>(configuration.formats);
+	}
+	
+	public PropertySet<T> getPropertySet() {
+		return propertySet;
 	}
 	
-	protected XSSFSheet buildSheet(XSSFWorkbook wb) {
+	protected Sheet buildSheet(Workbook wb) {
 		if (sheetName!=null) {
 			return wb.createSheet(sheetName);
 		} else {
@@ -60,76 +108,245 @@ public class BeanExcelBuilder<T> {
 		}
 	}
 	
-	protected XSSFWorkbook buildWorkBook() {
+	protected Workbook buildWorkBook() {
+		if (streaming) {
+			SXSSFWorkbook wb = new SXSSFWorkbook(rowAccessWindowSize);
+			wb.setCompressTempFiles(compressTempFiles);
+			return wb;
+		}
 		return new XSSFWorkbook();
 	}
 	
-	public XSSFWorkbook createExcelDocument(Collection<T> beans) {
+	public Workbook createExcelDocument(Collection<T> beans) {
 		return createExcelDocument(DataProvider.ofCollection(beans));
 	}    
 	
-	public XSSFWorkbook createExcelDocument(DataProvider<T, ?> dataProvider) {
-        XSSFWorkbook wb = buildWorkBook();
-        XSSFSheet s = buildSheet(wb);
-                
-        XSSFRow r = s.createRow(startRow);
+	public Workbook createExcelDocument(DataProvider<T, ?> dataProvider) {
+        Workbook wb = buildWorkBook();
+        styleRegistry = new CellStyleRegistry(wb);
+        columns = buildColumnPlan(wb);
         
         List<String> headers = columnsHeaders;
         if (headers==null) {
-        	headers = propertySet.getProperties().map(pd -> SharedUtil.propertyIdToHumanFriendly(pd.getName())).collect(Collectors.toList());
+        	headers = columns.stream().map(c -> SharedUtil.propertyIdToHumanFriendly(c.getPropertyName())).collect(Collectors.toList());
         }
+        List<String> sheetHeaders = headers;
+        
+        Sheet[] sheet = { buildSheet(wb, 0) };
+        buildHeaderRow(sheet[0], sheetHeaders);
+        
+        int rowsPerSheet = maxRowsPerSheet - startRow - 1;
+        final AtomicInteger rownum = new AtomicInteger(startRow);
+        long[] written = new long[1];
+        long rows = buildFetcher(dataProvider).forEach(offset, limit, bean -> {
+        	if (rownum.get() - startRow == rowsPerSheet) {
+        		sheet[0] = buildSheet(wb, wb.getNumberOfSheets());
+        		buildHeaderRow(sheet[0], sheetHeaders);
+        		rownum.set(startRow);
+        	}
+        	buildRows(bean, sheet[0], rownum.incrementAndGet());
+        	if (progressListener!=null && ++written[0] % progressInterval == 0) {
+        		progressListener.rowsWritten(written[0]);
+        	}
+        });
+        if (progressListener!=null) {
+        	progressListener.rowsWritten(rows);
+        }
+       
+        return wb;
+    }
+	
+	protected void buildHeaderRow(Sheet s, List<String> headers) {
+        Row r = s.createRow(startRow);
         int cn=startCol;
         startHeaderRow(r);
         for (String ch : headers) {
-            XSSFCell cell = r.createCell(cn++);
+            Cell cell = r.createCell(cn++);
             cell.setCellValue(ch);
             setHeaderStyle(cell, ch);
         }
         endHeaderRow(r);
-
-        final AtomicInteger rownum = new AtomicInteger(startRow);
-        dataProvider.fetch(new Query<>()).forEach(bean -> { buildRows(bean, s, rownum.incrementAndGet()); }
-  		);
-       
-        return wb;
-    }
+	}
+	
+	/**
+	 * Builds the sheets after the first one when the rows exceed
+	 * {@link #getMaxRowsPerSheet()}.
+	 */
+	protected Sheet buildSheet(Workbook wb, int sheetIndex) {
+		if (sheetIndex==0) {
+			return buildSheet(wb);
+		}
+		if (sheetName!=null) {
+			return wb.createSheet(sheetName + " (" + (sheetIndex + 1) + ")");
+		} else {
+			return wb.createSheet();
+		}
+	}
+	
+	/**
+	 * Builds the document and writes it to <code>out</code>, disposing the
+	 * temporary files of a streaming workbook.
+	 */
+	public void writeExcelDocument(DataProvider<T, ?> dataProvider, OutputStream out) throws IOException {
+		Workbook wb = createExcelDocument(dataProvider);
+		try {
+			wb.write(out);
+			out.flush();
+		} finally {
+			if (wb instanceof SXSSFWorkbook) {
+				((SXSSFWorkbook) wb).dispose();
+			}
+		}
+	}
+	
+	protected PagedDataFetcher<T> buildFetcher(DataProvider<T, ?> dataProvider) {
+		PagedDataFetcher<T> fetcher = new PagedDataFetcher<>(dataProvider);
+		fetcher.setPageSize(fetchSize);
+		fetcher.setSortOrders(sortOrders);
+		fetcher.setInMemorySorting(inMemorySorting);
+		fetcher.setFilter(filter);
+		return fetcher;
+	}
 	
-	protected void buildRows(T bean, XSSFSheet s, int rowNumber) {
-		XSSFRow r = s.createRow(rowNumber);
+	protected void buildRows(T bean, Sheet s, int rowNumber) {
+		Row r = s.createRow(rowNumber);
 	                	
 	    int currCol = startCol;
 	    doStarRow(bean, r);
+	    for (int i = 0, n = columns.size(); i < n; i++) {
+	    	ExcelColumn<T> column = columns.get(i);
+	    	
+	        Object value = column.getGetter().apply(bean);
+	        
+			Cell cell = buildCell(r, currCol, column.getDefinition());
+			column.getWriter().write(cell, value);
+			if (column.getStyle()!=null) {
+				cell.setCellStyle(column.getStyle());
+			}
+			currCol++;
+		
+	    }
+	    doEndRow(bean, r);
+		
+	}
+
+	/**
+	 * Resolves, once per document, the getter, the cell writer and the shared
+	 * style of every exported property. Subclasses overriding
+	 * {@link #setCellValue(Cell, Object, PropertyDefinition)},
+	 * {@link #setCellStyle(Cell, Object, PropertyDefinition, String)} or
+	 * {@link #getCellStyle(Cell, String)} get their hook invoked for each cell.
+	 */
+	protected List<ExcelColumn<T>> buildColumnPlan(Workbook wb) {
 	    List<String> props = properties;
 	    if (props==null) {
 	    	props = propertySet.getProperties().map(pd -> pd.getName()).collect(Collectors.toList());
 	    }
-	    for(String propertyName : props) {
-	    	
+	    
+	    boolean valueHook = overrides("setCellValue", Cell.class, Object.class, PropertyDefinition.class);
+	    boolean styleHook = overrides("setCellStyle", Cell.class, Object.class, PropertyDefinition.class, String.class)
+	    		|| overrides("getCellStyle", Cell.class, String.class);
+	    
+	    List<ExcelColumn<T>> plan = new ArrayList<>(props.size());
+	    for (String propertyName : props) {
 	        PropertyDefinition<T, ?> definition = propertySet
 	                .getProperty(propertyName)
 	                .orElseThrow(() -> new IllegalArgumentException(
 	                        "Could not resolve property name " + propertyName
 	                                ));
-	    	
-	        Object value = definition.getGetter().apply(bean);
+	        String format = formats.get(propertyName);
 	        
-			Cell cell = buildCell(r, currCol, definition);
-			setCellValue(cell, value, definition);
-			setCellStyle(cell, value, definition, formats.get(propertyName));
-			currCol++;
-		
+	        ExcelColumn.CellWriter writer = valueHook ? (cell, value) -> setCellValue(cell, value, definition) : buildCellWriter(definition);
+	        CellStyle style = null;
+	        if (styleHook) {
+	        	ExcelColumn.CellWriter valueWriter = writer;
+	        	writer = (cell, value) -> {
+	        		valueWriter.write(cell, value);
+	        		setCellStyle(cell, value, definition, format);
+	        	};
+	        } else {
+	        	style = getColumnStyle(definition, format);
+	        }
+	        plan.add(new ExcelColumn<>(propertyName, definition, definition.getGetter(), writer, style));
 	    }
-	    doEndRow(bean, r);
+	    return plan;
+	}
+	
+	protected ExcelColumn.CellWriter buildCellWriter(PropertyDefinition<T, ?> definition) {
+		Class<?> type = definition.getType();
+		
+		if (String.class.isAssignableFrom(type)) {
+			return typedWriter(CellType.STRING, (cell, value) -> cell.setCellValue((String) value));
+		} else if (Date.class.isAssignableFrom(type)) {
+			return typedWriter(CellType.NUMERIC, (cell, value) -> cell.setCellValue((Date) value));
+		} else if (Double.class.isAssignableFrom(type)) {
+			return typedWriter(CellType.NUMERIC, (cell, value) -> cell.setCellValue((Double) value));
+		} else if (Number.class.isAssignableFrom(type)) {
+			return typedWriter(CellType.NUMERIC, (cell, value) -> cell.setCellValue(((Number) value).doubleValue()));
+		} else if (Boolean.class.isAssignableFrom(type) || boolean.class == type) {
+			return typedWriter(CellType.BOOLEAN, (cell, value) -> cell.setCellValue((Boolean) value));
+		} else if (type.isPrimitive() && char.class != type) {
+			return (cell, value) -> cell.setCellValue(((Number) value).doubleValue());
+		} else if (LocalDate.class.isAssignableFrom(type)) {
+			return typedWriter(CellType.NUMERIC, (cell, value) -> cell.setCellValue(DateUtil.getExcelDate(java.sql.Date.valueOf((LocalDate)value))));
+		} else if (LocalDateTime.class.isAssignableFrom(type)) {
+			return typedWriter(CellType.NUMERIC, (cell, value) -> cell.setCellValue(DateUtil.getExcelDate(java.sql.Timestamp.valueOf((LocalDateTime)value))));
+		} else if (type.isEnum()) {
+			return typedWriter(CellType.STRING, (cell, value) -> cell.setCellValue(((Enum<?>)value).name()));
+		} else if (Calendar.class.isAssignableFrom(type)) {
+			return typedWriter(CellType.NUMERIC, (cell, value) -> cell.setCellValue((Calendar) value));
+		} else if (RichTextString.class.isAssignableFrom(type)) {
+			return typedWriter(CellType.STRING, (cell, value) -> cell.setCellValue((RichTextString) value));
+		}
 		
+		return (cell, value) -> setCellValue(cell, value, definition);
+	}
+	
+	private static ExcelColumn.CellWriter typedWriter(CellType nullCellType, ExcelColumn.CellWriter writer) {
+		return (cell, value) -> {
+			if (value==null) {
+				cell.setCellType(nullCellType);
+			} else {
+				writer.write(cell, value);
+			}
+		};
+	}
+	
+	protected CellStyle getColumnStyle(PropertyDefinition<T, ?> definition, String format) {
+		if (format==null) {
+			format = getDefaultFormat(definition.getType());
+		}
+		return format==null ? null : styleRegistry.getFormatStyle(format);
+	}
+	
+	protected String getDefaultFormat(Class<?> type) {
+		if (Date.class.isAssignableFrom(type) || LocalDateTime.class.isAssignableFrom(type) || Calendar.class.isAssignableFrom(type)) {
+			return dateTimeCellStyleFormat;
+		} else if (LocalDate.class.isAssignableFrom(type)) {
+			return dateCellStyleFormat;
+		}
+		return null;
+	}
+	
+	private boolean overrides(String methodName, Class<?>... parameterTypes) {
+		for (Class<?> c = getClass(); c!=BeanExcelBuilder.class; c = c.getSuperclass()) {
+			try {
+				c.getDeclaredMethod(methodName, parameterTypes);
+				return true;
+			} catch (NoSuchMethodException e) {
+				// keep looking up the hierarchy
+			}
+		}
+		return false;
 	}
 
-	protected void endHeaderRow(XSSFRow r) {		
+	protected void endHeaderRow(Row r) {		
 	}
 
-	protected void startHeaderRow(XSSFRow r) {		
+	protected void startHeaderRow(Row r) {		
 	}
 
-	protected void setHeaderStyle(XSSFCell cell, String headerName) {		
+	protected void setHeaderStyle(Cell cell, String headerName) {		
 	}
 
 	protected void doEndRow(T object, Row row) {
@@ -147,11 +364,10 @@ public class BeanExcelBuilder<T> {
     
 	protected CellStyle getCellStyle(Cell cell, String format) {
 		Workbook wb = cell.getRow().getSheet().getWorkbook();
-		CreationHelper createHelper = wb.getCreationHelper();
-		CellStyle dateCellStyle = wb.createCellStyle();
-		dateCellStyle.setDataFormat(createHelper.createDataFormat().getFormat(format));
-			
-		return dateCellStyle;
+		if (styleRegistry==null || styleRegistry.getWorkbook()!=wb) {
+			styleRegistry = new CellStyleRegistry(wb);
+		}
+		return styleRegistry.getFormatStyle(format);
 	}
 
 	protected void setCellValue(Cell cell, Object value, PropertyDefinition<T, ?> definition) {
@@ -287,5 +503,146 @@ public class BeanExcelBuilder<T> {
 	public void setFormats(Map<String, String> formats) {
 		this.formats = formats;
 	}
+
+	/**
+	 * @return the style registry of the last built document, shared by all its cells
+	 */
+	public CellStyleRegistry getStyleRegistry() {
+		return styleRegistry;
+	}
+
+	/**
+	 * @return how many cell styles the last export created
+	 */
+	public int getCreatedStyles() {
+		return styleRegistry==null ? 0 : styleRegistry.getCreatedStyles();
+	}
+
+	public int getFetchSize() {
+		return fetchSize;
+	}
+
+	/**
+	 * Number of beans requested from the data provider with each query.
+	 */
+	public void setFetchSize(int fetchSize) {
+		this.fetchSize = fetchSize;
+	}
+
+	public List<QuerySortOrder> getSortOrders() {
+		return sortOrders;
+	}
+
+	public void setSortOrders(List<QuerySortOrder> sortOrders) {
+		this.sortOrders = sortOrders;
+	}
+
+	public SerializableComparator<T> getInMemorySorting() {
+		return inMemorySorting;
+	}
+
+	public void setInMemorySorting(SerializableComparator<T> inMemorySorting) {
+		this.inMemorySorting = inMemorySorting;
+	}
+
+	public Object getFilter() {
+		return filter;
+	}
+
+	/**
+	 * Filter passed with each query to the data provider.
+	 */
+	public void setFilter(Object filter) {
+		this.filter = filter;
+	}
+
+	public int getOffset() {
+		return offset;
+	}
+
+	/**
+	 * Index of the first item of the data provider to export.
+	 */
+	public void setOffset(int offset) {
+		this.offset = offset;
+	}
+
+	public int getLimit() {
+		return limit;
+	}
+
+	/**
+	 * Maximum number of items to export, all of them by default.
+	 */
+	public void setLimit(int limit) {
+		this.limit = limit;
+	}
+
+	public int getMaxRowsPerSheet() {
+		return maxRowsPerSheet;
+	}
+
+	/**
+	 * Rows of a sheet, header included, before the export continues on a new
+	 * sheet. Defaults to the XLSX limit.
+	 */
+	public void setMaxRowsPerSheet(int maxRowsPerSheet) {
+		if (maxRowsPerSheet<startRow + 2 || maxRowsPerSheet>MAX_ROWS_PER_SHEET) {
+			throw new IllegalArgumentException("Rows per sheet out of range: " + maxRowsPerSheet);
+		}
+		this.maxRowsPerSheet = maxRowsPerSheet;
+	}
+
+	public ExportProgressListener getProgressListener() {
+		return progressListener;
+	}
+
+	/**
+	 * Notified every {@link #getProgressInterval()} rows and once the last row is written.
+	 */
+	public void setProgressListener(ExportProgressListener progressListener) {
+		this.progressListener = progressListener;
+	}
+
+	public int getProgressInterval() {
+		return progressInterval;
+	}
+
+	public void setProgressInterval(int progressInterval) {
+		if (progressInterval<1) {
+			throw new IllegalArgumentException("Progress interval must be positive: " + progressInterval);
+		}
+		this.progressInterval = progressInterval;
+	}
+
+	public boolean isStreaming() {
+		return streaming;
+	}
+
+	/**
+	 * When enabled the document is built as a {@link SXSSFWorkbook}: only the last
+	 * {@link #getRowAccessWindowSize()} rows are kept on the heap, older rows are
+	 * flushed to a temporary file. The caller must {@link SXSSFWorkbook#dispose()}
+	 * the workbook once it has been written.
+	 */
+	public void setStreaming(boolean streaming) {
+		this.streaming = streaming;
+	}
+
+	public int getRowAccessWindowSize() {
+		return rowAccessWindowSize;
+	}
+
+	public void setRowAccessWindowSize(int rowAccessWindowSize) {
+		this.rowAccessWindowSize = rowAccessWindowSize;
+	}
+
+	public boolean isCompressTempFiles() {
+		return compressTempFiles;
+	}
+
+	public void setCompressTempFiles(boolean compressTempFiles) {
+		this.compressTempFiles = compressTempFiles;
+	}
     
 }
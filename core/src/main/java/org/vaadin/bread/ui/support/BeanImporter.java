@@ -0,0 +1,597 @@
+package org.vaadin.bread.ui.support;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+import javax.persistence.metamodel.ManagedType;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+import javax.validation.ValidationException;
+import javax.validation.Validator;
+
+import org.vaadin.bread.data.BeanMetadata;
+import org.vaadin.bread.data.JpaValidationBinder;
+import org.vaadin.bread.data.JpaValidationBinder.AttributeConstraints;
+import org.vaadin.bread.ui.crud.BatchAddOperationListener;
+
+import com.vaadin.data.PropertyDefinition;
+import com.vaadin.data.PropertySet;
+import com.vaadin.server.Setter;
+import com.vaadin.shared.util.SharedUtil;
+
+/**
+ * Counterpart of {@link BeanExcelBuilder}: reads rows from an XLSX or CSV
+ * file, maps each row to a new bean, validates it with Bean Validation and
+ * the JPA mapping of {@link #setJpaTypeForJpaValidation(ManagedType)}, and
+ * passes the valid beans in batches of {@link #getBatchSize()} to a
+ * {@link BatchAddOperationListener}. Rows are read as a stream, only the
+ * pending batch is kept in memory.
+ * <p>
+ * A failing batch is split in halves and added again, down to the single
+ * rows, so that the error is reported on the row that caused it: the batch
+ * add operation is expected to add all of its objects or none.
+ * <p>
+ * Columns are matched to properties by their header, either the property
+ * name or its caption, unless {@link #setProperties(String...)} gives them
+ * by position.
+ *
+ * @author Dmitrij Colautti
+ *
+ */
+public class BeanImporter<T> {
+
+	public static final int DEFAULT_BATCH_SIZE = 500;
+	public static final int DEFAULT_MAX_ERRORS = 1000;
+
+	@FunctionalInterface
+	public interface RowHandler {
+		/**
+		 * @param rowNumber 1-based number of the row in the file, a quoted CSV cell spanning several lines counts once
+		 */
+		void row(long rowNumber, List<String> cells);
+	}
+
+	@FunctionalInterface
+	public interface ErrorListener {
+		void importError(ImportError error);
+	}
+
+	private final Class<T> domainType;
+	private final PropertySet<T> propertySet;
+	private final BatchAddOperationListener<T> batchAddOperation;
+
+	private List<String> properties;
+	private boolean headers = true;
+	private char separator = BeanCsvBuilder.COMMA;
+	private Charset charset = StandardCharsets.UTF_8;
+	private int sheetIndex;
+	private int batchSize = DEFAULT_BATCH_SIZE;
+	private int maxErrors = DEFAULT_MAX_ERRORS;
+
+	private Validator validator;
+	private boolean validate = true;
+	private Class<?>[] validationGroups = new Class<?>[0];
+	private ManagedType<?> jpaType;
+	private Locale locale;
+
+	private ImportProgressListener progressListener;
+	private int progressInterval = 1000;
+	private ErrorListener errorListener;
+
+	public BeanImporter(Class<T> domainType, BatchAddOperationListener<T> batchAddOperation) {
+		this.domainType = domainType;
+		this.propertySet = BeanMetadata.of(domainType).getPropertySet();
+		this.batchAddOperation = batchAddOperation;
+	}
+
+	public ImportResult importCsv(InputStream in) throws IOException {
+		return importCsv(new InputStreamReader(in, charset));
+	}
+
+	public ImportResult importCsv(Reader reader) throws IOException {
+		ImportRun run = new ImportRun();
+		new CsvRowReader(separator).read(reader instanceof BufferedReader ? reader : new BufferedReader(reader), run);
+		return run.finish();
+	}
+
+	public ImportResult importExcel(File file) throws IOException {
+		ImportRun run = new ImportRun();
+		new XlsxRowReader(sheetIndex).read(file, run);
+		return run.finish();
+	}
+
+	/**
+	 * The stream is copied to a temporary file first: the XLSX zip cannot be
+	 * read in a single pass.
+	 */
+	public ImportResult importExcel(InputStream in) throws IOException {
+		Path file = Files.createTempFile("bread-import-", ".xlsx");
+		try {
+			Files.copy(in, file, StandardCopyOption.REPLACE_EXISTING);
+			return importExcel(file.toFile());
+		} finally {
+			Files.deleteIfExists(file);
+		}
+	}
+
+	/**
+	 * @return the properties bound to the columns of the file, <code>null</code>
+	 * for the columns to ignore
+	 */
+	protected List<ImportColumn<T>> buildColumnPlan(List<String> headerCells) {
+		List<ImportColumn<T>> plan = new ArrayList<>();
+		if (properties!=null) {
+			for (String propertyName : properties) {
+				PropertyDefinition<T, ?> definition = propertySet
+						.getProperty(propertyName)
+						.orElseThrow(() -> new IllegalArgumentException(
+								"Could not resolve property name " + propertyName
+								));
+				ImportColumn<T> column = buildColumn(definition);
+				if (column==null) {
+					throw new IllegalArgumentException("Property " + propertyName + " cannot be imported");
+				}
+				plan.add(column);
+			}
+			return plan;
+		}
+
+		Map<String, PropertyDefinition<T, ?>> byHeader = new HashMap<>();
+		propertySet.getProperties().forEach(definition -> {
+			byHeader.put(normalize(definition.getName()), definition);
+			byHeader.putIfAbsent(normalize(SharedUtil.propertyIdToHumanFriendly(definition.getName())), definition);
+		});
+		for (String header : headerCells) {
+			PropertyDefinition<T, ?> definition = byHeader.get(normalize(header));
+			plan.add(definition==null ? null : buildColumn(definition));
+		}
+		return plan;
+	}
+
+	private static String normalize(String header) {
+		return header.trim().replace(" ", "").toLowerCase(Locale.ROOT);
+	}
+
+	@SuppressWarnings("unchecked")
+	private ImportColumn<T> buildColumn(PropertyDefinition<T, ?> definition) {
+		Optional<? extends Setter<T, ?>> setter = definition.getSetter();
+		Function<String, Object> parser = buildParser(definition.getType());
+		if (!setter.isPresent() || parser==null) {
+			return null;
+		}
+		return new ImportColumn<>(definition.getName(), (Setter<T, Object>) setter.get(), parser,
+				definition.getType().isPrimitive());
+	}
+
+	/**
+	 * @return converts the non empty text of a cell to <code>type</code>, or
+	 * <code>null</code> when the type is not supported
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	protected Function<String, Object> buildParser(Class<?> type) {
+		if (String.class==type) {
+			return text -> text;
+		} else if (Integer.class==type || int.class==type) {
+			return text -> new BigDecimal(text.trim()).intValueExact();
+		} else if (Long.class==type || long.class==type) {
+			return text -> new BigDecimal(text.trim()).longValueExact();
+		} else if (Short.class==type || short.class==type) {
+			return text -> new BigDecimal(text.trim()).shortValueExact();
+		} else if (Byte.class==type || byte.class==type) {
+			return text -> new BigDecimal(text.trim()).byteValueExact();
+		} else if (Double.class==type || double.class==type) {
+			return text -> Double.valueOf(text.trim());
+		} else if (Float.class==type || float.class==type) {
+			return text -> Float.valueOf(text.trim());
+		} else if (BigDecimal.class==type) {
+			return text -> new BigDecimal(text.trim());
+		} else if (BigInteger.class==type) {
+			return text -> new BigDecimal(text.trim()).toBigIntegerExact();
+		} else if (Boolean.class==type || boolean.class==type) {
+			return BeanImporter::parseBoolean;
+		} else if (Character.class==type || char.class==type) {
+			return text -> {
+				if (text.length()!=1) {
+					throw new IllegalArgumentException("Not a single character");
+				}
+				return text.charAt(0);
+			};
+		} else if (LocalDate.class==type) {
+			return text -> parseDateTime(text).toLocalDate();
+		} else if (LocalDateTime.class==type) {
+			return BeanImporter::parseDateTime;
+		} else if (java.sql.Date.class==type) {
+			return text -> java.sql.Date.valueOf(parseDateTime(text).toLocalDate());
+		} else if (Timestamp.class==type) {
+			return text -> Timestamp.valueOf(parseDateTime(text));
+		} else if (Date.class==type) {
+			return text -> Date.from(parseDateTime(text).atZone(ZoneId.systemDefault()).toInstant());
+		} else if (type.isEnum()) {
+			return text -> {
+				for (Object constant : type.getEnumConstants()) {
+					if (((Enum) constant).name().equalsIgnoreCase(text.trim())) {
+						return constant;
+					}
+				}
+				throw new IllegalArgumentException("Unknown value");
+			};
+		}
+		return null;
+	}
+
+	private static Boolean parseBoolean(String text) {
+		switch (text.trim().toLowerCase(Locale.ROOT)) {
+		case "true":
+		case "yes":
+		case "1":
+			return Boolean.TRUE;
+		case "false":
+		case "no":
+		case "0":
+			return Boolean.FALSE;
+		default:
+			throw new IllegalArgumentException("Not a boolean");
+		}
+	}
+
+	private static LocalDateTime parseDateTime(String text) {
+		String trimmed = text.trim();
+		if (trimmed.length()<=10) {
+			return LocalDate.parse(trimmed).atStartOfDay();
+		}
+		return LocalDateTime.parse(trimmed.replace(' ', 'T'));
+	}
+
+	protected T instantiate() {
+		try {
+			return domainType.newInstance();
+		} catch (InstantiationException | IllegalAccessException e) {
+			throw new IllegalStateException("Cannot instantiate " + domainType.getName(), e);
+		}
+	}
+
+	/**
+	 * @return <code>null</code> when validation is disabled or no Bean Validation provider is available
+	 */
+	protected Validator getValidator() {
+		if (!validate) {
+			return null;
+		}
+		return validator==null ? DefaultValidator.get() : validator;
+	}
+
+	protected Locale getValidationLocale() {
+		return locale==null ? Locale.getDefault() : locale;
+	}
+
+	/**
+	 * The state of a single import.
+	 */
+	protected class ImportRun implements RowHandler {
+
+		private final ImportResult result = new ImportResult(maxErrors);
+		private final List<T> batch = new ArrayList<>(batchSize);
+		private final List<Long> batchRows = new ArrayList<>(batchSize);
+		private List<ImportColumn<T>> columns;
+		private final Map<PropertyDefinition<T, ?>, AttributeConstraints> jpaConstraints = new LinkedHashMap<>();
+
+		public ImportRun() {
+			if (!headers && properties==null) {
+				// the first row would be taken for the headers
+				throw new IllegalStateException("Without headers the columns must be given with setProperties");
+			}
+			if (validate && jpaType!=null) {
+				JpaValidationBinder.constraints(jpaType, getValidationLocale()).forEach((name, constraints) ->
+						propertySet.getProperty(name).ifPresent(definition -> jpaConstraints.put(definition, constraints)));
+			}
+		}
+
+		@Override
+		public void row(long rowNumber, List<String> cells) {
+			if (columns==null) {
+				columns = buildColumnPlan(cells);
+				if (columns.stream().allMatch(Objects::isNull)) {
+					throw new IllegalStateException("No column matches a property of " + domainType.getName() + ": " + cells);
+				}
+				if (headers) {
+					return;
+				}
+			}
+
+			result.rowRead();
+			T bean = instantiate();
+			boolean valid = true;
+			for (int i = 0, n = Math.min(cells.size(), columns.size()); i < n; i++) {
+				ImportColumn<T> column = columns.get(i);
+				String text = cells.get(i);
+				if (column==null || (text.isEmpty() && column.primitive)) {
+					continue;
+				}
+				try {
+					column.setter.accept(bean, text.isEmpty() ? null : column.parser.apply(text));
+				} catch (RuntimeException e) {
+					valid = false;
+					error(new ImportError(rowNumber, column.propertyName, "Invalid value '" + text + "'"));
+				}
+			}
+
+			Validator beanValidator = getValidator();
+			if (valid && beanValidator!=null) {
+				Set<ConstraintViolation<T>> violations = beanValidator.validate(bean, validationGroups);
+				for (ConstraintViolation<T> violation : violations) {
+					valid = false;
+					error(new ImportError(rowNumber, violation.getPropertyPath().toString(), violation.getMessage()));
+				}
+			}
+			if (valid) {
+				for (Map.Entry<PropertyDefinition<T, ?>, AttributeConstraints> entry : jpaConstraints.entrySet()) {
+					String message = entry.getValue().validate(entry.getKey().getGetter().apply(bean));
+					if (message!=null) {
+						valid = false;
+						error(new ImportError(rowNumber, entry.getKey().getName(), message));
+					}
+				}
+			}
+
+			if (valid) {
+				batch.add(bean);
+				batchRows.add(rowNumber);
+				if (batch.size()>=batchSize) {
+					flush();
+				}
+			}
+
+			if (progressListener!=null && result.getRowsRead() % progressInterval == 0) {
+				progressListener.rowsRead(result.getRowsRead(), result.getRowsImported());
+			}
+		}
+
+		protected void flush() {
+			if (batch.isEmpty()) {
+				return;
+			}
+			add(batch, batchRows);
+			batch.clear();
+			batchRows.clear();
+		}
+
+		private void add(List<T> beans, List<Long> rowNumbers) {
+			try {
+				batchAddOperation.perform(Collections.unmodifiableList(beans));
+				result.rowsImported(beans.size());
+			} catch (RuntimeException e) {
+				int size = beans.size();
+				if (size==1) {
+					String message = e.getLocalizedMessage()==null ? e.getClass().getSimpleName() : e.getLocalizedMessage();
+					error(new ImportError(rowNumbers.get(0), null, message));
+					return;
+				}
+				// retries the halves to find the failing rows
+				int half = size / 2;
+				add(beans.subList(0, half), rowNumbers.subList(0, half));
+				add(beans.subList(half, size), rowNumbers.subList(half, size));
+			}
+		}
+
+		private void error(ImportError error) {
+			result.addError(error);
+			if (errorListener!=null) {
+				errorListener.importError(error);
+			}
+		}
+
+		protected ImportResult finish() {
+			flush();
+			if (progressListener!=null) {
+				progressListener.rowsRead(result.getRowsRead(), result.getRowsImported());
+			}
+			return result;
+		}
+	}
+
+	protected static class ImportColumn<T> {
+
+		private final String propertyName;
+		private final Setter<T, Object> setter;
+		private final Function<String, Object> parser;
+		private final boolean primitive;
+
+		public ImportColumn(String propertyName, Setter<T, Object> setter, Function<String, Object> parser, boolean primitive) {
+			this.propertyName = propertyName;
+			this.setter = setter;
+			this.parser = parser;
+			this.primitive = primitive;
+		}
+
+		public String getPropertyName() {
+			return propertyName;
+		}
+	}
+
+	/**
+	 * Bootstraps the default provider once, if there is one.
+	 */
+	private static class DefaultValidator {
+
+		private static final Validator INSTANCE = create();
+
+		private static Validator create() {
+			try {
+				return Validation.buildDefaultValidatorFactory().getValidator();
+			} catch (ValidationException e) {
+				return null;
+			}
+		}
+
+		static Validator get() {
+			return INSTANCE;
+		}
+	}
+
+	public List<String> getProperties() {
+		return properties;
+	}
+
+	/**
+	 * Binds the columns, by position, to <code>properties</code> instead of
+	 * matching the headers.
+	 */
+	public void setProperties(List<String> properties) {
+		this.properties = properties;
+	}
+
+	public void setProperties(String... properties) {
+		this.properties = new ArrayList<>();
+		Collections.addAll(this.properties, properties);
+	}
+
+	public boolean isHeaders() {
+		return headers;
+	}
+
+	/**
+	 * Whether the first row holds the column headers, <code>true</code> by default.
+	 * Without headers the columns must be given with {@link #setProperties(String...)},
+	 * otherwise the import fails with an {@link IllegalStateException}.
+	 */
+	public void setHeaders(boolean headers) {
+		this.headers = headers;
+	}
+
+	public char getSeparator() {
+		return separator;
+	}
+
+	public void setSeparator(char separator) {
+		this.separator = separator;
+	}
+
+	public Charset getCharset() {
+		return charset;
+	}
+
+	public void setCharset(Charset charset) {
+		this.charset = charset;
+	}
+
+	public int getSheetIndex() {
+		return sheetIndex;
+	}
+
+	public void setSheetIndex(int sheetIndex) {
+		this.sheetIndex = sheetIndex;
+	}
+
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	public void setBatchSize(int batchSize) {
+		if (batchSize<1) {
+			throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+		}
+		this.batchSize = batchSize;
+	}
+
+	public int getMaxErrors() {
+		return maxErrors;
+	}
+
+	public void setMaxErrors(int maxErrors) {
+		this.maxErrors = maxErrors;
+	}
+
+	public void setValidator(Validator validator) {
+		this.validator = validator;
+	}
+
+	public boolean isValidate() {
+		return validate;
+	}
+
+	public void setValidate(boolean validate) {
+		this.validate = validate;
+	}
+
+	public void setValidationGroups(Class<?>... validationGroups) {
+		this.validationGroups = validationGroups;
+	}
+
+	public ManagedType<?> getJpaTypeForJpaValidation() {
+		return jpaType;
+	}
+
+	/**
+	 * Also validates the rows against the JPA mapping of <code>jpaType</code>,
+	 * like the forms of a {@link JpaValidationBinder}: required attributes and
+	 * the <code>@Column</code> length of strings.
+	 */
+	public void setJpaTypeForJpaValidation(ManagedType<?> jpaType) {
+		this.jpaType = jpaType;
+	}
+
+	public Locale getLocale() {
+		return locale;
+	}
+
+	/**
+	 * @param locale of the validation messages, the default locale when <code>null</code>
+	 */
+	public void setLocale(Locale locale) {
+		this.locale = locale;
+	}
+
+	public ImportProgressListener getProgressListener() {
+		return progressListener;
+	}
+
+	public void setProgressListener(ImportProgressListener progressListener) {
+		this.progressListener = progressListener;
+	}
+
+	public int getProgressInterval() {
+		return progressInterval;
+	}
+
+	public void setProgressInterval(int progressInterval) {
+		if (progressInterval<1) {
+			throw new IllegalArgumentException("Progress interval must be positive: " + progressInterval);
+		}
+		this.progressInterval = progressInterval;
+	}
+
+	public ErrorListener getErrorListener() {
+		return errorListener;
+	}
+
+	public void setErrorListener(ErrorListener errorListener) {
+		this.errorListener = errorListener;
+	}
+}
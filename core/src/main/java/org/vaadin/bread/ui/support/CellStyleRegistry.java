@@ -0,0 +1,89 @@
+package org.vaadin.bread.ui.support;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.DataFormat;
+import org.apache.poi.ss.usermodel.Workbook;
+
+/**
+ * Creates each distinct {@link CellStyle} of a workbook only once.
+ * <p>
+ * A workbook can hold at most 64000 styles, so styles must be shared between
+ * cells instead of being created per cell. A registry is bound to a single
+ * workbook and is not thread safe.
+ * 
+ * @author Dmitrij Colautti
+ *
+ */
+public class CellStyleRegistry {
+
+	private final Workbook workbook;
+	private final Map<Object, CellStyle> styles = new HashMap<>();
+	private DataFormat dataFormat;
+	private int createdStyles;
+
+	public CellStyleRegistry(Workbook workbook) {
+		this.workbook = workbook;
+	}
+
+	public CellStyle getFormatStyle(String format) {
+		return getStyle(new FormatKey(format), cs -> cs.setDataFormat(getDataFormat().getFormat(format)));
+	}
+
+	/**
+	 * Returns the style registered under <code>key</code>, creating it with
+	 * <code>initializer</code> the first time the key is requested. Keys must
+	 * implement equals and hashCode, e.g. a value object combining format, font
+	 * and fill.
+	 */
+	public CellStyle getStyle(Object key, Consumer<CellStyle> initializer) {
+		CellStyle cs = styles.get(key);
+		if (cs==null) {
+			cs = workbook.createCellStyle();
+			initializer.accept(cs);
+			styles.put(key, cs);
+			createdStyles++;
+		}
+		return cs;
+	}
+
+	public Workbook getWorkbook() {
+		return workbook;
+	}
+
+	/**
+	 * @return the number of styles created in the workbook through this registry
+	 */
+	public int getCreatedStyles() {
+		return createdStyles;
+	}
+
+	protected DataFormat getDataFormat() {
+		if (dataFormat==null) {
+			dataFormat = workbook.getCreationHelper().createDataFormat();
+		}
+		return dataFormat;
+	}
+
+	private static final class FormatKey {
+		private final String format;
+
+		FormatKey(String format) {
+			this.format = format;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof FormatKey && Objects.equals(format, ((FormatKey) obj).format);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hashCode(format);
+		}
+	}
+}
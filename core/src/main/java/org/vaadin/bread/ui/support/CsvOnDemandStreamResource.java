@@ -0,0 +1,70 @@
+package org.vaadin.bread.ui.support;
+
+import com.vaadin.data.provider.DataProvider;
+
+/**
+ * Streams the items of a data provider as CSV or TSV, optionally gzip
+ * compressed, through a {@link BeanCsvBuilder}.
+ *
+ * @author Dmitrij Colautti
+ *
+ */
+public abstract class CsvOnDemandStreamResource<T> extends StreamingDownloadResource {
+
+	public static final String CSV_MIME_TYPE = "text/csv";
+	public static final String TSV_MIME_TYPE = "text/tab-separated-values";
+	public static final String GZIP_MIME_TYPE = "application/gzip";
+
+	private final char separator;
+	private final boolean gzip;
+
+	public CsvOnDemandStreamResource() {
+		this(BeanCsvBuilder.COMMA, false);
+	}
+
+	public CsvOnDemandStreamResource(char separator, boolean gzip) {
+		this.separator = separator;
+		this.gzip = gzip;
+	}
+
+	/**
+	 * Called while the session is locked, the builder is used on the download thread.
+	 */
+	protected abstract BeanCsvBuilder<T> getBuilder();
+
+	/**
+	 * Called while the session is locked.
+	 */
+	protected abstract DataProvider<T, ?> getDataProvider();
+
+	@Override
+	protected ContentWriter prepareContent() {
+		BeanCsvBuilder<T> builder = getBuilder();
+		builder.setSeparator(separator);
+		builder.setGzip(gzip);
+		DataProvider<T, ?> dataProvider = getDataProvider();
+
+		return out -> builder.writeCsvDocument(dataProvider, out);
+	}
+
+	@Override
+	public String getFilename() {
+		return "export" + (separator==BeanCsvBuilder.TAB ? ".tsv" : ".csv") + (gzip ? ".gz" : "");
+	}
+
+	@Override
+	public String getMIMEType() {
+		if (gzip) {
+			return GZIP_MIME_TYPE;
+		}
+		return separator==BeanCsvBuilder.TAB ? TSV_MIME_TYPE : CSV_MIME_TYPE;
+	}
+
+	public char getSeparator() {
+		return separator;
+	}
+
+	public boolean isGzip() {
+		return gzip;
+	}
+}
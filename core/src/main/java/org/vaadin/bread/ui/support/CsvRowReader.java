@@ -0,0 +1,97 @@
+package org.vaadin.bread.ui.support;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits CSV text into rows of cells as it reads it. Quoted cells may contain
+ * the separator, line breaks and doubled quotes; empty lines are skipped.
+ *
+ * @author Dmitrij Colautti
+ *
+ */
+public class CsvRowReader {
+
+	private final char separator;
+
+	public CsvRowReader(char separator) {
+		this.separator = separator;
+	}
+
+	public void read(Reader reader, BeanImporter.RowHandler handler) throws IOException {
+		char[] buffer = new char[8192];
+		StringBuilder cell = new StringBuilder();
+		List<String> cells = new ArrayList<>();
+		long rowNumber = 1;
+		boolean quoted = false;
+		boolean quoteSeen = false;
+		boolean pendingCR = false;
+		boolean first = true;
+
+		int read;
+		while ((read = reader.read(buffer))>0) {
+			int start = 0;
+			if (first) {
+				first = false;
+				if (buffer[0]=='\uFEFF') {
+					start = 1;
+				}
+			}
+			for (int i = start; i < read; i++) {
+				char c = buffer[i];
+
+				if (pendingCR) {
+					pendingCR = false;
+					if (c=='\n') {
+						continue;
+					}
+				}
+
+				if (quoted) {
+					if (quoteSeen) {
+						quoteSeen = false;
+						if (c=='"') {
+							cell.append('"');
+							continue;
+						}
+						quoted = false;
+					} else if (c=='"') {
+						quoteSeen = true;
+						continue;
+					} else {
+						cell.append(c);
+						continue;
+					}
+				}
+
+				if (c=='"' && cell.length()==0) {
+					quoted = true;
+				} else if (c==separator) {
+					cells.add(cell.toString());
+					cell.setLength(0);
+				} else if (c=='\n' || c=='\r') {
+					pendingCR = c=='\r';
+					endRow(handler, rowNumber++, cells, cell);
+					cells = new ArrayList<>(cells.size());
+				} else {
+					cell.append(c);
+				}
+			}
+		}
+		if (quoted && !quoteSeen) {
+			throw new IOException("Unterminated quoted cell at row " + rowNumber);
+		}
+		endRow(handler, rowNumber, cells, cell);
+	}
+
+	private static void endRow(BeanImporter.RowHandler handler, long rowNumber, List<String> cells, StringBuilder cell) {
+		if (cells.isEmpty() && cell.length()==0) {
+			return;
+		}
+		cells.add(cell.toString());
+		cell.setLength(0);
+		handler.row(rowNumber, cells);
+	}
+}
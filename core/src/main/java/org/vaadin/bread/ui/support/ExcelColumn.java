@@ -0,0 +1,62 @@
+package org.vaadin.bread.ui.support;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+
+import com.vaadin.data.PropertyDefinition;
+import com.vaadin.data.ValueProvider;
+
+/**
+ * A column of an export, resolved once per document by
+ * {@link BeanExcelBuilder#buildColumnPlan(org.apache.poi.ss.usermodel.Workbook)}
+ * so that writing a row needs no property lookup and no type dispatch.
+ * 
+ * @author Dmitrij Colautti
+ *
+ */
+public class ExcelColumn<T> {
+
+	@FunctionalInterface
+	public interface CellWriter {
+		void write(Cell cell, Object value);
+	}
+
+	private final String propertyName;
+	private final PropertyDefinition<T, ?> definition;
+	private final ValueProvider<T, ?> getter;
+	private final CellWriter writer;
+	private final CellStyle style;
+
+	public ExcelColumn(String propertyName, PropertyDefinition<T, ?> definition, ValueProvider<T, ?> getter,
+			CellWriter writer, CellStyle style) {
+		this.propertyName = propertyName;
+		this.definition = definition;
+		this.getter = getter;
+		this.writer = writer;
+		this.style = style;
+	}
+
+	public String getPropertyName() {
+		return propertyName;
+	}
+
+	public PropertyDefinition<T, ?> getDefinition() {
+		return definition;
+	}
+
+	public ValueProvider<T, ?> getGetter() {
+		return getter;
+	}
+
+	public CellWriter getWriter() {
+		return writer;
+	}
+
+	/**
+	 * @return the shared style of every cell of the column, <code>null</code> if
+	 *         the cells keep the default style
+	 */
+	public CellStyle getStyle() {
+		return style;
+	}
+}
@@ -1,30 +1,41 @@
 package org.vaadin.bread.ui.support;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
+import java.util.function.Supplier;
 
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 
-import com.vaadin.server.ConnectorResource;
-import com.vaadin.server.DownloadStream;
+public abstract class ExcelOnDemandStreamResource extends StreamingDownloadResource {
 
-public abstract class ExcelOnDemandStreamResource implements ConnectorResource {
+	public static final String MIME_TYPE = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
 
-	protected abstract XSSFWorkbook getWorkbook();
+	protected abstract Workbook getWorkbook();
+	
+	/**
+	 * Called while the session is locked. By default the workbook is built
+	 * right away; override to return a supplier that builds it on the download
+	 * thread instead.
+	 */
+	protected Supplier<Workbook> prepareWorkbook() {
+		Workbook wb = getWorkbook();
+		return () -> wb;
+	}
 	
 	@Override
-	public DownloadStream getStream() {
-
-		ByteArrayOutputStream baos = new ByteArrayOutputStream();
-		try {
-			getWorkbook().write(baos);
-			baos.flush();
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
+	protected ContentWriter prepareContent() {
+		Supplier<Workbook> workbook = prepareWorkbook();
 		
-		return new DownloadStream(new ByteArrayInputStream(baos.toByteArray()), getMIMEType(), getFilename());
+		return out -> {
+			Workbook wb = workbook.get();
+			try {
+				wb.write(out);
+				out.flush();
+			} finally {
+				if (wb instanceof SXSSFWorkbook) {
+					((SXSSFWorkbook) wb).dispose();
+				}
+			}
+		};
 	}
 	
 	@Override
@@ -34,7 +45,7 @@ public abstract class ExcelOnDemandStreamResource implements ConnectorResource {
 	
 	@Override
 	public String getMIMEType() {
-		return "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+		return MIME_TYPE;
 	}
 	
 	
@@ -0,0 +1,315 @@
+package org.vaadin.bread.ui.support;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import org.vaadin.bread.ui.support.StreamingDownloadResource.ContentWriter;
+
+/**
+ * Keeps generated exports on local disk so that repeated downloads of the
+ * same data are served from the file. Entries are keyed by domain type,
+ * scope, exporter name and the digest of a {@link FilterSignature}; the least
+ * recently used ones are deleted when the files exceed {@link #getMaxBytes()}.
+ * <p>
+ * The scope tells apart the exports of data providers that return different
+ * items for the same filter, e.g. for different users: only exports with the
+ * same scope are shared.
+ * <p>
+ * {@link #invalidate(Class)} must be called when the data of a domain type
+ * changes: <code>AbstractCrud</code> does it after its own operations. An
+ * export that was running while its type was invalidated is not cached.
+ *
+ * @author Dmitrij Colautti
+ *
+ */
+public class ExportCache {
+
+	public static final long DEFAULT_MAX_BYTES = 256L * 1024 * 1024;
+
+	private static final ExportCache DEFAULT = new ExportCache(null, DEFAULT_MAX_BYTES);
+
+	public static final class Key {
+
+		private final Class<?> domainType;
+		private final String scope;
+		private final String exporterName;
+		private final String signature;
+
+		/**
+		 * @param scope identifies the data provider, e.g. per session or per user
+		 * @param signature a {@link FilterSignature#getDigest() digest} of the filter and of the sorting
+		 */
+		public Key(Class<?> domainType, String scope, String exporterName, String signature) {
+			this.domainType = domainType;
+			this.scope = scope;
+			this.exporterName = exporterName;
+			this.signature = signature;
+		}
+
+		public Class<?> getDomainType() {
+			return domainType;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return domainType.equals(other.domainType) && scope.equals(other.scope)
+					&& exporterName.equals(other.exporterName) && signature.equals(other.signature);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(domainType, scope, exporterName, signature);
+		}
+
+		@Override
+		public String toString() {
+			return domainType.getSimpleName() + "-" + scope + "-" + exporterName + "-" + signature;
+		}
+	}
+
+	private Path directory;
+	private long maxBytes;
+	private long totalBytes;
+	private final LinkedHashMap<Key, File> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private long generation;
+	private long clearedAt;
+	private final Map<Class<?>, Long> invalidatedAt = new HashMap<>();
+
+	/**
+	 * @param directory where the files are kept, a new temporary directory when <code>null</code>
+	 */
+	public ExportCache(Path directory, long maxBytes) {
+		this.directory = directory;
+		this.maxBytes = maxBytes;
+	}
+
+	/**
+	 * @return the cache shared by the whole application, the scope of the keys
+	 * keeps apart the exports of different users
+	 */
+	public static ExportCache getDefault() {
+		return DEFAULT;
+	}
+
+	/**
+	 * @return a writer copying the cached file when there is one once it runs,
+	 * otherwise running <code>writer</code> and keeping a copy of its output.
+	 * Nothing is opened before the writer runs, a writer that never runs
+	 * holds no resources.
+	 */
+	public ContentWriter cached(Key key, ContentWriter writer) {
+		return out -> {
+			InputStream hit = open(key);
+			if (hit!=null) {
+				try (InputStream in = hit) {
+					byte[] buffer = new byte[8192];
+					int read;
+					while ((read = in.read(buffer))>0) {
+						out.write(buffer, 0, read);
+					}
+				}
+				out.flush();
+			} else {
+				writeAndKeep(key, writer, out);
+			}
+		};
+	}
+
+	private void writeAndKeep(Key key, ContentWriter writer, OutputStream out) throws IOException {
+		long started = getGeneration();
+		Path part = Files.createTempFile(getDirectory(), "part-", ".tmp");
+		TeeOutputStream tee = new TeeOutputStream(out, new BufferedOutputStream(Files.newOutputStream(part)));
+		boolean written = false;
+		try {
+			writer.writeTo(tee);
+			written = true;
+		} finally {
+			tee.close();
+			if (written && !tee.copyFailed) {
+				put(key, started, part);
+			} else {
+				Files.deleteIfExists(part);
+			}
+		}
+	}
+
+	/**
+	 * Called once the writer runs: an entry evicted while its file is copied
+	 * can still be read.
+	 */
+	private synchronized InputStream open(Key key) {
+		File file = entries.get(key);
+		if (file==null) {
+			return null;
+		}
+		try {
+			return new FileInputStream(file);
+		} catch (FileNotFoundException e) {
+			remove(key);
+			return null;
+		}
+	}
+
+	private synchronized void put(Key key, long started, Path part) throws IOException {
+		if (clearedAt>started || invalidatedAt.getOrDefault(key.domainType, 0L)>started) {
+			Files.deleteIfExists(part);
+			return;
+		}
+		remove(key);
+		File file = Files.move(part, part.resolveSibling("export-" + Integer.toHexString(key.hashCode()) + "-"
+				+ part.getFileName().toString().replace(".tmp", "")), StandardCopyOption.ATOMIC_MOVE).toFile();
+		entries.put(key, file);
+		totalBytes += file.length();
+		evict();
+	}
+
+	private void evict() {
+		Iterator<Map.Entry<Key, File>> eldest = entries.entrySet().iterator();
+		while (totalBytes>maxBytes && eldest.hasNext()) {
+			File file = eldest.next().getValue();
+			eldest.remove();
+			delete(file);
+		}
+	}
+
+	private void remove(Key key) {
+		File file = entries.remove(key);
+		if (file!=null) {
+			delete(file);
+		}
+	}
+
+	private void delete(File file) {
+		totalBytes -= file.length();
+		if (!file.delete()) {
+			file.deleteOnExit();
+		}
+	}
+
+	/**
+	 * Drops the exports of <code>domainType</code>, including the ones being generated.
+	 */
+	public synchronized void invalidate(Class<?> domainType) {
+		invalidatedAt.put(domainType, ++generation);
+		entries.entrySet().removeIf(entry -> {
+			if (entry.getKey().domainType.equals(domainType)) {
+				delete(entry.getValue());
+				return true;
+			}
+			return false;
+		});
+	}
+
+	public synchronized void clear() {
+		clearedAt = ++generation;
+		entries.values().forEach(this::delete);
+		entries.clear();
+	}
+
+	private synchronized long getGeneration() {
+		return generation;
+	}
+
+	private synchronized Path getDirectory() {
+		if (directory==null) {
+			try {
+				directory = Files.createTempDirectory("bread-export-cache");
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+		return directory;
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	public synchronized long getTotalBytes() {
+		return totalBytes;
+	}
+
+	public synchronized long getMaxBytes() {
+		return maxBytes;
+	}
+
+	public synchronized void setMaxBytes(long maxBytes) {
+		this.maxBytes = maxBytes;
+		evict();
+	}
+
+	/**
+	 * Copies to a second stream what is written to the download. A failure of
+	 * the copy does not break the download, the copy is just not cached.
+	 */
+	private static class TeeOutputStream extends OutputStream {
+
+		private final OutputStream out;
+		private final OutputStream copy;
+		private boolean copyFailed;
+
+		TeeOutputStream(OutputStream out, OutputStream copy) {
+			this.out = out;
+			this.copy = copy;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			out.write(b);
+			if (!copyFailed) {
+				try {
+					copy.write(b);
+				} catch (IOException e) {
+					copyFailed = true;
+				}
+			}
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+			if (!copyFailed) {
+				try {
+					copy.write(b, off, len);
+				} catch (IOException e) {
+					copyFailed = true;
+				}
+			}
+		}
+
+		@Override
+		public void flush() throws IOException {
+			out.flush();
+		}
+
+		/**
+		 * Closes the copy only, the download stream belongs to the caller.
+		 */
+		@Override
+		public void close() throws IOException {
+			try {
+				copy.close();
+			} catch (IOException e) {
+				copyFailed = true;
+			}
+		}
+	}
+}
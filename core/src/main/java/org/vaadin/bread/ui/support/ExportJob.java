@@ -0,0 +1,238 @@
+package org.vaadin.bread.ui.support;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+
+/**
+ * An export written to a temporary file by an {@link ExportJobManager}
+ * thread. Listeners are notified from that thread when the state changes and
+ * while rows are written, so a UI has to apply the changes through
+ * <code>UI.access</code>.
+ * <p>
+ * Cancellation is checked at every progress notification of the content and
+ * at every write to the file, so a workbook being flushed to the file at the
+ * end of an export stops too. Progress updates are notified at most every
+ * {@link #getUpdateInterval()} milliseconds; rows flushed after the last
+ * notification, e.g. by <code>Workbook.write</code>, are not counted.
+ * <p>
+ * The file is kept until {@link #discard()} is called.
+ *
+ * @author Dmitrij Colautti
+ *
+ */
+public class ExportJob {
+
+	public enum State {
+		QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED
+	}
+
+	@FunctionalInterface
+	public interface Content {
+		void writeTo(OutputStream out, ExportProgressListener progress) throws IOException;
+	}
+
+	@FunctionalInterface
+	public interface Listener {
+		void jobUpdated(ExportJob job);
+	}
+
+	private final String filename;
+	private final String mimeType;
+	private final Content content;
+	private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+	private volatile State state = State.QUEUED;
+	private volatile long rowsWritten;
+	private volatile File file;
+	private volatile Throwable failure;
+	private volatile boolean cancelRequested;
+	private volatile boolean discarded;
+	private volatile Future<?> future;
+	private long updateInterval = 250;
+	private long lastUpdate;
+
+	public ExportJob(String filename, String mimeType, Content content) {
+		this.filename = filename;
+		this.mimeType = mimeType;
+		this.content = content;
+	}
+
+	void run() {
+		if (cancelRequested) {
+			setState(State.CANCELLED);
+			return;
+		}
+		setState(State.RUNNING);
+
+		File target = null;
+		try {
+			target = Files.createTempFile("bread-export-", "-" + filename).toFile();
+			try (OutputStream out = new CancellableOutputStream(
+					new BufferedOutputStream(Files.newOutputStream(target.toPath())))) {
+				content.writeTo(out, rows -> {
+					checkCancelled();
+					rowsWritten = rows;
+					long now = System.currentTimeMillis();
+					if (now - lastUpdate>=updateInterval) {
+						lastUpdate = now;
+						fireUpdated();
+					}
+				});
+			}
+			if (cancelRequested) {
+				throw new CancellationException();
+			}
+			file = target;
+			setState(State.COMPLETED);
+		} catch (Throwable e) {
+			delete(target);
+			if (cancelRequested || e instanceof CancellationException) {
+				setState(State.CANCELLED);
+			} else {
+				failure = e;
+				setState(State.FAILED);
+			}
+		}
+	}
+
+	private void checkCancelled() {
+		if (cancelRequested || Thread.currentThread().isInterrupted()) {
+			throw new CancellationException();
+		}
+	}
+
+	/**
+	 * Stops the job at the next progress notification or write; a queued job
+	 * never starts.
+	 */
+	public void cancel() {
+		if (isDone()) {
+			return;
+		}
+		cancelRequested = true;
+		Future<?> f = future;
+		if (state==State.QUEUED && f!=null && f.cancel(false)) {
+			// still queued, run() will not be called
+			setState(State.CANCELLED);
+		}
+	}
+
+	/**
+	 * Cancels the job if still running and deletes the generated file.
+	 */
+	public void discard() {
+		discarded = true;
+		cancel();
+		delete(file);
+		file = null;
+	}
+
+	public boolean isDiscarded() {
+		return discarded;
+	}
+
+	void setFuture(Future<?> future) {
+		this.future = future;
+	}
+
+	private synchronized void setState(State state) {
+		if (isDone()) {
+			return;
+		}
+		this.state = state;
+		fireUpdated();
+	}
+
+	private void fireUpdated() {
+		for (Listener listener : listeners) {
+			listener.jobUpdated(this);
+		}
+	}
+
+	private static void delete(File file) {
+		if (file!=null) {
+			file.delete();
+		}
+	}
+
+	public void addListener(Listener listener) {
+		listeners.add(listener);
+	}
+
+	public void removeListener(Listener listener) {
+		listeners.remove(listener);
+	}
+
+	public boolean isDone() {
+		return state==State.COMPLETED || state==State.FAILED || state==State.CANCELLED;
+	}
+
+	public State getState() {
+		return state;
+	}
+
+	public long getRowsWritten() {
+		return rowsWritten;
+	}
+
+	/**
+	 * @return the generated file, <code>null</code> until the job is completed
+	 */
+	public File getFile() {
+		return file;
+	}
+
+	public Throwable getFailure() {
+		return failure;
+	}
+
+	public String getFilename() {
+		return filename;
+	}
+
+	public String getMimeType() {
+		return mimeType;
+	}
+
+	public long getUpdateInterval() {
+		return updateInterval;
+	}
+
+	/**
+	 * Minimum milliseconds between two progress updates of the listeners,
+	 * state changes are always notified. Must be set before the job runs.
+	 */
+	public void setUpdateInterval(long updateInterval) {
+		this.updateInterval = updateInterval;
+	}
+
+	/**
+	 * Fails the writes of a cancelled job.
+	 */
+	private class CancellableOutputStream extends FilterOutputStream {
+
+		CancellableOutputStream(OutputStream out) {
+			super(out);
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			checkCancelled();
+			out.write(b);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			checkCancelled();
+			out.write(b, off, len);
+		}
+	}
+}
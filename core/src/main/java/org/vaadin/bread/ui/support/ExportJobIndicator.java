@@ -0,0 +1,261 @@
+package org.vaadin.bread.ui.support;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+
+import com.vaadin.icons.VaadinIcons;
+import com.vaadin.server.FileDownloader;
+import com.vaadin.server.StreamResource;
+import com.vaadin.ui.Alignment;
+import com.vaadin.ui.Button;
+import com.vaadin.ui.HorizontalLayout;
+import com.vaadin.ui.Label;
+import com.vaadin.ui.ProgressBar;
+import com.vaadin.ui.UI;
+import com.vaadin.ui.themes.ValoTheme;
+
+/**
+ * Shows the progress of an {@link ExportJob} and, once it is completed, a
+ * button downloading the generated file. Progress updates are pushed through
+ * {@link UI#access(Runnable)}; when push is not enabled the UI polls while
+ * the job runs.
+ * <p>
+ * Detaching the indicator, e.g. with a tab that is not selected, only stops
+ * following the job: it keeps running and is shown again when the indicator
+ * is attached. The job is discarded by the dismiss button, by the next
+ * {@link #setJob(ExportJob)}, or with the session when it was submitted with
+ * {@link ExportJobManager#submit(ExportJob, com.vaadin.server.VaadinSession)}.
+ * <p>
+ * The job is not part of the serialized state of the session: an indicator
+ * restored from a serialized session has forgotten it and shows nothing.
+ *
+ * @author Dmitrij Colautti
+ *
+ */
+public class ExportJobIndicator extends HorizontalLayout {
+
+	protected String queuedCaption = "Export queued";
+	protected String runningCaption = "%d rows exported";
+	protected String completedCaption = "Export ready";
+	protected String failedCaption = "Export failed";
+	protected String cancelledCaption = "Export cancelled";
+
+	protected ProgressBar progressBar = new ProgressBar();
+	protected Label statusLabel = new Label();
+	protected Button cancelButton = new Button("", e -> cancelClicked());
+	protected Button downloadButton = new Button("");
+	protected Button dismissButton = new Button("", e -> dismiss());
+
+	private transient ExportJob job;
+	private transient ExportJob.Listener jobListener;
+	private FileDownloader downloader;
+	private int pollInterval = 1000;
+	private int previousPollInterval = -1;
+	private boolean polling;
+
+	public ExportJobIndicator() {
+		setSpacing(true);
+		setVisible(false);
+
+		progressBar.setIndeterminate(true);
+		progressBar.setWidth("4em");
+
+		cancelButton.setIcon(VaadinIcons.CLOSE_CIRCLE);
+		cancelButton.setDescription("Cancel export");
+		cancelButton.addStyleName(ValoTheme.BUTTON_BORDERLESS);
+
+		downloadButton.setIcon(VaadinIcons.DOWNLOAD);
+		downloadButton.setDescription("Download");
+		downloadButton.addStyleName(ValoTheme.BUTTON_FRIENDLY);
+
+		dismissButton.setIcon(VaadinIcons.CLOSE_SMALL);
+		dismissButton.setDescription("Dismiss");
+		dismissButton.addStyleName(ValoTheme.BUTTON_BORDERLESS);
+
+		addComponents(progressBar, statusLabel, cancelButton, downloadButton, dismissButton);
+		setComponentAlignment(statusLabel, Alignment.MIDDLE_LEFT);
+	}
+
+	/**
+	 * Follows <code>job</code>, discarding the job shown before. Must be
+	 * called while the indicator is attached.
+	 */
+	public void setJob(ExportJob job) {
+		if (this.job!=null) {
+			this.job.removeListener(jobListener);
+			this.job.discard();
+		}
+		if (jobListener==null) {
+			jobListener = this::jobUpdated;
+		}
+		this.job = job;
+		job.addListener(jobListener);
+		startPolling();
+		update();
+	}
+
+	public ExportJob getJob() {
+		return job;
+	}
+
+	protected void jobUpdated(ExportJob updated) {
+		UI ui = getUI();
+		if (ui!=null) {
+			ui.access(() -> {
+				if (updated==job) {
+					update();
+				}
+			});
+		}
+	}
+
+	protected void update() {
+		if (job==null) {
+			setVisible(false);
+			stopPolling();
+			return;
+		}
+		setVisible(true);
+
+		ExportJob.State state = job.getState();
+		boolean done = job.isDone();
+		progressBar.setVisible(!done);
+		cancelButton.setVisible(!done);
+		dismissButton.setVisible(done);
+		downloadButton.setVisible(state==ExportJob.State.COMPLETED);
+
+		switch (state) {
+		case QUEUED:
+			statusLabel.setValue(queuedCaption);
+			break;
+		case RUNNING:
+			statusLabel.setValue(String.format(runningCaption, job.getRowsWritten()));
+			break;
+		case COMPLETED:
+			statusLabel.setValue(completedCaption);
+			setDownload(job);
+			break;
+		case FAILED:
+			statusLabel.setValue(failedCaption);
+			break;
+		case CANCELLED:
+			statusLabel.setValue(cancelledCaption);
+			break;
+		}
+
+		if (done) {
+			stopPolling();
+		}
+	}
+
+	protected void setDownload(ExportJob completed) {
+		File file = completed.getFile();
+		StreamResource resource = new StreamResource(() -> {
+			try {
+				return new FileInputStream(file);
+			} catch (FileNotFoundException e) {
+				return null;
+			}
+		}, completed.getFilename());
+		resource.setMIMEType(completed.getMimeType());
+		resource.setCacheTime(0);
+
+		if (downloader==null) {
+			downloader = new FileDownloader(resource);
+			downloader.extend(downloadButton);
+		} else {
+			downloader.setFileDownloadResource(resource);
+		}
+	}
+
+	protected void cancelClicked() {
+		if (job!=null) {
+			job.cancel();
+		}
+	}
+
+	/**
+	 * Discards the current job and its file and hides the indicator.
+	 */
+	public void dismiss() {
+		if (job!=null) {
+			job.removeListener(jobListener);
+			job.discard();
+			job = null;
+		}
+		update();
+	}
+
+	private void startPolling() {
+		UI ui = getUI();
+		if (ui==null || polling || ui.getPushConfiguration().getPushMode().isEnabled()) {
+			return;
+		}
+		previousPollInterval = ui.getPollInterval();
+		if (previousPollInterval<0 || previousPollInterval>pollInterval) {
+			ui.setPollInterval(pollInterval);
+		}
+		polling = true;
+	}
+
+	private void stopPolling() {
+		UI ui = getUI();
+		if (ui!=null && polling) {
+			ui.setPollInterval(previousPollInterval);
+		}
+		polling = false;
+	}
+
+	@Override
+	public void attach() {
+		super.attach();
+		if (job!=null) {
+			job.addListener(jobListener);
+			if (!job.isDone()) {
+				startPolling();
+			}
+			update();
+		}
+	}
+
+	@Override
+	public void detach() {
+		if (job!=null) {
+			job.removeListener(jobListener);
+		}
+		stopPolling();
+		super.detach();
+	}
+
+	public int getPollInterval() {
+		return pollInterval;
+	}
+
+	/**
+	 * Milliseconds between the progress refreshes when push is not enabled.
+	 */
+	public void setPollInterval(int pollInterval) {
+		this.pollInterval = pollInterval;
+	}
+
+	public void setQueuedCaption(String queuedCaption) {
+		this.queuedCaption = queuedCaption;
+	}
+
+	public void setRunningCaption(String runningCaption) {
+		this.runningCaption = runningCaption;
+	}
+
+	public void setCompletedCaption(String completedCaption) {
+		this.completedCaption = completedCaption;
+	}
+
+	public void setFailedCaption(String failedCaption) {
+		this.failedCaption = failedCaption;
+	}
+
+	public void setCancelledCaption(String cancelledCaption) {
+		this.cancelledCaption = cancelledCaption;
+	}
+}
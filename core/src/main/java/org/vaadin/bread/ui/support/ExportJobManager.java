@@ -0,0 +1,160 @@
+package org.vaadin.bread.ui.support;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.vaadin.server.VaadinService;
+import com.vaadin.server.VaadinSession;
+
+/**
+ * Runs {@link ExportJob}s on a bounded pool: at most
+ * <code>maxConcurrentExports</code> jobs run at the same time and at most
+ * <code>maxQueuedExports</code> wait for a free thread, further submissions
+ * are rejected.
+ * <p>
+ * {@link #getDefault()} is shared by all the sessions of the application, so
+ * its limits apply to the whole node.
+ * <p>
+ * A job submitted for a session belongs to it, not to the component showing
+ * its progress: it keeps running when that component is detached and is
+ * discarded, if not before, when the session is destroyed.
+ *
+ * @author Dmitrij Colautti
+ *
+ */
+public class ExportJobManager {
+
+	public static final int DEFAULT_MAX_QUEUED_EXPORTS = 16;
+
+	private static final ExportJobManager DEFAULT = new ExportJobManager(
+			Math.max(1, Runtime.getRuntime().availableProcessors() / 2), DEFAULT_MAX_QUEUED_EXPORTS);
+
+	/**
+	 * The services whose session destroy listener is registered, weak keys: a redeployed application goes away.
+	 */
+	private static final Set<VaadinService> SERVICES = Collections.newSetFromMap(Collections.synchronizedMap(new WeakHashMap<>()));
+
+	private final ThreadPoolExecutor executor;
+
+	public ExportJobManager(int maxConcurrentExports, int maxQueuedExports) {
+		AtomicInteger threads = new AtomicInteger();
+		executor = new ThreadPoolExecutor(maxConcurrentExports, maxConcurrentExports, 60, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<>(maxQueuedExports), r -> {
+					Thread thread = new Thread(r, "bread-export-" + threads.incrementAndGet());
+					thread.setDaemon(true);
+					thread.setPriority(Thread.NORM_PRIORITY - 1);
+					return thread;
+				});
+		executor.allowCoreThreadTimeOut(true);
+	}
+
+	public static ExportJobManager getDefault() {
+		return DEFAULT;
+	}
+
+	/**
+	 * @throws RejectedExecutionException when too many exports are already running or queued
+	 */
+	public ExportJob submit(ExportJob job) {
+		job.setFuture(executor.submit(job::run));
+		return job;
+	}
+
+	/**
+	 * Submits <code>job</code> and discards it when <code>session</code> is
+	 * destroyed. The session must be locked.
+	 *
+	 * @param session may be <code>null</code>, the job is then discarded only by its owner
+	 * @throws RejectedExecutionException when too many exports are already running or queued
+	 */
+	public ExportJob submit(ExportJob job, VaadinSession session) {
+		submit(job);
+		if (session!=null) {
+			discardWithSession(job, session);
+		}
+		return job;
+	}
+
+	private static void discardWithSession(ExportJob job, VaadinSession session) {
+		VaadinService service = session.getService();
+		if (service!=null && SERVICES.add(service)) {
+			service.addSessionDestroyListener(event -> {
+				SessionJobs jobs = event.getSession().getAttribute(SessionJobs.class);
+				if (jobs!=null) {
+					jobs.discardAll();
+				}
+			});
+		}
+		SessionJobs jobs = session.getAttribute(SessionJobs.class);
+		if (jobs==null) {
+			jobs = new SessionJobs();
+			session.setAttribute(SessionJobs.class, jobs);
+		}
+		jobs.add(job);
+	}
+
+	public int getRunningExports() {
+		return executor.getActiveCount();
+	}
+
+	public int getQueuedExports() {
+		return executor.getQueue().size();
+	}
+
+	public int getMaxConcurrentExports() {
+		return executor.getMaximumPoolSize();
+	}
+
+	public void setMaxConcurrentExports(int maxConcurrentExports) {
+		if (maxConcurrentExports>executor.getMaximumPoolSize()) {
+			executor.setMaximumPoolSize(maxConcurrentExports);
+			executor.setCorePoolSize(maxConcurrentExports);
+		} else {
+			executor.setCorePoolSize(maxConcurrentExports);
+			executor.setMaximumPoolSize(maxConcurrentExports);
+		}
+	}
+
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * The jobs of a session, not serialized with it: the threads writing
+	 * them don't move with the session.
+	 */
+	private static class SessionJobs implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		private transient List<ExportJob> jobs = new ArrayList<>();
+
+		synchronized void add(ExportJob job) {
+			jobs.removeIf(ExportJob::isDiscarded);
+			jobs.add(job);
+		}
+
+		synchronized void discardAll() {
+			for (ExportJob job : jobs) {
+				job.discard();
+			}
+			jobs.clear();
+		}
+
+		private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+			in.defaultReadObject();
+			jobs = new ArrayList<>();
+		}
+	}
+}
@@ -0,0 +1,15 @@
+package org.vaadin.bread.ui.support;
+
+/**
+ * Notified by an exporter while it writes rows. Throwing from
+ * {@link #rowsWritten(long)} aborts the export.
+ *
+ * @author Dmitrij Colautti
+ *
+ */
+@FunctionalInterface
+public interface ExportProgressListener {
+
+	void rowsWritten(long rows);
+
+}
@@ -0,0 +1,201 @@
+package org.vaadin.bread.ui.support;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.temporal.TemporalAccessor;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.vaadin.bread.data.BeanMetadata;
+
+import com.vaadin.data.PropertyDefinition;
+import com.vaadin.data.provider.QuerySortOrder;
+
+/**
+ * The state of a filter bean and of a sort: two filters with equal property
+ * values give equal signatures, whatever their identity.
+ * <p>
+ * An entity value (e.g. the group selected in a filter field) is described
+ * by its class and id, see {@link BeanMetadata#getIdProperty()}. Other values
+ * that are neither simple types nor collections of them, and entities not
+ * persisted yet, are kept in the signature and compared with
+ * <code>equals</code>. Such a signature has no {@link #getDigest() digest},
+ * so it can't key data kept out of memory or shared between sessions.
+ *
+ * @author Dmitrij Colautti
+ *
+ */
+public final class FilterSignature implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final String description;
+	private final List<Object> values;
+	private transient String digest;
+
+	private FilterSignature(String description, List<Object> values) {
+		this.description = description;
+		this.values = values;
+	}
+
+	public static FilterSignature of(Object filter, List<QuerySortOrder> sortOrders) {
+		StringBuilder description = new StringBuilder();
+		List<Object> values = new ArrayList<>();
+		describe(description, values, filter, sortOrders);
+		return new FilterSignature(description.toString(), values);
+	}
+
+	/**
+	 * @return the signature of this state followed by <code>filter</code> and <code>sortOrders</code>
+	 */
+	public FilterSignature with(Object filter, List<QuerySortOrder> sortOrders) {
+		StringBuilder description = new StringBuilder(this.description).append("||");
+		List<Object> values = new ArrayList<>(this.values);
+		describe(description, values, filter, sortOrders);
+		return new FilterSignature(description.toString(), values);
+	}
+
+	private static void describe(StringBuilder description, List<Object> values, Object filter,
+			List<QuerySortOrder> sortOrders) {
+		describeFilter(description, values, filter);
+		description.append('|');
+		if (sortOrders!=null) {
+			for (QuerySortOrder order : sortOrders) {
+				description.append(order.getSorted()).append(' ').append(order.getDirection()).append(',');
+			}
+		}
+	}
+
+	/**
+	 * @return whether the signature only holds simple values, see {@link #getDigest()}
+	 */
+	public boolean isDigestible() {
+		return values.isEmpty();
+	}
+
+	/**
+	 * @return a SHA-256 hex digest of the state, <code>null</code> when the
+	 * state holds values only comparable with <code>equals</code>
+	 */
+	public String getDigest() {
+		if (!isDigestible()) {
+			return null;
+		}
+		if (digest==null) {
+			digest = digest(description);
+		}
+		return digest;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (!(obj instanceof FilterSignature)) {
+			return false;
+		}
+		FilterSignature other = (FilterSignature) obj;
+		return description.equals(other.description) && values.equals(other.values);
+	}
+
+	@Override
+	public int hashCode() {
+		// not the values: the hash of an entity may change once it is persisted
+		return description.hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return description;
+	}
+
+	private static void describeFilter(StringBuilder description, List<Object> values, Object filter) {
+		if (filter==null || isSimple(filter) || filter instanceof Collection) {
+			describeValue(description, values, filter);
+			return;
+		}
+		description.append(filter.getClass().getName()).append('{');
+		BeanMetadata.of(filter.getClass()).getPropertySet().getProperties()
+				.sorted(Comparator.comparing(PropertyDefinition::getName))
+				.forEach(property -> {
+					@SuppressWarnings("unchecked")
+					PropertyDefinition<Object, ?> definition = (PropertyDefinition<Object, ?>) property;
+					description.append(definition.getName()).append('=');
+					describeValue(description, values, definition.getGetter().apply(filter));
+					description.append(';');
+				});
+		description.append('}');
+	}
+
+	private static void describeValue(StringBuilder description, List<Object> values, Object value) {
+		if (value==null) {
+			description.append("null");
+		} else if (value instanceof Date) {
+			description.append(((Date) value).getTime());
+		} else if (value instanceof Calendar) {
+			description.append(((Calendar) value).getTimeInMillis());
+		} else if (isSimple(value)) {
+			description.append(value.getClass().getSimpleName()).append(':').append(value);
+		} else if (value instanceof Collection) {
+			description.append('[');
+			for (Object element : (Collection<?>) value) {
+				describeValue(description, values, element);
+				description.append(',');
+			}
+			description.append(']');
+		} else {
+			Object id = id(value);
+			if (id!=null) {
+				description.append(entityType(value.getClass()).getName()).append('@');
+				describeValue(description, values, id);
+			} else {
+				description.append(value.getClass().getName()).append('#').append(values.size());
+				values.add(value);
+			}
+		}
+	}
+
+	/**
+	 * @return the id of an entity, <code>null</code> for other values
+	 */
+	private static Object id(Object value) {
+		BeanMetadata<Object> metadata = BeanMetadata.of(entityType(value.getClass()));
+		return metadata.getIdProperty()
+				.map(property -> metadata.getGetter(property.getName()).apply(value))
+				.orElse(null);
+	}
+
+	/**
+	 * @return the entity class of a lazy loading proxy, e.g. <code>Group_$$_jvst...</code>
+	 */
+	@SuppressWarnings("unchecked")
+	private static Class<Object> entityType(Class<?> type) {
+		while (type.getName().contains("$$") && type.getSuperclass()!=null) {
+			type = type.getSuperclass();
+		}
+		return (Class<Object>) type;
+	}
+
+	private static boolean isSimple(Object value) {
+		return value instanceof CharSequence || value instanceof Number || value instanceof Boolean
+				|| value instanceof Character || value instanceof Enum || value instanceof TemporalAccessor
+				|| value instanceof Date || value instanceof Calendar;
+	}
+
+	private static String digest(String description) {
+		try {
+			byte[] hash = MessageDigest.getInstance("SHA-256").digest(description.getBytes(StandardCharsets.UTF_8));
+			StringBuilder hex = new StringBuilder(hash.length * 2);
+			for (byte b : hash) {
+				hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+			}
+			return hex.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
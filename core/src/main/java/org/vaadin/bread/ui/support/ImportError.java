@@ -0,0 +1,48 @@
+package org.vaadin.bread.ui.support;
+
+import java.io.Serializable;
+
+/**
+ * A row rejected by a {@link BeanImporter}: a value that could not be
+ * converted, a failed validation or a failed batch.
+ *
+ * @author Dmitrij Colautti
+ *
+ */
+public class ImportError implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final long rowNumber;
+	private final String property;
+	private final String message;
+
+	public ImportError(long rowNumber, String property, String message) {
+		this.rowNumber = rowNumber;
+		this.property = property;
+		this.message = message;
+	}
+
+	/**
+	 * @return the 1-based number of the row in the file
+	 */
+	public long getRowNumber() {
+		return rowNumber;
+	}
+
+	/**
+	 * @return the property the error refers to, <code>null</code> if it refers to the whole row
+	 */
+	public String getProperty() {
+		return property;
+	}
+
+	public String getMessage() {
+		return message;
+	}
+
+	@Override
+	public String toString() {
+		return "Row " + rowNumber + (property==null ? "" : " (" + property + ")") + ": " + message;
+	}
+}
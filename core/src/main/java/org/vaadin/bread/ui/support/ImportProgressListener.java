@@ -0,0 +1,16 @@
+package org.vaadin.bread.ui.support;
+
+/**
+ * Notified by a {@link BeanImporter} while it reads rows. Throwing from
+ * {@link #rowsRead(long, long)} aborts the import; batches already added are
+ * kept.
+ *
+ * @author Dmitrij Colautti
+ *
+ */
+@FunctionalInterface
+public interface ImportProgressListener {
+
+	void rowsRead(long rowsRead, long rowsImported);
+
+}
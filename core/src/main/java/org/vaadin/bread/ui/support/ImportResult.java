@@ -0,0 +1,67 @@
+package org.vaadin.bread.ui.support;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of a {@link BeanImporter} run. Only the first
+ * {@link BeanImporter#getMaxErrors()} errors are kept, {@link #getErrorCount()}
+ * counts all of them.
+ *
+ * @author Dmitrij Colautti
+ *
+ */
+public class ImportResult implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final int maxErrors;
+	private long rowsRead;
+	private long rowsImported;
+	private long errorCount;
+	private final List<ImportError> errors = new ArrayList<>();
+
+	public ImportResult(int maxErrors) {
+		this.maxErrors = maxErrors;
+	}
+
+	void rowRead() {
+		rowsRead++;
+	}
+
+	void rowsImported(int rows) {
+		rowsImported += rows;
+	}
+
+	void addError(ImportError error) {
+		errorCount++;
+		if (errors.size()<maxErrors) {
+			errors.add(error);
+		}
+	}
+
+	public long getRowsRead() {
+		return rowsRead;
+	}
+
+	public long getRowsImported() {
+		return rowsImported;
+	}
+
+	/**
+	 * @return the number of errors, including the ones not kept
+	 */
+	public long getErrorCount() {
+		return errorCount;
+	}
+
+	public List<ImportError> getErrors() {
+		return Collections.unmodifiableList(errors);
+	}
+
+	public boolean hasErrors() {
+		return errorCount>0;
+	}
+}
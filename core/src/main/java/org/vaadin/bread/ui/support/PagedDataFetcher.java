@@ -0,0 +1,114 @@
+package org.vaadin.bread.ui.support;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.vaadin.data.provider.DataProvider;
+import com.vaadin.data.provider.Query;
+import com.vaadin.data.provider.QuerySortOrder;
+import com.vaadin.server.SerializableComparator;
+
+/**
+ * Reads a {@link DataProvider} page by page with offset/limit queries, so
+ * that only one page of items is referenced at a time. In-memory providers
+ * are read with a single query.
+ * <p>
+ * The backend must return the items in a deterministic order, e.g. sorted
+ * by the requested orders and then by id: the pages are separate queries,
+ * and without a stable order an item can be read twice or skipped.
+ * 
+ * @author Dmitrij Colautti
+ *
+ */
+public class PagedDataFetcher<T> {
+
+	public static final int DEFAULT_PAGE_SIZE = 5000;
+
+	private final DataProvider<T, Object> dataProvider;
+	private int pageSize = DEFAULT_PAGE_SIZE;
+	private List<QuerySortOrder> sortOrders = Collections.emptyList();
+	private SerializableComparator<T> inMemorySorting;
+	private Object filter;
+
+	@SuppressWarnings("unchecked")
+	public PagedDataFetcher(DataProvider<T, ?> dataProvider) {
+		this.dataProvider = (DataProvider<T, Object>) dataProvider;
+	}
+
+	public long forEach(Consumer<? super T> action) {
+		return forEach(0, Integer.MAX_VALUE, action);
+	}
+
+	/**
+	 * Passes to <code>action</code> at most <code>limit</code> items starting
+	 * from <code>offset</code>.
+	 * 
+	 * @return the number of items read
+	 */
+	public long forEach(int offset, int limit, Consumer<? super T> action) {
+		if (dataProvider.isInMemory()) {
+			return fetch(offset, limit, action);
+		}
+
+		long total = 0;
+		int position = offset;
+		int remaining = limit;
+		while (remaining > 0) {
+			int requested = Math.min(pageSize, remaining);
+			int read = (int) fetch(position, requested, action);
+			total += read;
+			if (read < requested) {
+				break;
+			}
+			position += read;
+			remaining -= read;
+		}
+		return total;
+	}
+
+	protected long fetch(int offset, int limit, Consumer<? super T> action) {
+		Query<T, Object> query = new Query<>(offset, limit, sortOrders, inMemorySorting, filter);
+		long[] read = new long[1];
+		dataProvider.fetch(query).forEach(item -> {
+			action.accept(item);
+			read[0]++;
+		});
+		return read[0];
+	}
+
+	public int getPageSize() {
+		return pageSize;
+	}
+
+	public void setPageSize(int pageSize) {
+		if (pageSize<1) {
+			throw new IllegalArgumentException("Page size must be positive: " + pageSize);
+		}
+		this.pageSize = pageSize;
+	}
+
+	public List<QuerySortOrder> getSortOrders() {
+		return sortOrders;
+	}
+
+	public void setSortOrders(List<QuerySortOrder> sortOrders) {
+		this.sortOrders = sortOrders==null ? Collections.emptyList() : sortOrders;
+	}
+
+	public SerializableComparator<T> getInMemorySorting() {
+		return inMemorySorting;
+	}
+
+	public void setInMemorySorting(SerializableComparator<T> inMemorySorting) {
+		this.inMemorySorting = inMemorySorting;
+	}
+
+	public Object getFilter() {
+		return filter;
+	}
+
+	public void setFilter(Object filter) {
+		this.filter = filter;
+	}
+}
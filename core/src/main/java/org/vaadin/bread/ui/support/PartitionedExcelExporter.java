@@ -0,0 +1,217 @@
+package org.vaadin.bread.ui.support;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import com.vaadin.data.provider.DataProvider;
+import com.vaadin.data.provider.Query;
+
+/**
+ * Splits a large export into workbooks of at most {@link #getRowsPerPart()}
+ * rows, generated in parallel, each reading its own range of the data
+ * provider, and zipped in order. The zip is streamed as soon as the first part
+ * is ready while the next ones are still being generated.
+ * <p>
+ * The parts block on the backend, so they run on a fixed number of threads
+ * shared by all the exports, {@link #DEFAULT_PARALLEL_PARTS} by default; the
+ * parts beyond wait for a free thread. The data provider is queried from
+ * several threads at once and must allow it.
+ *
+ * @author Dmitrij Colautti
+ *
+ */
+public class PartitionedExcelExporter<T> {
+
+	public static final int DEFAULT_ROWS_PER_PART = 500_000;
+
+	public static final int DEFAULT_PARALLEL_PARTS = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+
+	private static final ExecutorService DEFAULT_EXECUTOR = createDefaultExecutor();
+
+	private final Supplier<BeanExcelBuilder<T>> builderFactory;
+	private int rowsPerPart = DEFAULT_ROWS_PER_PART;
+	private ExecutorService executor = DEFAULT_EXECUTOR;
+	private String partName = "export";
+
+	/**
+	 * @param builderFactory creates a configured builder for each part
+	 */
+	public PartitionedExcelExporter(Supplier<BeanExcelBuilder<T>> builderFactory) {
+		this.builderFactory = builderFactory;
+	}
+
+	private static ExecutorService createDefaultExecutor() {
+		AtomicInteger threads = new AtomicInteger();
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(DEFAULT_PARALLEL_PARTS, DEFAULT_PARALLEL_PARTS, 60,
+				TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+					Thread thread = new Thread(r, "bread-export-part-" + threads.incrementAndGet());
+					thread.setDaemon(true);
+					thread.setPriority(Thread.NORM_PRIORITY - 1);
+					return thread;
+				});
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+	public void writeZip(DataProvider<T, ?> dataProvider, OutputStream out) throws IOException {
+		BeanExcelBuilder<T> first = builderFactory.get();
+		int size = countItems(dataProvider, first);
+		int parts = Math.max(1, (size + rowsPerPart - 1) / rowsPerPart);
+
+		AtomicBoolean aborted = new AtomicBoolean();
+		List<Future<Path>> tasks = new ArrayList<>(parts);
+		for (int part = 0; part < parts; part++) {
+			BeanExcelBuilder<T> builder = part==0 ? first : builderFactory.get();
+			builder.setOffset(part * rowsPerPart);
+			builder.setLimit(rowsPerPart);
+			ExportProgressListener progressListener = builder.getProgressListener();
+			builder.setProgressListener(rows -> {
+				if (aborted.get()) {
+					throw new CancellationException();
+				}
+				if (progressListener!=null) {
+					progressListener.rowsWritten(rows);
+				}
+			});
+			tasks.add(executor.submit(() -> writePart(builder, dataProvider)));
+		}
+
+		boolean completed = false;
+		try {
+			ZipOutputStream zip = new ZipOutputStream(out);
+			for (int part = 0; part < parts; part++) {
+				Path file = join(tasks.get(part));
+				try {
+					zip.putNextEntry(new ZipEntry(partName + (parts==1 ? "" : "-" + (part + 1)) + ".xlsx"));
+					Files.copy(file, zip);
+					zip.closeEntry();
+				} finally {
+					Files.deleteIfExists(file);
+				}
+			}
+			zip.finish();
+			out.flush();
+			completed = true;
+		} finally {
+			if (!completed) {
+				// stop the parts still running and drop the ones already written
+				aborted.set(true);
+				for (Future<Path> task : tasks) {
+					if (!task.cancel(false)) {
+						deleteQuietly(task);
+					}
+				}
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	protected int countItems(DataProvider<T, ?> dataProvider, BeanExcelBuilder<T> builder) {
+		return ((DataProvider<T, Object>) dataProvider).size(new Query<>(builder.getFilter()));
+	}
+
+	protected Path writePart(BeanExcelBuilder<T> builder, DataProvider<T, ?> dataProvider) {
+		try {
+			Path file = Files.createTempFile("bread-part-", ".xlsx");
+			try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+				builder.writeExcelDocument(dataProvider, out);
+			} catch (IOException | RuntimeException e) {
+				Files.deleteIfExists(file);
+				throw e;
+			}
+			return file;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static Path join(Future<Path> task) throws IOException {
+		try {
+			return task.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for a part");
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof UncheckedIOException) {
+				throw ((UncheckedIOException) cause).getCause();
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IOException(cause);
+		}
+	}
+
+	/**
+	 * Waits for a started part and deletes its file.
+	 */
+	private static void deleteQuietly(Future<Path> task) throws IOException {
+		boolean interrupted = false;
+		while (true) {
+			try {
+				Files.deleteIfExists(task.get());
+				break;
+			} catch (InterruptedException e) {
+				// the part stops at its next row, it must not leave its file behind
+				interrupted = true;
+			} catch (ExecutionException | CancellationException e) {
+				break;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	public int getRowsPerPart() {
+		return rowsPerPart;
+	}
+
+	public void setRowsPerPart(int rowsPerPart) {
+		if (rowsPerPart<1) {
+			throw new IllegalArgumentException("Rows per part must be positive: " + rowsPerPart);
+		}
+		this.rowsPerPart = rowsPerPart;
+	}
+
+	public ExecutorService getExecutor() {
+		return executor;
+	}
+
+	/**
+	 * The threads writing the parts, which block on the data provider: its
+	 * size should match the connections the backend can spare for exports.
+	 */
+	public void setExecutor(ExecutorService executor) {
+		this.executor = executor;
+	}
+
+	public String getPartName() {
+		return partName;
+	}
+
+	public void setPartName(String partName) {
+		this.partName = partName;
+	}
+}
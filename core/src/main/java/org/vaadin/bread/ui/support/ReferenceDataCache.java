@@ -0,0 +1,150 @@
+package org.vaadin.bread.ui.support;
+
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.vaadin.server.SerializableSupplier;
+
+/**
+ * Keeps one immutable copy per node of small, rarely changing lists (the
+ * options of a combo box, e.g. all the groups) shared by every session,
+ * instead of a query and a copy per session. A list is loaded on first use
+ * and reloaded after {@link #getTimeToLiveMillis()} or after
+ * {@link #invalidate(Object)}; while one thread reloads an expired list the
+ * others keep getting the previous one.
+ * <p>
+ * The {@link ReferenceData} handed to field providers are serialized by key:
+ * after deserialization they are bound to the entry of
+ * {@link #getDefault()}.
+ *
+ * @author Dmitrij Colautti
+ *
+ */
+public class ReferenceDataCache {
+
+	public static final long DEFAULT_TIME_TO_LIVE_MILLIS = 5 * 60_000;
+
+	private static final ReferenceDataCache DEFAULT = new ReferenceDataCache(DEFAULT_TIME_TO_LIVE_MILLIS);
+
+	private final Map<Object, ReferenceData<?>> entries = new ConcurrentHashMap<>();
+	private volatile long timeToLiveMillis;
+
+	/**
+	 * A list of the cache, to be bound to the field providers in place of a collection.
+	 */
+	public static final class ReferenceData<T> implements SerializableSupplier<Collection<T>> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Object key;
+		private final SerializableSupplier<? extends Collection<? extends T>> loader;
+		private final transient ReferenceDataCache cache;
+		private final transient ReentrantLock loading = new ReentrantLock();
+		private transient volatile List<T> items;
+		private transient volatile long loadedAt;
+
+		private ReferenceData(ReferenceDataCache cache, Object key, SerializableSupplier<? extends Collection<? extends T>> loader) {
+			this.cache = cache;
+			this.key = key;
+			this.loader = loader;
+		}
+
+		/**
+		 * @return the cached list, unmodifiable
+		 */
+		@Override
+		public List<T> get() {
+			List<T> current = items;
+			if (current!=null && System.currentTimeMillis() - loadedAt<cache.timeToLiveMillis) {
+				return current;
+			}
+			if (current!=null && !loading.tryLock()) {
+				return current;
+			}
+			if (current==null) {
+				loading.lock();
+			}
+			try {
+				if (items==null || items==current) {
+					load();
+				}
+				return items;
+			} finally {
+				loading.unlock();
+			}
+		}
+
+		private void load() {
+			Collection<? extends T> loaded = loader.get();
+			items = Collections.unmodifiableList(loaded==null ? new ArrayList<>() : new ArrayList<>(loaded));
+			loadedAt = System.currentTimeMillis();
+		}
+
+		private void invalidate() {
+			items = null;
+		}
+
+		public Object getKey() {
+			return key;
+		}
+
+		private Object readResolve() throws ObjectStreamException {
+			return DEFAULT.get(key, loader);
+		}
+	}
+
+	public ReferenceDataCache(long timeToLiveMillis) {
+		this.timeToLiveMillis = timeToLiveMillis;
+	}
+
+	/**
+	 * @return the cache shared by the whole application
+	 */
+	public static ReferenceDataCache getDefault() {
+		return DEFAULT;
+	}
+
+	/**
+	 * @return the list of <code>type</code>, loaded by <code>loader</code> the first time
+	 */
+	public <T> ReferenceData<T> get(Class<T> type, SerializableSupplier<? extends Collection<? extends T>> loader) {
+		return get((Object) type, loader);
+	}
+
+	/**
+	 * @param key e.g. a name, when a type has several lists
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> ReferenceData<T> get(Object key, SerializableSupplier<? extends Collection<? extends T>> loader) {
+		return (ReferenceData<T>) entries.computeIfAbsent(key, k -> new ReferenceData<>(this, k, loader));
+	}
+
+	/**
+	 * The list is reloaded on its next use.
+	 */
+	public void invalidate(Object key) {
+		ReferenceData<?> data = entries.get(key);
+		if (data!=null) {
+			data.invalidate();
+		}
+	}
+
+	public void invalidateAll() {
+		entries.values().forEach(ReferenceData::invalidate);
+	}
+
+	public long getTimeToLiveMillis() {
+		return timeToLiveMillis;
+	}
+
+	public void setTimeToLiveMillis(long timeToLiveMillis) {
+		this.timeToLiveMillis = timeToLiveMillis;
+	}
+}
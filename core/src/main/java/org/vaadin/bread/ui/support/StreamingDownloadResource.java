@@ -0,0 +1,168 @@
+package org.vaadin.bread.ui.support;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.vaadin.server.ConnectorResource;
+import com.vaadin.server.DownloadStream;
+
+/**
+ * A {@link ConnectorResource} whose content is written by a background thread
+ * into a pipe that the download response reads from, at most
+ * {@link #getPipeSize()} bytes are buffered between the two. The bytes reach
+ * the client as soon as the writer produces them: a CSV is sent while its
+ * rows are read, whereas an XLSX workbook is only written once all its rows
+ * are generated (by <code>SXSSFWorkbook</code> into temporary files), so its
+ * first byte waits for the whole generation.
+ * <p>
+ * The writers run on a bounded pool, shared by all the downloads of the
+ * application unless {@link #setExecutor(Executor)} is given another one:
+ * at most {@link #DEFAULT_MAX_CONCURRENT_WRITERS} write at once, the next
+ * {@link #DEFAULT_MAX_QUEUED_WRITERS} wait for a free thread and further
+ * downloads fail.
+ * <p>
+ * When the download is aborted the pipe is closed by the response, the next
+ * write of the producer fails and the producer releases its resources.
+ * 
+ * @author Dmitrij Colautti
+ *
+ */
+public abstract class StreamingDownloadResource implements ConnectorResource {
+
+	public static final int DEFAULT_PIPE_SIZE = 64 * 1024;
+	public static final int DEFAULT_MAX_CONCURRENT_WRITERS = 16;
+	public static final int DEFAULT_MAX_QUEUED_WRITERS = 64;
+
+	private static final Executor DEFAULT_EXECUTOR = createDefaultExecutor();
+
+	@FunctionalInterface
+	public interface ContentWriter {
+		void writeTo(OutputStream out) throws IOException;
+	}
+
+	private int pipeSize = DEFAULT_PIPE_SIZE;
+	private transient Executor executor;
+
+	private static Executor createDefaultExecutor() {
+		AtomicInteger threads = new AtomicInteger();
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(DEFAULT_MAX_CONCURRENT_WRITERS,
+				DEFAULT_MAX_CONCURRENT_WRITERS, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(DEFAULT_MAX_QUEUED_WRITERS),
+				r -> {
+					Thread thread = new Thread(r, "bread-download-" + threads.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				});
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+	/**
+	 * Called by {@link #getStream()} while the session is locked: read here
+	 * any UI state the content depends on. The returned writer runs on a
+	 * separate thread, without the session lock.
+	 */
+	protected abstract ContentWriter prepareContent();
+
+	/**
+	 * @throws RejectedExecutionException when too many downloads are already being written
+	 */
+	@Override
+	public DownloadStream getStream() {
+		ContentWriter writer = prepareContent();
+
+		FailingPipedInputStream in = new FailingPipedInputStream(pipeSize);
+		PipedOutputStream out;
+		try {
+			out = new PipedOutputStream(in);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+
+		getExecutor().execute(() -> {
+			try {
+				writer.writeTo(out);
+			} catch (Throwable e) {
+				in.fail(e);
+			} finally {
+				try {
+					out.close();
+				} catch (IOException e) {
+					// the reader is gone already
+				}
+			}
+		});
+
+		return new DownloadStream(in, getMIMEType(), getFilename());
+	}
+
+	public int getPipeSize() {
+		return pipeSize;
+	}
+
+	public void setPipeSize(int pipeSize) {
+		this.pipeSize = pipeSize;
+	}
+
+	public Executor getExecutor() {
+		return executor==null ? DEFAULT_EXECUTOR : executor;
+	}
+
+	/**
+	 * Runs the writers of this resource on <code>executor</code>. It is not
+	 * serialized with the session, the default pool is used after
+	 * deserialization.
+	 */
+	public void setExecutor(Executor executor) {
+		this.executor = executor;
+	}
+
+	/**
+	 * Reports a failure of the producer to the reader instead of a silently
+	 * truncated download.
+	 */
+	private static class FailingPipedInputStream extends PipedInputStream {
+
+		private volatile Throwable failure;
+
+		FailingPipedInputStream(int pipeSize) {
+			super(pipeSize);
+		}
+
+		void fail(Throwable failure) {
+			this.failure = failure;
+		}
+
+		@Override
+		public synchronized int read() throws IOException {
+			int read = super.read();
+			if (read<0) {
+				checkFailure();
+			}
+			return read;
+		}
+
+		@Override
+		public synchronized int read(byte[] b, int off, int len) throws IOException {
+			int read = super.read(b, off, len);
+			if (read<0) {
+				checkFailure();
+			}
+			return read;
+		}
+
+		private void checkFailure() throws IOException {
+			if (failure!=null) {
+				throw new IOException("Download content could not be written", failure);
+			}
+		}
+	}
+}
@@ -0,0 +1,133 @@
+package org.vaadin.bread.ui.support;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.apache.poi.UnsupportedFileFormatException;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.SAXHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+/**
+ * Reads the rows of one sheet of an XLSX file with the SAX event model, so
+ * that only the current row (and the shared strings table) is in memory.
+ * Numbers are reported as plain decimals and dates as ISO text, whatever
+ * their cell format.
+ *
+ * @author Dmitrij Colautti
+ *
+ */
+public class XlsxRowReader {
+
+	private final int sheetIndex;
+
+	public XlsxRowReader(int sheetIndex) {
+		this.sheetIndex = sheetIndex;
+	}
+
+	public void read(File file, BeanImporter.RowHandler handler) throws IOException {
+		OPCPackage pkg;
+		try {
+			pkg = OPCPackage.open(file, PackageAccess.READ);
+		} catch (OpenXML4JException | UnsupportedFileFormatException e) {
+			throw new IOException("Not an XLSX file: " + file, e);
+		}
+		try {
+			XSSFReader reader = new XSSFReader(pkg);
+			ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+
+			XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+			for (int i = 0; i < sheetIndex && sheets.hasNext(); i++) {
+				sheets.next().close();
+			}
+			if (!sheets.hasNext()) {
+				throw new IOException("Sheet " + sheetIndex + " not found");
+			}
+
+			try (InputStream sheet = sheets.next()) {
+				XMLReader parser = SAXHelper.newXMLReader();
+				parser.setContentHandler(new XSSFSheetXMLHandler(reader.getStylesTable(), null, strings,
+						new RowCollector(handler), new RawValueFormatter(), false));
+				parser.parse(new InputSource(sheet));
+			}
+		} catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+			throw new IOException("Could not read " + file, e);
+		} finally {
+			pkg.revert();
+		}
+	}
+
+	private static class RowCollector implements XSSFSheetXMLHandler.SheetContentsHandler {
+
+		private final BeanImporter.RowHandler handler;
+		private List<String> cells = new ArrayList<>();
+
+		RowCollector(BeanImporter.RowHandler handler) {
+			this.handler = handler;
+		}
+
+		@Override
+		public void startRow(int rowNum) {
+			cells = new ArrayList<>(cells.size());
+		}
+
+		@Override
+		public void endRow(int rowNum) {
+			if (!cells.isEmpty()) {
+				handler.row(rowNum + 1, cells);
+			}
+		}
+
+		@Override
+		public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+			// blank cells are not reported, fill the gap
+			int column = cellReference==null ? cells.size() : new CellReference(cellReference).getCol();
+			while (cells.size()<column) {
+				cells.add("");
+			}
+			cells.add(formattedValue==null ? "" : formattedValue);
+		}
+
+		@Override
+		public void headerFooter(String text, boolean isHeader, String tagName) {
+		}
+	}
+
+	/**
+	 * Ignores display formats so that values can be parsed back.
+	 */
+	private static class RawValueFormatter extends DataFormatter {
+
+		@Override
+		public String formatRawCellContents(double value, int formatIndex, String formatString, boolean use1904Windowing) {
+			if (DateUtil.isADateFormat(formatIndex, formatString) && DateUtil.isValidExcelDate(value)) {
+				LocalDateTime dateTime = LocalDateTime.ofInstant(
+						DateUtil.getJavaDate(value, use1904Windowing, null, true).toInstant(), ZoneId.systemDefault());
+				if (dateTime.toLocalTime().toSecondOfDay()==0) {
+					return dateTime.toLocalDate().toString();
+				}
+				return dateTime.toString();
+			}
+			return BigDecimal.valueOf(value).stripTrailingZeros().toPlainString();
+		}
+	}
+}
@@ -0,0 +1,117 @@
+package org.vaadin.bread.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.vaadin.bread.ui.support.BeanImporter;
+import org.vaadin.bread.ui.support.ImportResult;
+
+public class BeanImporterTest {
+
+    private final List<List<Person>> batches = new ArrayList<>();
+
+    @Test
+    public void columnsMatchedByHeader() throws IOException {
+        BeanImporter<Person> importer = importer();
+        ImportResult result = importer.importCsv(new StringReader("Age,name,ignored\n30,Alice,x\n41,Bob,y\n"));
+
+        assertEquals(2, result.getRowsRead());
+        assertEquals(2, result.getRowsImported());
+        assertEquals("Alice", batches.get(0).get(0).getName());
+        assertEquals(41, batches.get(0).get(1).getAge());
+    }
+
+    @Test
+    public void withoutHeadersTheFirstRowIsData() throws IOException {
+        BeanImporter<Person> importer = importer();
+        importer.setHeaders(false);
+        importer.setProperties("name", "age");
+        ImportResult result = importer.importCsv(new StringReader("Alice,30\nBob,41\n"));
+
+        assertEquals(2, result.getRowsImported());
+        assertEquals("Alice", batches.get(0).get(0).getName());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void withoutHeadersThePropertiesAreRequired() throws IOException {
+        BeanImporter<Person> importer = importer();
+        importer.setHeaders(false);
+        importer.importCsv(new StringReader("Alice,30\n"));
+    }
+
+    @Test
+    public void validRowsArePassedInBatches() throws IOException {
+        BeanImporter<Person> importer = importer();
+        importer.setBatchSize(2);
+        ImportResult result = importer.importCsv(new StringReader("name,age\na,1\nb,x\nc,3\nd,4\ne,5\n"));
+
+        assertEquals(5, result.getRowsRead());
+        assertEquals(4, result.getRowsImported());
+        assertEquals(1, result.getErrorCount());
+        assertEquals(3, result.getErrors().get(0).getRowNumber());
+        assertEquals(2, batches.size());
+        assertEquals("a", batches.get(0).get(0).getName());
+        assertEquals("c", batches.get(0).get(1).getName());
+        assertEquals(2, batches.get(1).size());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void headersMatchingNoPropertyFail() throws IOException {
+        importer().importCsv(new StringReader("first,second\nAlice,30\n"));
+    }
+
+    @Test
+    public void failedBatchIsReportedOnTheFailingRow() throws IOException {
+        BeanImporter<Person> importer = new BeanImporter<>(Person.class, added -> {
+            if (added.stream().anyMatch(person -> "c".equals(person.getName()))) {
+                throw new IllegalArgumentException("duplicate");
+            }
+            batches.add(new ArrayList<>(added));
+            return added;
+        });
+        importer.setValidate(false);
+        importer.setBatchSize(4);
+        ImportResult result = importer.importCsv(new StringReader("name,age\na,1\nb,2\nc,3\nd,4\n"));
+
+        assertEquals(3, result.getRowsImported());
+        assertEquals(1, result.getErrorCount());
+        assertEquals(4, result.getErrors().get(0).getRowNumber());
+        assertEquals("duplicate", result.getErrors().get(0).getMessage());
+    }
+
+    private BeanImporter<Person> importer() {
+        BeanImporter<Person> importer = new BeanImporter<>(Person.class, added -> {
+            batches.add(new ArrayList<>(added));
+            return added;
+        });
+        importer.setValidate(false);
+        return importer;
+    }
+
+    public static class Person {
+
+        private String name;
+        private int age;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public int getAge() {
+            return age;
+        }
+
+        public void setAge(int age) {
+            this.age = age;
+        }
+    }
+}
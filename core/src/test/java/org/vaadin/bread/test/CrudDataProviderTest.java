@@ -0,0 +1,184 @@
+package org.vaadin.bread.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+import org.vaadin.bread.data.provider.CrudDataProvider;
+import org.vaadin.bread.data.provider.FetchWithCount;
+
+import com.vaadin.data.provider.DataProvider;
+import com.vaadin.data.provider.Query;
+import com.vaadin.data.provider.QuerySortOrder;
+
+public class CrudDataProviderTest {
+
+    private final List<String> items = IntStream.range(0, 100).mapToObj(i -> "item-" + i).collect(Collectors.toList());
+    private int fetches;
+    private int counts;
+    private int refreshes;
+
+    private final DataProvider<String, String> backend = DataProvider.fromFilteringCallbacks(query -> {
+        fetches++;
+        return items.stream().skip(query.getOffset()).limit(query.getLimit());
+    }, query -> {
+        counts++;
+        return items.size();
+    });
+
+    @Test
+    public void sizeIsCountedOncePerFilter() {
+        CrudDataProvider<String, String> dataProvider = new CrudDataProvider<>(backend);
+
+        assertEquals(100, size(dataProvider, null));
+        assertEquals(100, size(dataProvider, null));
+        assertEquals(1, counts);
+
+        size(dataProvider, "a");
+        assertEquals(2, counts);
+    }
+
+    @Test
+    public void addedAndRemovedItemsDontRecount() {
+        CrudDataProvider<String, String> dataProvider = new CrudDataProvider<>(backend);
+        dataProvider.addDataProviderListener(event -> refreshes++);
+        size(dataProvider, null);
+
+        dataProvider.itemAdded("new");
+        assertEquals(101, size(dataProvider, null));
+        dataProvider.itemRemoved("new");
+        dataProvider.itemRemoved("item-0");
+        assertEquals(99, size(dataProvider, null));
+
+        assertEquals(1, counts);
+        assertEquals(3, refreshes);
+    }
+
+    @Test
+    public void refreshesRecount() {
+        CrudDataProvider<String, String> dataProvider = new CrudDataProvider<>(backend);
+        size(dataProvider, null);
+
+        dataProvider.refreshAll();
+        size(dataProvider, null);
+        assertEquals(2, counts);
+
+        // by someone else
+        backend.refreshAll();
+        size(dataProvider, null);
+        assertEquals(3, counts);
+    }
+
+    @Test
+    public void itemsAreIdentifiedByTheIdGetter() {
+        CrudDataProvider<String, String> dataProvider = new CrudDataProvider<>(backend, item -> item.substring(item.indexOf('-') + 1));
+
+        assertEquals("7", dataProvider.getId("item-7"));
+        assertEquals("item-7", new CrudDataProvider<>(backend).getId("item-7"));
+    }
+
+    @Test
+    public void countOperationReplacesTheWrappedCount() {
+        CrudDataProvider<String, String> dataProvider = new CrudDataProvider<>(backend);
+        dataProvider.setCountOperation(query -> 42);
+
+        assertEquals(42, size(dataProvider, null));
+        assertEquals(0, counts);
+    }
+
+    @Test
+    public void fetchWithCountAnswersTheFirstPage() {
+        CrudDataProvider<String, String> dataProvider = new CrudDataProvider<>(backend);
+        List<Query<String, ?>> pageQueries = new ArrayList<>();
+        dataProvider.setFetchWithCount(fetchWithCount(pageQueries));
+        dataProvider.setFirstPageSize(10);
+
+        assertEquals(100, size(dataProvider, null));
+        assertEquals(items.subList(0, 10), fetch(dataProvider, 0, 10, Collections.emptyList()));
+        assertEquals(0, fetches);
+        assertEquals(0, counts);
+
+        // used once
+        fetch(dataProvider, 0, 10, Collections.emptyList());
+        assertEquals(1, fetches);
+    }
+
+    @Test
+    public void firstPageOfAnotherQueryGoesToTheBackend() {
+        CrudDataProvider<String, String> dataProvider = new CrudDataProvider<>(backend);
+        List<Query<String, ?>> pageQueries = new ArrayList<>();
+        dataProvider.setFetchWithCount(fetchWithCount(pageQueries));
+        dataProvider.setFirstPageSize(10);
+
+        size(dataProvider, null);
+        assertEquals(items.subList(0, 20), fetch(dataProvider, 0, 20, Collections.emptyList()));
+        assertEquals(1, fetches);
+
+        dataProvider.refreshAll();
+        size(dataProvider, null);
+        fetch(dataProvider, 0, 10, QuerySortOrder.desc("name").build());
+        assertEquals(2, fetches);
+
+        // the next count loads the page with the last sorting
+        dataProvider.refreshAll();
+        size(dataProvider, null);
+        assertEquals("name", pageQueries.get(2).getSortOrders().get(0).getSorted());
+        fetch(dataProvider, 0, 10, QuerySortOrder.desc("name").build());
+        assertEquals(2, fetches);
+    }
+
+    @Test
+    public void cachedCountSkipsTheFetchWithCount() {
+        CrudDataProvider<String, String> dataProvider = new CrudDataProvider<>(backend);
+        List<Query<String, ?>> pageQueries = new ArrayList<>();
+        dataProvider.setFetchWithCount(fetchWithCount(pageQueries));
+        Map<String, Integer> counts = new HashMap<>();
+        dataProvider.setCountCache(new CrudDataProvider.CountCache<String>() {
+
+            @Override
+            public Integer get(Query<String, ?> query) {
+                return counts.get(query.getFilter().orElse(null));
+            }
+
+            @Override
+            public void put(Query<String, ?> query, int count) {
+                counts.put((String) query.getFilter().orElse(null), count);
+            }
+        });
+
+        assertEquals(100, size(dataProvider, "a"));
+        assertEquals(Integer.valueOf(100), counts.get("a"));
+        assertEquals(1, pageQueries.size());
+
+        dataProvider.refreshAll();
+        assertEquals(100, size(dataProvider, "a"));
+        assertEquals(1, pageQueries.size());
+        // the first page is then read as usual
+        fetch(dataProvider, 0, 10, Collections.emptyList());
+        assertEquals(1, fetches);
+    }
+
+    private FetchWithCount<String> fetchWithCount(List<Query<String, ?>> pageQueries) {
+        return query -> {
+            pageQueries.add(query);
+            return new FetchWithCount.Page<>(items.stream().skip(query.getOffset()).limit(query.getLimit())
+                    .collect(Collectors.toList()), items.size());
+        };
+    }
+
+    private static int size(CrudDataProvider<String, String> dataProvider, String filter) {
+        return dataProvider.size(new Query<>(filter));
+    }
+
+    private static List<String> fetch(CrudDataProvider<String, String> dataProvider, int offset, int limit,
+            List<QuerySortOrder> sortOrders) {
+        return dataProvider.fetch(new Query<>(offset, limit, sortOrders, null, null)).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,94 @@
+package org.vaadin.bread.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.vaadin.bread.ui.support.CsvRowReader;
+
+public class CsvRowReaderTest {
+
+    @Test
+    public void plainRows() throws IOException {
+        assertEquals(Arrays.asList(row(1, "a", "b", "c"), row(2, "d", "", "f")), read(',', "a,b,c\nd,,f\n"));
+    }
+
+    @Test
+    public void lineEndings() throws IOException {
+        assertEquals(Arrays.asList(row(1, "a"), row(2, "b"), row(3, "c"), row(4, "d")), read(',', "a\r\nb\rc\nd"));
+    }
+
+    @Test
+    public void emptyLinesAreSkipped() throws IOException {
+        assertEquals(Arrays.asList(row(1, "a"), row(3, "b")), read(',', "a\n\nb\n\n"));
+    }
+
+    @Test
+    public void byteOrderMarkIsSkipped() throws IOException {
+        assertEquals(Arrays.asList(row(1, "name", "age")), read(',', "﻿name,age"));
+    }
+
+    @Test
+    public void quotedSeparatorsAndQuotes() throws IOException {
+        assertEquals(Arrays.asList(row(1, "a,b", "say \"hi\"", "")), read(',', "\"a,b\",\"say \"\"hi\"\"\",\"\""));
+    }
+
+    @Test
+    public void quotedLineBreaks() throws IOException {
+        // rows are numbered by record, a quoted line break doesn't start one
+        assertEquals(Arrays.asList(row(1, "line 1\r\nline 2", "x"), row(2, "y", "z")),
+                read(',', "\"line 1\r\nline 2\",x\r\ny,z\r\n"));
+    }
+
+    @Test
+    public void quoteInsideUnquotedCellIsKept() throws IOException {
+        assertEquals(Arrays.asList(row(1, "5\" disk", "b")), read(',', "5\" disk,b"));
+    }
+
+    @Test
+    public void otherSeparator() throws IOException {
+        assertEquals(Arrays.asList(row(1, "a,b", "c")), read('\t', "a,b\tc"));
+    }
+
+    @Test
+    public void rowsSpanningTheBuffer() throws IOException {
+        StringBuilder csv = new StringBuilder();
+        List<List<Object>> expected = new ArrayList<>();
+        for (int i = 1; i <= 2000; i++) {
+            csv.append("\"value ").append(i).append("\",").append(i).append('\n');
+            expected.add(row(i, "value " + i, String.valueOf(i)));
+        }
+        assertEquals(expected, read(',', csv.toString()));
+    }
+
+    @Test(expected = IOException.class)
+    public void unterminatedQuote() throws IOException {
+        read(',', "a,\"b\nc");
+    }
+
+    private static List<List<Object>> read(char separator, String csv) throws IOException {
+        List<List<Object>> rows = new ArrayList<>();
+        try (Reader reader = new StringReader(csv)) {
+            new CsvRowReader(separator).read(reader, (rowNumber, cells) -> {
+                List<Object> row = new ArrayList<>();
+                row.add(rowNumber);
+                row.addAll(cells);
+                rows.add(row);
+            });
+        }
+        return rows;
+    }
+
+    private static List<Object> row(long rowNumber, String... cells) {
+        List<Object> row = new ArrayList<>();
+        row.add(rowNumber);
+        row.addAll(Arrays.asList(cells));
+        return row;
+    }
+}
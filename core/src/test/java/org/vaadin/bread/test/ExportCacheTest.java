@@ -0,0 +1,147 @@
+package org.vaadin.bread.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.vaadin.bread.ui.support.ExportCache;
+import org.vaadin.bread.ui.support.StreamingDownloadResource.ContentWriter;
+
+public class ExportCacheTest {
+
+    private Path directory;
+    private ExportCache cache;
+    private final AtomicInteger writes = new AtomicInteger();
+
+    @Before
+    public void createCache() throws IOException {
+        directory = Files.createTempDirectory("export-cache-test");
+        cache = new ExportCache(directory, 1024);
+    }
+
+    @After
+    public void deleteCache() throws IOException {
+        cache.clear();
+        Files.deleteIfExists(directory);
+    }
+
+    @Test
+    public void secondDownloadIsServedFromTheFile() throws IOException {
+        ExportCache.Key key = key(String.class, "scope", "sig");
+
+        assertArrayEquals(bytes("data"), download(key, "data"));
+        assertArrayEquals(bytes("data"), download(key, "other"));
+        assertEquals(1, writes.get());
+        assertEquals(1, cache.size());
+        assertEquals(4, cache.getTotalBytes());
+    }
+
+    @Test
+    public void keysOfOtherScopesOrSignaturesMiss() throws IOException {
+        download(key(String.class, "alice", "sig"), "alice");
+
+        assertArrayEquals(bytes("bob"), download(key(String.class, "bob", "sig"), "bob"));
+        assertArrayEquals(bytes("sorted"), download(key(String.class, "alice", "sorted"), "sorted"));
+        assertArrayEquals(bytes("int"), download(key(Integer.class, "alice", "sig"), "int"));
+        assertEquals(4, writes.get());
+    }
+
+    @Test
+    public void invalidateDropsTheExportsOfTheType() throws IOException {
+        download(key(String.class, "a", "sig"), "string");
+        download(key(Integer.class, "a", "sig"), "integer");
+
+        cache.invalidate(String.class);
+        assertEquals(1, cache.size());
+        assertArrayEquals(bytes("new"), download(key(String.class, "a", "sig"), "new"));
+        assertArrayEquals(bytes("integer"), download(key(Integer.class, "a", "sig"), "other"));
+        assertEquals(3, writes.get());
+    }
+
+    @Test
+    public void exportRunningWhileInvalidatedIsNotCached() throws IOException {
+        ExportCache.Key key = key(String.class, "a", "sig");
+        ContentWriter writer = cache.cached(key, out -> {
+            out.write(bytes("stale"));
+            cache.invalidate(String.class);
+        });
+        writer.writeTo(new ByteArrayOutputStream());
+
+        assertEquals(0, cache.size());
+        assertArrayEquals(bytes("fresh"), download(key, "fresh"));
+    }
+
+    @Test
+    public void entryDroppedBeforeTheWriterRunsFallsBackToTheExport() throws IOException {
+        ExportCache.Key key = key(String.class, "a", "sig");
+        download(key, "stale");
+        ContentWriter writer = cache.cached(key, out -> out.write(bytes("fresh")));
+        cache.invalidate(String.class);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.writeTo(out);
+        assertArrayEquals(bytes("fresh"), out.toByteArray());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void failedExportIsNotCached() throws IOException {
+        ExportCache.Key key = key(String.class, "a", "sig");
+        try {
+            cache.cached(key, out -> {
+                out.write(bytes("partial"));
+                throw new IOException("broken");
+            }).writeTo(new ByteArrayOutputStream());
+        } catch (IOException expected) {
+            // expected
+        }
+
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getTotalBytes());
+    }
+
+    @Test
+    public void leastRecentlyUsedExportsAreEvicted() throws IOException {
+        cache.setMaxBytes(10);
+        ExportCache.Key first = key(String.class, "a", "1");
+        ExportCache.Key second = key(String.class, "a", "2");
+        ExportCache.Key third = key(String.class, "a", "3");
+
+        download(first, "aaaa");
+        download(second, "bbbb");
+        download(first, "aaaa");
+        download(third, "cccc");
+
+        assertEquals(2, cache.size());
+        assertEquals(8, cache.getTotalBytes());
+        download(first, "aaaa");
+        download(second, "bbbb");
+        assertEquals(4, writes.get());
+    }
+
+    private byte[] download(ExportCache.Key key, String content) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        cache.cached(key, o -> {
+            writes.incrementAndGet();
+            o.write(bytes(content));
+        }).writeTo(out);
+        return out.toByteArray();
+    }
+
+    private static ExportCache.Key key(Class<?> domainType, String scope, String signature) {
+        return new ExportCache.Key(domainType, scope, "CSV", signature);
+    }
+
+    private static byte[] bytes(String content) {
+        return content.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,166 @@
+package org.vaadin.bread.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+import org.vaadin.bread.ui.support.ExportJob;
+import org.vaadin.bread.ui.support.ExportJobManager;
+
+public class ExportJobTest {
+
+    private final ExportJobManager manager = new ExportJobManager(1, 1);
+
+    @After
+    public void shutdown() {
+        manager.shutdown();
+    }
+
+    @Test
+    public void completedJobKeepsFileUntilDiscarded() throws Exception {
+        ExportJob job = new ExportJob("test.txt", "text/plain", (out, progress) -> {
+            out.write(new byte[] { 1, 2, 3 });
+            progress.rowsWritten(3);
+        });
+        CountDownLatch done = new CountDownLatch(1);
+        job.addListener(j -> {
+            if (j.isDone()) {
+                done.countDown();
+            }
+        });
+
+        manager.submit(job);
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(ExportJob.State.COMPLETED, job.getState());
+        assertEquals(3, job.getRowsWritten());
+        File file = job.getFile();
+        assertArrayEquals(new byte[] { 1, 2, 3 }, Files.readAllBytes(file.toPath()));
+
+        job.discard();
+        assertNull(job.getFile());
+        assertFalse(file.exists());
+    }
+
+    @Test
+    public void cancelStopsWritesWithoutProgress() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        ExportJob job = new ExportJob("test.bin", "application/octet-stream", (out, progress) -> {
+            // like Workbook.write: bytes only, no progress notification
+            byte[] chunk = new byte[1024];
+            for (int i = 0; i < 100000; i++) {
+                out.write(chunk);
+                writing.countDown();
+                Thread.yield();
+            }
+        });
+        CountDownLatch done = doneLatch(job);
+
+        manager.submit(job);
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        job.cancel();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(ExportJob.State.CANCELLED, job.getState());
+        assertNull(job.getFile());
+    }
+
+    @Test
+    public void cancelStopsAtProgressNotification() throws Exception {
+        CountDownLatch running = new CountDownLatch(1);
+        ExportJob job = new ExportJob("test.txt", "text/plain", (out, progress) -> {
+            for (long rows = 1; ; rows++) {
+                progress.rowsWritten(rows);
+                running.countDown();
+            }
+        });
+        CountDownLatch done = doneLatch(job);
+
+        manager.submit(job);
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        job.cancel();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(ExportJob.State.CANCELLED, job.getState());
+    }
+
+    @Test
+    public void failureIsReported() throws Exception {
+        IllegalStateException failure = new IllegalStateException("broken");
+        ExportJob job = new ExportJob("test.txt", "text/plain", (out, progress) -> {
+            throw failure;
+        });
+        CountDownLatch done = doneLatch(job);
+
+        manager.submit(job);
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(ExportJob.State.FAILED, job.getState());
+        assertEquals(failure, job.getFailure());
+    }
+
+    @Test
+    public void queuedJobCancelledBeforeStarting() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        ExportJob blocking = new ExportJob("a.txt", "text/plain", (out, progress) -> await(release));
+        ExportJob queued = new ExportJob("b.txt", "text/plain", (out, progress) -> fail("cancelled job ran"));
+        CountDownLatch blockingDone = doneLatch(blocking);
+
+        manager.submit(blocking);
+        manager.submit(queued);
+        queued.cancel();
+        assertEquals(ExportJob.State.CANCELLED, queued.getState());
+
+        release.countDown();
+        assertTrue(blockingDone.await(5, TimeUnit.SECONDS));
+        blocking.discard();
+    }
+
+    @Test
+    public void submissionsBeyondTheQueueAreRejected() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExportJob running = new ExportJob("a.txt", "text/plain", (out, progress) -> {
+            started.countDown();
+            await(release);
+        });
+        manager.submit(running);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        manager.submit(new ExportJob("b.txt", "text/plain", (out, progress) -> { }));
+        assertEquals(1, manager.getQueuedExports());
+
+        try {
+            manager.submit(new ExportJob("c.txt", "text/plain", (out, progress) -> { }));
+            fail("the queue is full");
+        } catch (RejectedExecutionException expected) {
+            // expected
+        } finally {
+            release.countDown();
+        }
+    }
+
+    private static CountDownLatch doneLatch(ExportJob job) {
+        CountDownLatch done = new CountDownLatch(1);
+        job.addListener(j -> {
+            if (j.isDone()) {
+                done.countDown();
+            }
+        });
+        return done;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package org.vaadin.bread.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.persistence.Id;
+
+import org.junit.Test;
+import org.vaadin.bread.ui.support.FilterSignature;
+
+import com.vaadin.data.provider.QuerySortOrder;
+
+public class FilterSignatureTest {
+
+    private static final List<QuerySortOrder> BY_NAME = QuerySortOrder.asc("name").build();
+
+    @Test
+    public void equalFiltersGiveEqualSignatures() {
+        FilterSignature first = FilterSignature.of(filter("a", 1, null), BY_NAME);
+        FilterSignature second = FilterSignature.of(filter("a", 1, null), BY_NAME);
+
+        assertEquals(first, second);
+        assertEquals(first.hashCode(), second.hashCode());
+        assertTrue(first.isDigestible());
+        assertNotNull(first.getDigest());
+        assertEquals(first.getDigest(), second.getDigest());
+    }
+
+    @Test
+    public void differentValuesOrSortingGiveDifferentSignatures() {
+        FilterSignature signature = FilterSignature.of(filter("a", 1, null), BY_NAME);
+
+        assertNotEquals(signature, FilterSignature.of(filter("b", 1, null), BY_NAME));
+        assertNotEquals(signature, FilterSignature.of(filter("a", 2, null), BY_NAME));
+        assertNotEquals(signature, FilterSignature.of(filter("a", 1, null), QuerySortOrder.desc("name").build()));
+        assertNotEquals(signature, FilterSignature.of(filter("a", 1, null), Collections.emptyList()));
+        assertNotEquals(signature.getDigest(), FilterSignature.of(filter("b", 1, null), BY_NAME).getDigest());
+    }
+
+    @Test
+    public void simpleValuesAndCollections() {
+        assertEquals(FilterSignature.of("x", null), FilterSignature.of("x", null));
+        assertNotEquals(FilterSignature.of("1", null), FilterSignature.of(1, null));
+        assertEquals(FilterSignature.of(Arrays.asList(1, 2), null), FilterSignature.of(Arrays.asList(1, 2), null));
+        assertNotEquals(FilterSignature.of(Arrays.asList(1, 2), null), FilterSignature.of(Arrays.asList(2, 1), null));
+        assertEquals(FilterSignature.of(null, null), FilterSignature.of(null, Collections.emptyList()));
+    }
+
+    @Test
+    public void otherValuesAreComparedWithEquals() {
+        FilterSignature first = FilterSignature.of(filter("a", 1, new Group(1L)), BY_NAME);
+
+        assertEquals(first, FilterSignature.of(filter("a", 1, new Group(1L)), BY_NAME));
+        // same hashCode, not equal
+        assertNotEquals(first, FilterSignature.of(filter("a", 1, new Group(2L)), BY_NAME));
+        assertFalse(first.isDigestible());
+        assertNull(first.getDigest());
+    }
+
+    @Test
+    public void entitiesAreDescribedByClassAndId() {
+        FilterSignature first = FilterSignature.of(Collections.singletonList(new Department(1L, "a")), null);
+
+        assertTrue(first.isDigestible());
+        assertEquals(first.getDigest(), FilterSignature.of(Collections.singletonList(new Department(1L, "b")), null).getDigest());
+        assertNotEquals(first.getDigest(), FilterSignature.of(Collections.singletonList(new Department(2L, "a")), null).getDigest());
+        // not persisted yet
+        assertFalse(FilterSignature.of(Collections.singletonList(new Department(null, "a")), null).isDigestible());
+    }
+
+    @Test
+    public void withAppendsAnotherState() {
+        FilterSignature signature = FilterSignature.of(filter("a", 1, null), BY_NAME);
+
+        assertNotEquals(signature, signature.with(null, BY_NAME));
+        assertEquals(signature.with("inner", null), signature.with("inner", null));
+        assertNotEquals(signature.with("inner", null), signature.with("other", null));
+        assertNull(signature.with(filter("a", 1, new Group(1L)), null).getDigest());
+    }
+
+    private static Filter filter(String name, int age, Group group) {
+        Filter filter = new Filter();
+        filter.setName(name);
+        filter.setAge(age);
+        filter.setGroup(group);
+        return filter;
+    }
+
+    public static class Filter {
+
+        private String name;
+        private int age;
+        private Group group;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public int getAge() {
+            return age;
+        }
+
+        public void setAge(int age) {
+            this.age = age;
+        }
+
+        public Group getGroup() {
+            return group;
+        }
+
+        public void setGroup(Group group) {
+            this.group = group;
+        }
+    }
+
+    public static class Department {
+
+        @Id
+        private Long id;
+        private String name;
+
+        public Department(Long id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    /**
+     * Like an entity hashing by class only.
+     */
+    public static class Group {
+
+        private final Long id;
+
+        public Group(Long id) {
+            this.id = id;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Group && id.equals(((Group) obj).id);
+        }
+
+        @Override
+        public int hashCode() {
+            return Group.class.hashCode();
+        }
+    }
+}
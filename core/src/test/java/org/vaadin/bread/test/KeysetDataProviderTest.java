@@ -0,0 +1,148 @@
+package org.vaadin.bread.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+import org.vaadin.bread.data.provider.KeysetDataProvider;
+
+import com.vaadin.data.provider.Query;
+import com.vaadin.data.provider.QuerySortOrder;
+
+public class KeysetDataProviderTest {
+
+    private static final int SIZE = 100;
+
+    private final List<Integer> afterKeys = new ArrayList<>();
+    private final List<Integer> limits = new ArrayList<>();
+    private final List<Integer> offsetFetches = new ArrayList<>();
+
+    @Test
+    public void nextPagesAreReadAfterTheLastKey() {
+        KeysetDataProvider<Integer, String, Integer> dataProvider = withOffsetFetch();
+
+        assertEquals(range(0, 10), fetch(dataProvider, 0, 10, null));
+        assertEquals(range(10, 20), fetch(dataProvider, 10, 10, null));
+
+        assertNull(afterKeys.get(0));
+        assertEquals(9, (int) afterKeys.get(1));
+        assertEquals(10, (int) limits.get(1));
+        assertTrue(offsetFetches.isEmpty());
+    }
+
+    @Test
+    public void shortSkipsAreReadFromTheNearestBoundary() {
+        KeysetDataProvider<Integer, String, Integer> dataProvider = withOffsetFetch();
+        fetch(dataProvider, 0, 10, null);
+
+        assertEquals(range(15, 25), fetch(dataProvider, 15, 10, null));
+        assertEquals(9, (int) afterKeys.get(1));
+        assertEquals(15, (int) limits.get(1));
+    }
+
+    @Test
+    public void jumpsPastMaxSkipGoToTheOffsetCallback() {
+        KeysetDataProvider<Integer, String, Integer> dataProvider = withOffsetFetch();
+        dataProvider.setMaxSkip(5);
+        fetch(dataProvider, 0, 10, null);
+
+        assertEquals(range(50, 60), fetch(dataProvider, 50, 10, null));
+        assertEquals(Collections.singletonList(50), offsetFetches);
+
+        // the jump left a boundary
+        assertEquals(range(60, 70), fetch(dataProvider, 60, 10, null));
+        assertEquals(59, (int) afterKeys.get(afterKeys.size() - 1));
+        assertEquals(1, offsetFetches.size());
+    }
+
+    @Test
+    public void withoutOffsetCallbackJumpsAreSkippedByTheBackend() {
+        KeysetDataProvider<Integer, String, Integer> dataProvider = new KeysetDataProvider<>(this::fetchAfter, query -> SIZE, i -> i);
+        dataProvider.setMaxSkip(5);
+
+        assertEquals(range(50, 60), fetch(dataProvider, 50, 10, null));
+        assertNull(afterKeys.get(0));
+        assertEquals(60, (int) limits.get(0));
+    }
+
+    @Test
+    public void lastPages() {
+        KeysetDataProvider<Integer, String, Integer> dataProvider = withOffsetFetch();
+        fetch(dataProvider, 0, 90, null);
+
+        assertEquals(range(90, 100), fetch(dataProvider, 90, 20, null));
+        assertEquals(Collections.emptyList(), fetch(dataProvider, 100, 10, null));
+        assertEquals(99, (int) afterKeys.get(2));
+    }
+
+    @Test
+    public void boundariesAreKeptPerFilterAndDroppedByRefresh() {
+        KeysetDataProvider<Integer, String, Integer> dataProvider = withOffsetFetch();
+        fetch(dataProvider, 0, 10, "a");
+
+        fetch(dataProvider, 10, 10, "b");
+        assertNull(afterKeys.get(1));
+
+        fetch(dataProvider, 10, 10, "a");
+        assertEquals(9, (int) afterKeys.get(2));
+
+        dataProvider.refreshAll();
+        fetch(dataProvider, 10, 10, "a");
+        assertNull(afterKeys.get(3));
+        assertEquals(20, (int) limits.get(3));
+    }
+
+    @Test
+    public void sortedQueriesByOffset() {
+        KeysetDataProvider<Integer, String, Integer> dataProvider = withOffsetFetch();
+        dataProvider.setSortedByOffset(true);
+
+        fetch(dataProvider, 0, 10, null, QuerySortOrder.asc("name").build());
+        assertEquals(Collections.singletonList(0), offsetFetches);
+        assertTrue(afterKeys.isEmpty());
+
+        fetch(dataProvider, 0, 10, null);
+        assertEquals(1, afterKeys.size());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void sortedByOffsetNeedsTheOffsetCallback() {
+        new KeysetDataProvider<>(this::fetchAfter, query -> SIZE, i -> i).setSortedByOffset(true);
+    }
+
+    private KeysetDataProvider<Integer, String, Integer> withOffsetFetch() {
+        return new KeysetDataProvider<Integer, String, Integer>(this::fetchAfter, query -> {
+            offsetFetches.add(query.getOffset());
+            return IntStream.range(query.getOffset(), Math.min(SIZE, query.getOffset() + query.getLimit())).boxed();
+        }, query -> SIZE, i -> i);
+    }
+
+    private Stream<Integer> fetchAfter(Integer afterKey, int limit, List<QuerySortOrder> sortOrders, String filter) {
+        afterKeys.add(afterKey);
+        limits.add(limit);
+        int from = afterKey==null ? 0 : afterKey + 1;
+        return IntStream.range(from, Math.min(SIZE, from + limit)).boxed();
+    }
+
+    private static List<Integer> fetch(KeysetDataProvider<Integer, String, Integer> dataProvider, int offset, int limit,
+            String filter) {
+        return fetch(dataProvider, offset, limit, filter, Collections.emptyList());
+    }
+
+    private static List<Integer> fetch(KeysetDataProvider<Integer, String, Integer> dataProvider, int offset, int limit,
+            String filter, List<QuerySortOrder> sortOrders) {
+        return dataProvider.fetch(new Query<>(offset, limit, sortOrders, null, filter)).collect(Collectors.toList());
+    }
+
+    private static List<Integer> range(int from, int to) {
+        return IntStream.range(from, to).boxed().collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,80 @@
+package org.vaadin.bread.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+import org.vaadin.bread.ui.form.LookupOperation;
+import org.vaadin.bread.ui.form.impl.field.provider.LazyComboBoxProvider;
+
+import com.vaadin.data.HasValue;
+
+public class LazyComboBoxProviderTest {
+
+    private final List<Object> lookedUp = new ArrayList<>();
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void loadedValueIsShownAsItIs() {
+        HasValue<Item> field = new LazyComboBoxProvider<>(null, lookup(), Item::getName, Item::getId, Item.class).buildField();
+        Item item = new Item(1L, "one");
+        field.setValue(item);
+
+        assertSame(item, field.getValue());
+        assertEquals(0, lookedUp.size());
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    @Test
+    public void idIsReloaded() {
+        HasValue field = new LazyComboBoxProvider<>(null, lookup(), Item::getName, Item::getId, Item.class).buildField();
+        field.setValue(2L);
+
+        assertEquals("found", ((Item) field.getValue()).getName());
+        assertEquals(2L, lookedUp.get(0));
+    }
+
+    private LookupOperation<Item> lookup() {
+        return new LookupOperation<Item>() {
+
+            @Override
+            public Stream<Item> fetch(String filterText, int offset, int limit) {
+                return Stream.empty();
+            }
+
+            @Override
+            public int count(String filterText) {
+                return 0;
+            }
+
+            @Override
+            public Item findById(Object id) {
+                lookedUp.add(id);
+                return new Item((Long) id, "found");
+            }
+        };
+    }
+
+    public static class Item {
+
+        private final Long id;
+        private final String name;
+
+        Item(Long id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+}
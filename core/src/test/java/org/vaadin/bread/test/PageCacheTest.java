@@ -0,0 +1,159 @@
+package org.vaadin.bread.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+import org.vaadin.bread.data.provider.PageCache;
+import org.vaadin.bread.data.provider.PageCachingDataProvider;
+import org.vaadin.bread.ui.support.FilterSignature;
+
+import com.vaadin.data.provider.DataProvider;
+import com.vaadin.data.provider.Query;
+import com.vaadin.data.provider.QuerySortOrder;
+
+public class PageCacheTest {
+
+    private final PageCache cache = new PageCache();
+
+    @Test
+    public void keyEquality() {
+        PageCache.Key key = key(String.class, "scope", "a", 0, 50);
+
+        assertEquals(key, key(String.class, "scope", "a", 0, 50));
+        assertEquals(key.hashCode(), key(String.class, "scope", "a", 0, 50).hashCode());
+        assertNotEquals(key, key(Integer.class, "scope", "a", 0, 50));
+        assertNotEquals(key, key(String.class, "other", "a", 0, 50));
+        assertNotEquals(key, key(String.class, "scope", "b", 0, 50));
+        assertNotEquals(key, key(String.class, "scope", "a", 50, 50));
+        assertNotEquals(key, key(String.class, "scope", "a", 0, 40));
+        assertEquals(new PageCache.Key(String.class, "scope", FilterSignature.of("a", QuerySortOrder.asc("name").build()), 0, 50),
+                new PageCache.Key(String.class, "scope", FilterSignature.of("a", QuerySortOrder.asc("name").build()), 0, 50));
+    }
+
+    @Test
+    public void hitsAndMisses() {
+        PageCache.Key key = key(String.class, "scope", "a", 0, 2);
+
+        assertNull(cache.get(key));
+        cache.put(key, Arrays.asList("x", "y"));
+        assertEquals(Arrays.asList("x", "y"), cache.get(key));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void leastRecentlyUsedEntriesAreEvicted() {
+        cache.setMaxEntries(2);
+        cache.put(key(String.class, "s", "a", 0, 1), items(1));
+        cache.put(key(String.class, "s", "b", 0, 1), items(1));
+        cache.get(key(String.class, "s", "a", 0, 1));
+        cache.put(key(String.class, "s", "c", 0, 1), items(1));
+
+        assertEquals(2, cache.size());
+        assertNull(cache.get(key(String.class, "s", "b", 0, 1)));
+        assertEquals(items(1), cache.get(key(String.class, "s", "a", 0, 1)));
+    }
+
+    @Test
+    public void entriesAreBoundedByBytes() {
+        cache.setItemBytes(100);
+        cache.setMaxBytes(1000);
+        cache.put(key(String.class, "s", "a", 0, 6), items(6));
+        cache.put(key(String.class, "s", "b", 0, 6), items(6));
+
+        assertEquals(1, cache.size());
+        assertEquals(600, cache.getTotalBytes());
+        assertNull(cache.get(key(String.class, "s", "a", 0, 6)));
+
+        // too large on its own
+        cache.put(key(String.class, "s", "c", 0, 11), items(11));
+        assertNull(cache.get(key(String.class, "s", "c", 0, 11)));
+
+        cache.put(key(String.class, "s", "d", 0, 6), items(6), 10);
+        assertEquals(610, cache.getTotalBytes());
+    }
+
+    @Test
+    public void expiredEntriesAreMissed() throws InterruptedException {
+        cache.setTimeToLiveMillis(1);
+        cache.put(key(String.class, "s", "a", 0, 1), items(1));
+        Thread.sleep(10);
+
+        assertNull(cache.get(key(String.class, "s", "a", 0, 1)));
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getTotalBytes());
+    }
+
+    @Test
+    public void invalidateDropsTheTypeOfEveryScope() {
+        cache.put(key(String.class, "s1", "a", 0, 1), items(1));
+        cache.put(key(String.class, "s2", "a", 0, 1), items(1));
+        cache.put(key(Integer.class, "s1", "a", 0, 1), items(1));
+
+        cache.invalidate(String.class);
+        assertEquals(1, cache.size());
+        assertEquals(items(1), cache.get(key(Integer.class, "s1", "a", 0, 1)));
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getTotalBytes());
+    }
+
+    @Test
+    public void entriesAreNotSerialized() throws IOException, ClassNotFoundException {
+        cache.put(key(String.class, "s", "a", 0, 1), items(1));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(cache);
+        }
+        PageCache restored;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            restored = (PageCache) in.readObject();
+        }
+
+        assertEquals(0, restored.size());
+        assertEquals(0, restored.getTotalBytes());
+        restored.put(key(String.class, "s", "a", 0, 1), items(1));
+        assertEquals(1, restored.size());
+    }
+
+    @Test
+    public void providersWithDifferentScopesDontSharePages() {
+        DataProvider<Integer, Void> first = DataProvider.fromCallbacks(
+                query -> Stream.of(1, 2, 3).skip(query.getOffset()).limit(query.getLimit()), query -> 3);
+        DataProvider<Integer, Void> second = DataProvider.fromCallbacks(
+                query -> Stream.of(7, 8, 9).skip(query.getOffset()).limit(query.getLimit()), query -> 3);
+
+        assertEquals(Arrays.asList(1, 2, 3), fetch(new PageCachingDataProvider<>(first, cache, Integer.class)));
+        assertEquals(Arrays.asList(7, 8, 9), fetch(new PageCachingDataProvider<>(second, cache, Integer.class)));
+        assertEquals(Arrays.asList(1, 2, 3), fetch(new PageCachingDataProvider<>(first, cache, Integer.class, "s", null)));
+        // same scope, served from the cache
+        assertEquals(Arrays.asList(1, 2, 3), fetch(new PageCachingDataProvider<>(second, cache, Integer.class, "s", null)));
+    }
+
+    private static List<Integer> fetch(DataProvider<Integer, Void> dataProvider) {
+        return dataProvider.fetch(new Query<>(0, 3, Collections.emptyList(), null, null)).collect(Collectors.toList());
+    }
+
+    private static PageCache.Key key(Class<?> domainType, String scope, String filter, int offset, int limit) {
+        return new PageCache.Key(domainType, scope, FilterSignature.of(filter, null), offset, limit);
+    }
+
+    private static List<Integer> items(int size) {
+        return Stream.iterate(0, i -> i + 1).limit(size).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,119 @@
+package org.vaadin.bread.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.Test;
+import org.vaadin.bread.ui.support.BeanExcelBuilder;
+import org.vaadin.bread.ui.support.PartitionedExcelExporter;
+
+import com.vaadin.data.provider.DataProvider;
+
+public class PartitionedExcelExporterTest {
+
+    @Test
+    public void partsHoldConsecutiveRanges() throws IOException {
+        PartitionedExcelExporter<Item> exporter = new PartitionedExcelExporter<>(() -> new BeanExcelBuilder<>(Item.class));
+        exporter.setRowsPerPart(10);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exporter.writeZip(provider(25), out);
+
+        List<String> names = new ArrayList<>();
+        List<Integer> rows = new ArrayList<>();
+        List<Double> firstValues = new ArrayList<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry())!=null) {
+                names.add(entry.getName());
+                try (XSSFWorkbook workbook = new XSSFWorkbook(new NonClosingInputStream(zip))) {
+                    Sheet sheet = workbook.getSheetAt(0);
+                    rows.add(sheet.getLastRowNum());
+                    firstValues.add(sheet.getRow(1).getCell(0).getNumericCellValue());
+                }
+            }
+        }
+
+        assertEquals(3, names.size());
+        assertEquals("export-1.xlsx", names.get(0));
+        assertEquals("export-3.xlsx", names.get(2));
+        // header row excluded
+        assertEquals(10, (int) rows.get(0));
+        assertEquals(5, (int) rows.get(2));
+        assertEquals(0, firstValues.get(0), 0);
+        assertEquals(10, firstValues.get(1), 0);
+        assertEquals(20, firstValues.get(2), 0);
+    }
+
+    @Test
+    public void failingPartFailsTheExport() throws IOException {
+        DataProvider<Item, Void> failing = DataProvider.fromCallbacks(query -> {
+            if (query.getOffset()>=10) {
+                throw new IllegalStateException("backend down");
+            }
+            return IntStream.range(query.getOffset(), Math.min(25, query.getOffset() + query.getLimit())).mapToObj(Item::new);
+        }, query -> 25);
+        PartitionedExcelExporter<Item> exporter = new PartitionedExcelExporter<>(() -> new BeanExcelBuilder<>(Item.class));
+        exporter.setRowsPerPart(10);
+
+        try {
+            exporter.writeZip(failing, new ByteArrayOutputStream());
+            fail("the second part failed");
+        } catch (IllegalStateException expected) {
+            assertEquals("backend down", expected.getMessage());
+        }
+    }
+
+    private static DataProvider<Item, Void> provider(int size) {
+        List<Item> items = IntStream.range(0, size).mapToObj(Item::new).collect(Collectors.toList());
+        return DataProvider.fromCallbacks(
+                query -> items.stream().skip(query.getOffset()).limit(query.getLimit()), query -> items.size());
+    }
+
+    /**
+     * XSSFWorkbook closes the stream it reads.
+     */
+    private static class NonClosingInputStream extends FilterInputStream {
+
+        NonClosingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    public static class Item {
+
+        private int value;
+
+        public Item() {
+        }
+
+        public Item(int value) {
+            this.value = value;
+        }
+
+        public int getValue() {
+            return value;
+        }
+
+        public void setValue(int value) {
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package org.vaadin.bread.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+import org.vaadin.bread.data.provider.PrefetchingDataProvider;
+
+import com.vaadin.data.provider.DataProvider;
+import com.vaadin.data.provider.Query;
+import com.vaadin.data.provider.QuerySortOrder;
+
+public class PrefetchingDataProviderTest {
+
+    private static final int SIZE = 100;
+
+    private final List<Integer> backendOffsets = new ArrayList<>();
+    private final LinkedList<Runnable> tasks = new LinkedList<>();
+    private Integer failingOffset;
+
+    private final DataProvider<Integer, String> backend = DataProvider.fromFilteringCallbacks(query -> {
+        synchronized (backendOffsets) {
+            backendOffsets.add(query.getOffset());
+        }
+        if (Integer.valueOf(query.getOffset()).equals(failingOffset)) {
+            throw new IllegalStateException("backend down");
+        }
+        return IntStream.range(query.getOffset(), Math.min(SIZE, query.getOffset() + query.getLimit())).boxed();
+    }, query -> SIZE);
+
+    @Test
+    public void nextPageIsServedFromThePrefetch() {
+        PrefetchingDataProvider<Integer, String> dataProvider = prefetching();
+
+        assertEquals(range(0, 10), fetch(dataProvider, 0, 10));
+        runTasks();
+        assertEquals(range(10, 20), fetch(dataProvider, 10, 10));
+        // a part of the buffered page too
+        assertEquals(range(12, 15), fetch(dataProvider, 12, 3));
+
+        assertEquals(2, dataProvider.getHits());
+        assertEquals(1, dataProvider.getMisses());
+        assertEquals(2, backendOffsets.size());
+    }
+
+    @Test
+    public void shortPagesArentFollowed() {
+        PrefetchingDataProvider<Integer, String> dataProvider = prefetching();
+        fetch(dataProvider, 95, 10);
+
+        assertEquals(0, tasks.size());
+    }
+
+    @Test
+    public void previousPage() {
+        PrefetchingDataProvider<Integer, String> dataProvider = prefetching();
+        dataProvider.setPrefetchPrevious(true);
+        fetch(dataProvider, 50, 10);
+        runTasks();
+
+        assertEquals(range(40, 50), fetch(dataProvider, 40, 10));
+        assertEquals(1, dataProvider.getHits());
+    }
+
+    @Test
+    public void otherSortingsAndFiltersMiss() {
+        PrefetchingDataProvider<Integer, String> dataProvider = prefetching();
+        fetch(dataProvider, 0, 10);
+        runTasks();
+
+        dataProvider.fetch(new Query<>(10, 10, QuerySortOrder.asc("name").build(), null, null)).count();
+        dataProvider.fetch(new Query<>(10, 10, new ArrayList<>(), null, "a")).count();
+        assertEquals(0, dataProvider.getHits());
+    }
+
+    @Test
+    public void refreshDropsThePages() {
+        PrefetchingDataProvider<Integer, String> dataProvider = prefetching();
+        fetch(dataProvider, 0, 10);
+        runTasks();
+
+        backend.refreshAll();
+        fetch(dataProvider, 10, 10);
+        assertEquals(0, dataProvider.getHits());
+        assertEquals(3, backendOffsets.size());
+    }
+
+    @Test
+    public void droppedPagesAreNotFetched() {
+        PrefetchingDataProvider<Integer, String> dataProvider = prefetching();
+        fetch(dataProvider, 0, 10);
+        dataProvider.clear();
+        runTasks();
+        assertEquals(1, backendOffsets.size());
+
+        // evicted by newer pages
+        dataProvider.setMaxPages(1);
+        fetch(dataProvider, 20, 10);
+        fetch(dataProvider, 40, 10);
+        runTasks();
+        assertEquals(4, backendOffsets.size());
+        assertEquals(50, (int) backendOffsets.get(3));
+    }
+
+    @Test
+    public void failedPrefetchIsFetchedAgain() {
+        PrefetchingDataProvider<Integer, String> dataProvider = prefetching();
+        failingOffset = 10;
+        fetch(dataProvider, 0, 10);
+        runTasks();
+        failingOffset = null;
+
+        assertEquals(range(10, 20), fetch(dataProvider, 10, 10));
+        assertEquals(0, dataProvider.getHits());
+        assertEquals(3, backendOffsets.size());
+    }
+
+    @Test
+    public void rejectedPrefetchIsSkipped() {
+        PrefetchingDataProvider<Integer, String> dataProvider = new PrefetchingDataProvider<>(backend);
+        dataProvider.setExecutor(task -> {
+            throw new RejectedExecutionException();
+        });
+
+        assertEquals(range(0, 10), fetch(dataProvider, 0, 10));
+        assertEquals(range(10, 20), fetch(dataProvider, 10, 10));
+        assertEquals(0, dataProvider.getHits());
+    }
+
+    private PrefetchingDataProvider<Integer, String> prefetching() {
+        PrefetchingDataProvider<Integer, String> dataProvider = new PrefetchingDataProvider<>(backend);
+        dataProvider.setExecutor(tasks::add);
+        return dataProvider;
+    }
+
+    private void runTasks() {
+        while (!tasks.isEmpty()) {
+            tasks.removeFirst().run();
+        }
+    }
+
+    private static List<Integer> fetch(PrefetchingDataProvider<Integer, String> dataProvider, int offset, int limit) {
+        return dataProvider.fetch(new Query<>(offset, limit, new ArrayList<>(), null, null)).collect(Collectors.toList());
+    }
+
+    private static List<Integer> range(int from, int to) {
+        return IntStream.range(from, to).boxed().collect(Collectors.toList());
+    }
+}
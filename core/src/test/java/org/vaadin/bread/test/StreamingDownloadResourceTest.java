@@ -0,0 +1,116 @@
+package org.vaadin.bread.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.vaadin.bread.ui.support.StreamingDownloadResource;
+
+public class StreamingDownloadResourceTest {
+
+    @Test
+    public void contentLargerThanThePipeIsStreamed() throws IOException {
+        byte[] content = new byte[1024 * 1024];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+        StreamingDownloadResource resource = resource(out -> out.write(content));
+        resource.setPipeSize(1024);
+
+        assertArrayEquals(content, read(resource.getStream().getStream()));
+    }
+
+    @Test
+    public void failureOfTheWriterReachesTheReader() throws IOException {
+        StreamingDownloadResource resource = resource(out -> {
+            out.write(new byte[] { 1, 2, 3 });
+            throw new IllegalStateException("broken");
+        });
+
+        try (InputStream in = resource.getStream().getStream()) {
+            read(in);
+            fail("the writer failed");
+        } catch (IOException expected) {
+            assertEquals("broken", expected.getCause().getMessage());
+        }
+    }
+
+    @Test
+    public void writerRunsOnTheGivenExecutor() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor(r -> new Thread(r, "custom-writer"));
+        try {
+            CountDownLatch written = new CountDownLatch(1);
+            String[] thread = new String[1];
+            StreamingDownloadResource resource = resource(out -> {
+                thread[0] = Thread.currentThread().getName();
+                written.countDown();
+            });
+            resource.setExecutor(executor);
+
+            read(resource.getStream().getStream());
+            assertTrue(written.await(5, TimeUnit.SECONDS));
+            assertEquals("custom-writer", thread[0]);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void abortedDownloadStopsTheWriter() throws Exception {
+        CountDownLatch stopped = new CountDownLatch(1);
+        StreamingDownloadResource resource = resource(out -> {
+            try {
+                while (true) {
+                    out.write(new byte[1024]);
+                }
+            } finally {
+                stopped.countDown();
+            }
+        });
+
+        InputStream in = resource.getStream().getStream();
+        in.read(new byte[10]);
+        in.close();
+        assertTrue(stopped.await(5, TimeUnit.SECONDS));
+    }
+
+    private static StreamingDownloadResource resource(StreamingDownloadResource.ContentWriter writer) {
+        return new StreamingDownloadResource() {
+
+            @Override
+            protected ContentWriter prepareContent() {
+                return writer;
+            }
+
+            @Override
+            public String getFilename() {
+                return "test.bin";
+            }
+
+            @Override
+            public String getMIMEType() {
+                return "application/octet-stream";
+            }
+        };
+    }
+
+    private static byte[] read(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer))>=0) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+}
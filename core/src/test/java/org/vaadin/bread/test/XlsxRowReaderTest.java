@@ -0,0 +1,121 @@
+package org.vaadin.bread.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.vaadin.bread.ui.support.XlsxRowReader;
+
+public class XlsxRowReaderTest {
+
+    private File file;
+
+    @Before
+    public void writeWorkbook() throws IOException {
+        file = Files.createTempFile("xlsx-row-reader-", ".xlsx").toFile();
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            CellStyle dateStyle = workbook.createCellStyle();
+            dateStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("dd/mm/yyyy"));
+            CellStyle dateTimeStyle = workbook.createCellStyle();
+            dateTimeStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("dd/mm/yyyy hh:mm"));
+            CellStyle decimalStyle = workbook.createCellStyle();
+            decimalStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("#,##0.0"));
+
+            Sheet first = workbook.createSheet("first");
+            Row header = first.createRow(0);
+            header.createCell(0).setCellValue("name");
+            header.createCell(1).setCellValue("amount");
+            header.createCell(2).setCellValue("birthDate");
+            header.createCell(3).setCellValue("active");
+
+            Row data = first.createRow(1);
+            data.createCell(0).setCellValue("Alice");
+            data.createCell(1).setCellValue(1234.5);
+            data.getCell(1).setCellStyle(decimalStyle);
+            data.createCell(2).setCellValue(date(LocalDate.of(1990, 5, 17).atStartOfDay()));
+            data.getCell(2).setCellStyle(dateStyle);
+            data.createCell(3).setCellValue(true);
+
+            // row 3 is empty, row 4 has a gap
+            Row gaps = first.createRow(3);
+            gaps.createCell(0).setCellValue("Bob");
+            gaps.createCell(2).setCellValue(date(LocalDateTime.of(2017, 1, 2, 10, 30)));
+            gaps.getCell(2).setCellStyle(dateTimeStyle);
+
+            Sheet second = workbook.createSheet("second");
+            second.createRow(0).createCell(0).setCellValue(42);
+
+            try (OutputStream out = Files.newOutputStream(file.toPath())) {
+                workbook.write(out);
+            }
+        }
+    }
+
+    @After
+    public void deleteWorkbook() {
+        file.delete();
+    }
+
+    @Test
+    public void rowsOfTheFirstSheet() throws IOException {
+        assertEquals(Arrays.asList(
+                row(1, "name", "amount", "birthDate", "active"),
+                row(2, "Alice", "1234.5", "1990-05-17", "TRUE"),
+                row(4, "Bob", "", "2017-01-02T10:30")), read(0));
+    }
+
+    @Test
+    public void otherSheet() throws IOException {
+        assertEquals(Arrays.asList(row(1, "42")), read(1));
+    }
+
+    @Test(expected = IOException.class)
+    public void missingSheet() throws IOException {
+        read(2);
+    }
+
+    @Test(expected = IOException.class)
+    public void notAnXlsxFile() throws IOException {
+        Files.write(file.toPath(), "a,b".getBytes());
+        read(0);
+    }
+
+    private List<List<Object>> read(int sheetIndex) throws IOException {
+        List<List<Object>> rows = new ArrayList<>();
+        new XlsxRowReader(sheetIndex).read(file, (rowNumber, cells) -> {
+            List<Object> row = new ArrayList<>();
+            row.add(rowNumber);
+            row.addAll(cells);
+            rows.add(row);
+        });
+        return rows;
+    }
+
+    private static List<Object> row(long rowNumber, String... cells) {
+        List<Object> row = new ArrayList<>();
+        row.add(rowNumber);
+        row.addAll(Arrays.asList(cells));
+        return row;
+    }
+
+    private static Date date(LocalDateTime dateTime) {
+        return Date.from(dateTime.atZone(ZoneId.systemDefault()).toInstant());
+    }
+}
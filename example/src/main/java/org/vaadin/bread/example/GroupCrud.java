@@ -13,9 +13,12 @@ import org.vaadin.bread.ui.crud.impl.GridCrud;
 import org.vaadin.bread.ui.form.impl.form.factory.FormFactoryBuilder;
 import org.vaadin.bread.ui.form.impl.form.factory.GridLayoutFormFactory;
 import org.vaadin.bread.ui.layout.impl.HorizontalSplitCrudLayout;
+import org.vaadin.bread.ui.support.ExportCache;
+import org.vaadin.bread.ui.support.ReferenceDataCache;
 
 import com.vaadin.data.provider.CallbackDataProvider;
 import com.vaadin.data.provider.ConfigurableFilterDataProvider;
+import com.vaadin.data.provider.Query;
 import com.vaadin.ui.Component;
 
 /**
@@ -47,7 +50,13 @@ public class GroupCrud extends GridCrud<Group> implements CrudListener<Group> {
         
         Component filterForm = filterFormFactory.buildNewForm(FilterOperation.APPLY
         		, filterBean, false);
+        setIdGetter(Group::getId);
         setCrudListener(this);
+        setFilter(filterBean);
+        setCountCacheSize(16);
+        setExportCache(ExportCache.getDefault());
+        // the groups listed by the user forms
+        addDataChangeListener((operation, group) -> ReferenceDataCache.getDefault().invalidate(Group.class));
         getCrudLayout().addFilterComponent(filterForm);
 
         // build form
@@ -69,6 +78,11 @@ public class GroupCrud extends GridCrud<Group> implements CrudListener<Group> {
         return group;
     }
 
+    @Override
+    public int count(Query<Group, ?> query) {
+        return (int) GroupRepository.count(filterBean);
+    }
+
     @Override
     public Group update(Group group) {
         return GroupRepository.save(group);
@@ -84,9 +98,9 @@ public class GroupCrud extends GridCrud<Group> implements CrudListener<Group> {
     	
     	CallbackDataProvider<Group, GroupFilter> dp = new CallbackDataProvider<Group, GroupFilter>(
     			q -> {
-    				return GroupRepository.findAll(q.getFilter().orElse(null), q.getOffset(), q.getLimit()).stream();
+    				return GroupRepository.findAll(q.getFilter().orElse(null), q.getSortOrders(), q.getOffset(), q.getLimit()).stream();
     			}
-    			, q -> GroupRepository.findAll(q.getFilter().orElse(null), q.getOffset(), q.getLimit()).size()
+    			, q -> (int) GroupRepository.count(q.getFilter().orElse(null))
     			);
     	
     	ConfigurableFilterDataProvider<Group, Void, GroupFilter> everythingConfigurable = dp.withConfigurableFilter();
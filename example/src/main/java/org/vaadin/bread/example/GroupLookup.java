@@ -0,0 +1,39 @@
+package org.vaadin.bread.example;
+
+import java.util.stream.Stream;
+
+import org.vaadin.bread.example.base.repo.GroupRepository;
+import org.vaadin.bread.example.model.Group;
+import org.vaadin.bread.example.model.GroupFilter;
+import org.vaadin.bread.ui.form.LookupOperation;
+
+/**
+ * Groups whose name contains the typed text.
+ *
+ * @author Dmitrij Colautti
+ *
+ */
+@SuppressWarnings("serial")
+public class GroupLookup implements LookupOperation<Group> {
+
+    @Override
+    public Stream<Group> fetch(String filterText, int offset, int limit) {
+        return GroupRepository.findAll(filter(filterText), offset, limit).stream();
+    }
+
+    @Override
+    public int count(String filterText) {
+        return (int) GroupRepository.count(filter(filterText));
+    }
+
+    @Override
+    public Group findById(Object id) {
+        return GroupRepository.findById((Long) id);
+    }
+
+    private static GroupFilter filter(String filterText) {
+        GroupFilter filter = new GroupFilter();
+        filter.setName(filterText);
+        return filter;
+    }
+}
@@ -5,7 +5,11 @@ package org.vaadin.bread.example;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 
+import org.vaadin.bread.data.provider.FetchWithCount;
+import org.vaadin.bread.data.provider.KeysetDataProvider;
+import org.vaadin.bread.data.provider.PageCache;
 import org.vaadin.bread.example.base.repo.GroupRepository;
 import org.vaadin.bread.example.base.repo.JPAService;
 import org.vaadin.bread.example.base.repo.UserRepository;
@@ -21,9 +25,11 @@ import org.vaadin.bread.ui.form.impl.field.provider.ComboBoxProvider;
 import org.vaadin.bread.ui.form.impl.form.factory.FormFactoryBuilder;
 import org.vaadin.bread.ui.form.impl.form.factory.GridLayoutFormFactory;
 import org.vaadin.bread.ui.layout.impl.HorizontalSplitCrudLayout;
+import org.vaadin.bread.ui.support.ExportCache;
+import org.vaadin.bread.ui.support.ReferenceDataCache;
 
-import com.vaadin.data.provider.CallbackDataProvider;
 import com.vaadin.data.provider.ConfigurableFilterDataProvider;
+import com.vaadin.data.provider.Query;
 import com.vaadin.ui.Component;
 import com.vaadin.ui.DateField;
 import com.vaadin.ui.Notification;
@@ -35,7 +41,7 @@ import com.vaadin.ui.renderers.TextRenderer;
  *
  */
 @SuppressWarnings("serial")
-public class UserCrud extends GridCrud<User> implements CrudListener<User> {
+public class UserCrud extends GridCrud<User> implements CrudListener<User>, FetchWithCount<User> {
 
     private UserFilter filterBean = new UserFilter();
     
@@ -58,10 +64,17 @@ public class UserCrud extends GridCrud<User> implements CrudListener<User> {
         	refreshGrid();
         });
         filterFormFactory.buildSensitiveDefaults();
+        filterFormFactory.setLookupOperation(Group.class, new GroupLookup());
         
         Component filterForm = filterFormFactory.buildNewForm(FilterOperation.APPLY
         		, filterBean, false);
+        setIdGetter(User::getId);
         setCrudListener(this);
+        setFilter(filterBean);
+        setCountCacheSize(16);
+        setPrefetchEnabled(true);
+        setPageCache(PageCache.getForSession());
+        setExportCache(ExportCache.getDefault());
         getCrudLayout().addFilterComponent(filterForm);
 
         // build form
@@ -71,19 +84,22 @@ public class UserCrud extends GridCrud<User> implements CrudListener<User> {
 
         formFactory.setJpaTypeForJpaValidation(JPAService.getFactory().getMetamodel().managedType(User.class));
         formFactory.buildSensitiveDefaults();
+        formFactory.setReuseForms(true);
         
         formFactory.setErrorListener((opm, opa, obj, e) -> {e.printStackTrace(); Notification.show("ERROR: " + e.getLocalizedMessage(), Notification.Type.ERROR_MESSAGE);});
         formFactory.setVisibleProperties(CrudOperation.DELETE, "name", "email", "phoneNumber");
 
         formFactory.setFieldType("password", PasswordField.class);
         formFactory.setFieldCreationListener("birthDate", field -> ((DateField) field).setDateFormat("yyyy-MM-dd"));
-        formFactory.setFieldProvider("mainGroup", new ComboBoxProvider<Group>("Main Group", GroupRepository.findAll(), Group::getName));
+        formFactory.setFieldProvider("mainGroup", new ComboBoxProvider<Group>("Main Group",
+        		ReferenceDataCache.getDefault().get(Group.class, GroupRepository::findAll), Group::getName));
 
         formFactory.setButtonCaption(CrudOperation.ADD, "Add new user");
 
         
         getGrid().setColumns("name", "birthDate", "email", "phoneNumber", "mainGroup", "active");
         getGrid().getColumn("mainGroup").setRenderer(group -> group == null ? "" : ((Group) group).getName(), new TextRenderer());
+        setSortProperty("mainGroup", "mainGroup.name");
 //        ((Grid.Column<User, Date>) crud.getGrid().getColumn("birthDate")).setRenderer(new DateRenderer("%1$tY-%1$tm-%1$te"));
         setRowCountCaption("%d user(s) found");
 
@@ -96,6 +112,21 @@ public class UserCrud extends GridCrud<User> implements CrudListener<User> {
         return user;
     }
 
+    @Override
+    public Collection<User> addAll(Collection<User> users) {
+        return UserRepository.saveAll(users);
+    }
+
+    @Override
+    public int count(Query<User, ?> query) {
+        return (int) UserRepository.count(filterBean);
+    }
+
+    @Override
+    public FetchWithCount.Page<User> fetchWithCount(Query<User, ?> query) {
+        return UserRepository.findAllWithCount(filterBean, query.getSortOrders(), query.getOffset(), query.getLimit());
+    }
+
     @Override
     public User update(User user) {
         if (user.getId().equals(5l)) {
@@ -112,13 +143,14 @@ public class UserCrud extends GridCrud<User> implements CrudListener<User> {
     @Override
     public ConfigurableFilterDataProvider<User, Void, UserFilter> getDataProvider() {
     	
-    	CallbackDataProvider<User, UserFilter> dp = new CallbackDataProvider<User, UserFilter>(
-    			q -> {
-    				return UserRepository.findAll(q.getFilter().orElse(null), q.getOffset(), q.getLimit()).stream();
-    			}
-    			, q -> 
-    				UserRepository.findAll(q.getFilter().orElse(null), q.getOffset(), q.getLimit()).size()
+    	// pages are read by id, jumps of the scrollbar and sorted pages by offset
+    	KeysetDataProvider<User, UserFilter, Long> dp = new KeysetDataProvider<User, UserFilter, Long>(
+    			(afterId, limit, sortOrders, filter) -> UserRepository.findAllAfter(filter, afterId, limit).stream()
+    			, q -> UserRepository.findAll(q.getFilter().orElse(null), q.getSortOrders(), q.getOffset(), q.getLimit()).stream()
+    			, q -> (int) UserRepository.count(q.getFilter().orElse(null))
+    			, User::getId
     			);
+    	dp.setSortedByOffset(true);
     	
     	ConfigurableFilterDataProvider<User, Void, UserFilter> everythingConfigurable = dp.withConfigurableFilter();
     	everythingConfigurable.setFilter(filterBean);
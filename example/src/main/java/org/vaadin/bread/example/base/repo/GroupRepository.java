@@ -1,6 +1,7 @@
 package org.vaadin.bread.example.base.repo;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import javax.persistence.EntityManager;
@@ -10,10 +11,13 @@ import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
 
+import org.vaadin.bread.data.JpaSortOrders;
 import org.vaadin.bread.example.model.Group;
 import org.vaadin.bread.example.model.GroupFilter;
 import org.vaadin.bread.example.model.Group_;
 
+import com.vaadin.data.provider.QuerySortOrder;
+
 public class GroupRepository {
 
     public static List<Group> findAll() {
@@ -23,11 +27,24 @@ public class GroupRepository {
     }
     
 
+    public static List<Group> findAll(int offset, int limit) {
+        return JPAService.runInTransaction(em ->
+                em.createQuery("select g from Group g order by g.id", Group.class)
+                        .setFirstResult(offset)
+                        .setMaxResults(limit)
+                        .getResultList()
+        );
+    }
+
     public static List<Group> findAll(GroupFilter uf, int offset, int limit) {
     	
     	if (uf==null)
-    		return findAll();
+    		return findAll(offset, limit);
     	
+        return findAll(uf, Collections.emptyList(), offset, limit);
+    }
+
+    public static List<Group> findAll(GroupFilter uf, List<QuerySortOrder> sortOrders, int offset, int limit) {
         return JPAService.runInTransaction(em -> {
 	    	CriteriaBuilder cb = em.getCriteriaBuilder();
 	    	CriteriaQuery<Group> cq = cb.createQuery(Group.class);
@@ -36,17 +53,10 @@ public class GroupRepository {
 	    	cq.select(from);
 	    	
 	    	
-	    	ArrayList<Predicate> ps = new ArrayList<Predicate>();
-	    	
-	    	if (uf.getName()!=null && !uf.getName().isEmpty()) {
-	    		ps.add(cb.like(from.get(Group_.name), "%"+uf.getName()+"%"));
+	    	if (uf!=null) {
+	    		cq.where(predicates(cb, from, uf));
 	    	}
-	    	
-	    	if (uf.getAdmin()!=null ) {
-	    		ps.add(cb.equal(from.get(Group_.admin), uf.getAdmin()));
-	    	}
-	    	
-	    	cq.where(ps.toArray(new Predicate[] {}));
+	    	cq.orderBy(JpaSortOrders.toOrders(cb, from, sortOrders, "id"));
 	    	TypedQuery<Group> q = em.createQuery(cq);
 	    	q.setFirstResult(offset);
 	    	q.setMaxResults(limit);
@@ -57,6 +67,33 @@ public class GroupRepository {
     }
 
 
+    public static long count(GroupFilter uf) {
+        return JPAService.runInTransaction(em -> {
+            CriteriaBuilder cb = em.getCriteriaBuilder();
+            CriteriaQuery<Long> cq = cb.createQuery(Long.class);
+            Root<Group> from = cq.from(Group.class);
+            cq.select(cb.count(from));
+            if (uf!=null) {
+                cq.where(predicates(cb, from, uf));
+            }
+            return em.createQuery(cq).getSingleResult();
+        });
+    }
+
+    private static Predicate[] predicates(CriteriaBuilder cb, Root<Group> from, GroupFilter uf) {
+        ArrayList<Predicate> ps = new ArrayList<Predicate>();
+
+        if (uf.getName()!=null && !uf.getName().isEmpty()) {
+            ps.add(cb.like(from.get(Group_.name), "%"+uf.getName()+"%"));
+        }
+
+        if (uf.getAdmin()!=null ) {
+            ps.add(cb.equal(from.get(Group_.admin), uf.getAdmin()));
+        }
+
+        return ps.toArray(new Predicate[] {});
+    }
+
     public static Group save(Group group) {
         return JPAService.runInTransaction(em -> em.merge(group));
     }
@@ -68,6 +105,10 @@ public class GroupRepository {
         });
     }
 
+    public static Group findById(Long id) {
+        return JPAService.runInTransaction(em -> getById(id, em));
+    }
+
     private static Group getById(Long id, EntityManager em) {
         TypedQuery<Group> query = em.createQuery("select u from Group u where u.id=:id", Group.class);
         query.setParameter("id", id);
@@ -1,6 +1,9 @@
 package org.vaadin.bread.example.base.repo;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 import javax.persistence.EntityManager;
@@ -10,10 +13,14 @@ import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
 
+import org.vaadin.bread.data.JpaSortOrders;
+import org.vaadin.bread.data.provider.FetchWithCount;
 import org.vaadin.bread.example.model.User;
 import org.vaadin.bread.example.model.UserFilter;
 import org.vaadin.bread.example.model.User_;
 
+import com.vaadin.data.provider.QuerySortOrder;
+
 public class UserRepository {
 
     public static List<User> findAll() {
@@ -22,11 +29,27 @@ public class UserRepository {
         );
     }
 
+    public static List<User> findAll(int offset, int limit) {
+        return JPAService.runInTransaction(em ->
+                em.createQuery("select u from User u order by u.id", User.class)
+                        .setFirstResult(offset)
+                        .setMaxResults(limit)
+                        .getResultList()
+        );
+    }
+
     public static List<User> findAll(UserFilter uf, int offset, int limit) {
     	
     	if (uf==null)
-    		return findAll();
+    		return findAll(offset, limit);
     	
+        return findAll(uf, Collections.emptyList(), offset, limit);
+    }
+
+    /**
+     * A page in the order of the grid, e.g. by <code>mainGroup.name</code>, then by id.
+     */
+    public static List<User> findAll(UserFilter uf, List<QuerySortOrder> sortOrders, int offset, int limit) {
         return JPAService.runInTransaction(em -> {
 	    	CriteriaBuilder cb = em.getCriteriaBuilder();
 	    	CriteriaQuery<User> cq = cb.createQuery(User.class);
@@ -35,41 +58,10 @@ public class UserRepository {
 	    	cq.select(from);
 	    	
 	    	
-	    	ArrayList<Predicate> ps = new ArrayList<Predicate>();
-	    	
-	    	if (uf.getName()!=null && !uf.getName().isEmpty()) {
-	    		ps.add(cb.like(from.get(User_.name), "%"+uf.getName()+"%"));
-	    	}
-	    	
-	    	if (uf.getBirthDateFrom()!=null ) {
-	    		ps.add(cb.greaterThan(from.get(User_.birthDate), uf.getBirthDateFrom()));
+	    	if (uf!=null) {
+	    		cq.where(predicates(cb, from, uf));
 	    	}
-	    	
-	    	if (uf.getBirthDateTo()!=null ) {
-	    		ps.add(cb.lessThan(from.get(User_.birthDate), uf.getBirthDateTo()));
-	    	}
-	    	
-	    	if (uf.getPhoneNumber()!=null ) {
-	    		ps.add(cb.equal(from.get(User_.phoneNumber), uf.getPhoneNumber()));
-	    	}
-	    	
-	    	if (uf.getEmail()!=null && !uf.getEmail().isEmpty()) {
-	    		ps.add(cb.like(from.get(User_.email), "%"+uf.getEmail()+"%"));
-	    	}
-	    	
-	    	if (uf.getActive()!=null ) {
-	    		ps.add(cb.equal(from.get(User_.active), uf.getActive()));
-	    	}
-	    	
-	    	if (uf.getMainGroup()!=null ) {
-	    		ps.add(cb.equal(from.get(User_.mainGroup), uf.getMainGroup()));
-	    	}
-	    	
-	    	if (uf.getGender()!=null ) {
-	    		ps.add(cb.equal(from.get(User_.gender), uf.getGender()));
-	    	}
-	    	
-	    	cq.where(ps.toArray(new Predicate[] {}));
+	    	cq.orderBy(JpaSortOrders.toOrders(cb, from, sortOrders, "id"));
 	    	TypedQuery<User> q = em.createQuery(cq);
 	    	q.setFirstResult(offset);
 	    	q.setMaxResults(limit);
@@ -79,10 +71,122 @@ public class UserRepository {
         );
     }
 
+    public static long count(UserFilter uf) {
+        return JPAService.runInTransaction(em -> {
+            CriteriaBuilder cb = em.getCriteriaBuilder();
+            CriteriaQuery<Long> cq = cb.createQuery(Long.class);
+            Root<User> from = cq.from(User.class);
+            cq.select(cb.count(from));
+            if (uf!=null) {
+                cq.where(predicates(cb, from, uf));
+            }
+            return em.createQuery(cq).getSingleResult();
+        });
+    }
+
+    /**
+     * The page following the user with id <code>afterId</code> (the first
+     * page when <code>null</code>), read from the primary key index without
+     * an offset.
+     */
+    public static List<User> findAllAfter(UserFilter uf, Long afterId, int limit) {
+        return JPAService.runInTransaction(em -> {
+            CriteriaBuilder cb = em.getCriteriaBuilder();
+            CriteriaQuery<User> cq = cb.createQuery(User.class);
+            Root<User> from = cq.from(User.class);
+            cq.select(from);
+            List<Predicate> ps = new ArrayList<>();
+            if (uf!=null) {
+                ps.addAll(Arrays.asList(predicates(cb, from, uf)));
+            }
+            if (afterId!=null) {
+                ps.add(cb.greaterThan(from.get(User_.id), afterId));
+            }
+            cq.where(ps.toArray(new Predicate[] {}));
+            cq.orderBy(cb.asc(from.get(User_.id)));
+            return em.createQuery(cq)
+                    .setMaxResults(limit)
+                    .getResultList();
+        });
+    }
+
+    /**
+     * The page and the total count in a single transaction.
+     */
+    public static FetchWithCount.Page<User> findAllWithCount(UserFilter uf, List<QuerySortOrder> sortOrders, int offset, int limit) {
+        return JPAService.runInTransaction(em -> {
+            CriteriaBuilder cb = em.getCriteriaBuilder();
+            CriteriaQuery<Long> count = cb.createQuery(Long.class);
+            Root<User> countFrom = count.from(User.class);
+            count.select(cb.count(countFrom));
+            CriteriaQuery<User> cq = cb.createQuery(User.class);
+            Root<User> from = cq.from(User.class);
+            cq.select(from);
+            if (uf!=null) {
+                count.where(predicates(cb, countFrom, uf));
+                cq.where(predicates(cb, from, uf));
+            }
+            cq.orderBy(JpaSortOrders.toOrders(cb, from, sortOrders, "id"));
+            List<User> items = em.createQuery(cq)
+                    .setFirstResult(offset)
+                    .setMaxResults(limit)
+                    .getResultList();
+            return new FetchWithCount.Page<>(items, em.createQuery(count).getSingleResult().intValue());
+        });
+    }
+
+    private static Predicate[] predicates(CriteriaBuilder cb, Root<User> from, UserFilter uf) {
+        ArrayList<Predicate> ps = new ArrayList<Predicate>();
+
+        if (uf.getName()!=null && !uf.getName().isEmpty()) {
+            ps.add(cb.like(from.get(User_.name), "%"+uf.getName()+"%"));
+        }
+
+        if (uf.getBirthDateFrom()!=null ) {
+            ps.add(cb.greaterThan(from.get(User_.birthDate), uf.getBirthDateFrom()));
+        }
+
+        if (uf.getBirthDateTo()!=null ) {
+            ps.add(cb.lessThan(from.get(User_.birthDate), uf.getBirthDateTo()));
+        }
+
+        if (uf.getPhoneNumber()!=null ) {
+            ps.add(cb.equal(from.get(User_.phoneNumber), uf.getPhoneNumber()));
+        }
+
+        if (uf.getEmail()!=null && !uf.getEmail().isEmpty()) {
+            ps.add(cb.like(from.get(User_.email), "%"+uf.getEmail()+"%"));
+        }
+
+        if (uf.getActive()!=null ) {
+            ps.add(cb.equal(from.get(User_.active), uf.getActive()));
+        }
+
+        if (uf.getMainGroup()!=null ) {
+            ps.add(cb.equal(from.get(User_.mainGroup), uf.getMainGroup()));
+        }
+
+        if (uf.getGender()!=null ) {
+            ps.add(cb.equal(from.get(User_.gender), uf.getGender()));
+        }
+
+        return ps.toArray(new Predicate[] {});
+    }
+
     public static User save(User user) {
         return JPAService.runInTransaction(em -> em.merge(user));
     }
 
+    public static List<User> saveAll(Collection<User> users) {
+        return JPAService.runInTransaction(em -> {
+            List<User> saved = new ArrayList<>(users.size());
+            for (User user : users) {
+                saved.add(em.merge(user));
+            }
+            return saved;
+        });
+    }
+
     public static void delete(User user) {
         JPAService.runInTransaction(em -> {
             em.remove(getById(user.getId(), em));
@@ -0,0 +1,363 @@
+package org.vaadin.bread.processor;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+
+/**
+ * Generates a <code>&lt;Entity&gt;_Bread</code> descriptor next to each JPA
+ * entity and embeddable, so that <code>BeanMetadata</code> reads its
+ * properties without introspecting the class at runtime. The properties are
+ * the ones the bean introspection would find, with method references as
+ * accessors, the captions, and the facts of the annotations of the getter or
+ * of the field: <code>@GeneratedValue</code>, required (<code>@Id</code>,
+ * <code>@NotNull</code>, not nullable or not optional mappings), the id
+ * (<code>@Id</code>, <code>@EmbeddedId</code>) and the <code>@Column</code>
+ * length of strings.
+ * <p>
+ * Found automatically by the compiler when the jar is on the classpath.
+ *
+ * @author Dmitrij Colautti
+ *
+ */
+@SupportedAnnotationTypes({ "javax.persistence.Entity", "javax.persistence.Embeddable" })
+public class BreadProcessor extends AbstractProcessor {
+
+	static final String SUFFIX = "_Bread";
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		Set<TypeElement> types = new LinkedHashSet<>();
+		for (TypeElement annotation : annotations) {
+			for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+				if (element.getKind()==ElementKind.CLASS && isVisible((TypeElement) element)) {
+					types.add((TypeElement) element);
+				}
+			}
+		}
+		for (TypeElement type : types) {
+			try {
+				generate(type);
+			} catch (IOException e) {
+				processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+						"Cannot generate the descriptor of " + type.getQualifiedName() + ": " + e.getMessage(), type);
+			}
+		}
+		// the JPA metamodel generator may process the same annotations
+		return false;
+	}
+
+	/**
+	 * The descriptor is a top level class of the same package.
+	 */
+	private boolean isVisible(TypeElement type) {
+		if (type.getModifiers().contains(Modifier.PRIVATE) || !type.getTypeParameters().isEmpty()) {
+			return false;
+		}
+		return type.getNestingKind()==NestingKind.TOP_LEVEL
+				|| type.getNestingKind()==NestingKind.MEMBER && type.getModifiers().contains(Modifier.STATIC)
+				&& isVisible((TypeElement) type.getEnclosingElement());
+	}
+
+	private void generate(TypeElement type) throws IOException {
+		String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+		String binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+		String descriptorName = binaryName.substring(packageName.isEmpty() ? 0 : packageName.length() + 1) + SUFFIX;
+		String beanName = type.getQualifiedName().toString().substring(packageName.isEmpty() ? 0 : packageName.length() + 1);
+
+		List<String> constants = new ArrayList<>();
+		Set<String> constantNames = new HashSet<>();
+		List<String> properties = new ArrayList<>();
+		for (Map.Entry<String, ExecutableElement[]> property : properties(type).entrySet()) {
+			String name = property.getKey();
+			ExecutableElement getter = property.getValue()[0];
+			ExecutableElement setter = property.getValue()[1];
+			TypeMirror propertyType = processingEnv.getTypeUtils().erasure(
+					((ExecutableType) processingEnv.getTypeUtils().asMemberOf((DeclaredType) type.asType(), getter)).getReturnType());
+
+			String constant = constantName(name);
+			String nameLiteral;
+			if (constantNames.add(constant)) {
+				constants.add("\tpublic static final String " + constant + " = \"" + name + "\";");
+				nameLiteral = constant;
+			} else {
+				nameLiteral = "\"" + name + "\"";
+			}
+
+			StringBuilder line = new StringBuilder("\t\tproperty(").append(nameLiteral).append(", ")
+					.append(propertyType).append(".class, ")
+					.append(beanName).append("::").append(getter.getSimpleName()).append(", ");
+			if (setter==null) {
+				line.append("null)");
+			} else {
+				line.append("(bean, value) -> bean.").append(setter.getSimpleName())
+						.append("((").append(boxed(propertyType)).append(") value))");
+			}
+			line.append("\n\t\t\t\t.caption(\"").append(caption(name)).append("\")");
+			if (annotation(type, getter, name, "javax.persistence.GeneratedValue")!=null) {
+				line.append(".generated()");
+			}
+			if (isRequired(type, getter, name)) {
+				line.append(".required()");
+			}
+			if (annotation(type, getter, name, "javax.persistence.Id")!=null
+					|| annotation(type, getter, name, "javax.persistence.EmbeddedId")!=null) {
+				line.append(".id()");
+			}
+			AnnotationMirror column = annotation(type, getter, name, "javax.persistence.Column");
+			if (column!=null && propertyType.toString().equals("java.lang.String")) {
+				line.append(".maxLength(").append(value(column, "length")).append(")");
+			}
+			properties.add(line.append(";").toString());
+		}
+
+		String generated = generatedAnnotation();
+		try (PrintWriter out = new PrintWriter(processingEnv.getFiler()
+				.createSourceFile(packageName.isEmpty() ? descriptorName : packageName + "." + descriptorName, type)
+				.openWriter())) {
+			if (!packageName.isEmpty()) {
+				out.println("package " + packageName + ";");
+				out.println();
+			}
+			out.println("import org.vaadin.bread.data.BeanDescriptor;");
+			out.println();
+			if (generated!=null) {
+				out.println("@" + generated + "(\"" + getClass().getName() + "\")");
+			}
+			out.println("@SuppressWarnings({ \"unchecked\", \"rawtypes\" })");
+			out.println("public final class " + descriptorName + " extends BeanDescriptor<" + beanName + "> {");
+			out.println();
+			for (String constant : constants) {
+				out.println(constant);
+			}
+			if (!constants.isEmpty()) {
+				out.println();
+			}
+			out.println("\tpublic " + descriptorName + "() {");
+			out.println("\t\tsuper(" + beanName + ".class);");
+			for (String property : properties) {
+				out.println(property);
+			}
+			out.println("\t}");
+			out.println("}");
+		}
+	}
+
+	/**
+	 * The readable properties of the bean introspection, sorted by name, with their getter and setter.
+	 */
+	private Map<String, ExecutableElement[]> properties(TypeElement type) {
+		Map<String, ExecutableElement> getters = new TreeMap<>();
+		Map<String, List<ExecutableElement>> setters = new TreeMap<>();
+		DeclaredType declaredType = (DeclaredType) type.asType();
+		for (ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(type))) {
+			if (!method.getModifiers().contains(Modifier.PUBLIC) || method.getModifiers().contains(Modifier.STATIC)
+					|| ((TypeElement) method.getEnclosingElement()).getQualifiedName().contentEquals("java.lang.Object")) {
+				continue;
+			}
+			ExecutableType methodType = (ExecutableType) processingEnv.getTypeUtils().asMemberOf(declaredType, method);
+			String methodName = method.getSimpleName().toString();
+			TypeKind returnKind = methodType.getReturnType().getKind();
+			if (methodType.getParameterTypes().isEmpty()) {
+				if (methodName.startsWith("is") && methodName.length()>2 && returnKind==TypeKind.BOOLEAN) {
+					getters.put(decapitalize(methodName.substring(2)), method);
+				} else if (methodName.startsWith("get") && methodName.length()>3 && returnKind!=TypeKind.VOID) {
+					// an is method wins for a boolean
+					getters.putIfAbsent(decapitalize(methodName.substring(3)), method);
+				}
+			} else if (methodType.getParameterTypes().size()==1 && methodName.startsWith("set") && methodName.length()>3
+					&& returnKind==TypeKind.VOID) {
+				setters.computeIfAbsent(decapitalize(methodName.substring(3)), name -> new ArrayList<>()).add(method);
+			}
+		}
+
+		Map<String, ExecutableElement[]> properties = new TreeMap<>();
+		for (Map.Entry<String, ExecutableElement> getter : getters.entrySet()) {
+			TypeMirror propertyType = processingEnv.getTypeUtils().erasure(
+					((ExecutableType) processingEnv.getTypeUtils().asMemberOf(declaredType, getter.getValue())).getReturnType());
+			ExecutableElement setter = null;
+			for (ExecutableElement candidate : setters.getOrDefault(getter.getKey(), new ArrayList<>())) {
+				TypeMirror parameterType = ((ExecutableType) processingEnv.getTypeUtils().asMemberOf(declaredType, candidate))
+						.getParameterTypes().get(0);
+				if (processingEnv.getTypeUtils().isSameType(processingEnv.getTypeUtils().erasure(parameterType), propertyType)) {
+					setter = candidate;
+				}
+			}
+			properties.put(getter.getKey(), new ExecutableElement[] { getter.getValue(), setter });
+		}
+		return properties;
+	}
+
+	private boolean isRequired(TypeElement type, ExecutableElement getter, String name) {
+		if (annotation(type, getter, name, "javax.validation.constraints.NotNull")!=null
+				|| annotation(type, getter, name, "javax.persistence.Id")!=null) {
+			return true;
+		}
+		for (String mapping : new String[] { "javax.persistence.Column", "javax.persistence.JoinColumn" }) {
+			AnnotationMirror annotation = annotation(type, getter, name, mapping);
+			if (annotation!=null && Boolean.FALSE.equals(value(annotation, "nullable"))) {
+				return true;
+			}
+		}
+		for (String mapping : new String[] { "javax.persistence.Basic", "javax.persistence.ManyToOne", "javax.persistence.OneToOne" }) {
+			AnnotationMirror annotation = annotation(type, getter, name, mapping);
+			if (annotation!=null && Boolean.FALSE.equals(value(annotation, "optional"))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * The annotation of the getter, otherwise of the first field named like the property, like <code>BeanMetadata</code>.
+	 */
+	private AnnotationMirror annotation(TypeElement type, ExecutableElement getter, String name, String annotationType) {
+		AnnotationMirror annotation = find(getter, annotationType);
+		if (annotation!=null) {
+			return annotation;
+		}
+		for (TypeElement c = type; c!=null && !c.getQualifiedName().contentEquals("java.lang.Object");
+				c = c.getSuperclass().getKind()==TypeKind.DECLARED
+						? (TypeElement) ((DeclaredType) c.getSuperclass()).asElement() : null) {
+			for (VariableElement field : ElementFilter.fieldsIn(c.getEnclosedElements())) {
+				if (field.getSimpleName().contentEquals(name)) {
+					return find(field, annotationType);
+				}
+			}
+		}
+		return null;
+	}
+
+	private static AnnotationMirror find(Element element, String annotationType) {
+		for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+			if (((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotationType)) {
+				return annotation;
+			}
+		}
+		return null;
+	}
+
+	private Object value(AnnotationMirror annotation, String attribute) {
+		for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> value
+				: processingEnv.getElementUtils().getElementValuesWithDefaults(annotation).entrySet()) {
+			if (value.getKey().getSimpleName().contentEquals(attribute)) {
+				return value.getValue().getValue();
+			}
+		}
+		return null;
+	}
+
+	private String boxed(TypeMirror type) {
+		if (type.getKind().isPrimitive()) {
+			return processingEnv.getTypeUtils().boxedClass((PrimitiveType) type).getQualifiedName().toString();
+		}
+		return type.toString();
+	}
+
+	/**
+	 * <code>@Generated</code> of Java 9 and later, or of Java 8.
+	 */
+	private String generatedAnnotation() {
+		if (processingEnv.getSourceVersion().compareTo(SourceVersion.RELEASE_8)>0
+				&& processingEnv.getElementUtils().getTypeElement("javax.annotation.processing.Generated")!=null) {
+			return "javax.annotation.processing.Generated";
+		}
+		if (processingEnv.getElementUtils().getTypeElement("javax.annotation.Generated")!=null) {
+			return "javax.annotation.Generated";
+		}
+		return null;
+	}
+
+	/**
+	 * Like <code>java.beans.Introspector.decapitalize</code>.
+	 */
+	static String decapitalize(String name) {
+		if (name.length()>1 && Character.isUpperCase(name.charAt(1)) && Character.isUpperCase(name.charAt(0))) {
+			return name;
+		}
+		return Character.toLowerCase(name.charAt(0)) + name.substring(1);
+	}
+
+	/**
+	 * <code>birthDate</code> to <code>BIRTH_DATE</code>.
+	 */
+	static String constantName(String name) {
+		StringBuilder constant = new StringBuilder();
+		for (int i = 0; i < name.length(); i++) {
+			char c = name.charAt(i);
+			if (i>0 && Character.isUpperCase(c) && !Character.isUpperCase(name.charAt(i - 1))) {
+				constant.append('_');
+			}
+			constant.append(Character.toUpperCase(c));
+		}
+		return constant.toString();
+	}
+
+	/**
+	 * The human friendly name of a property, like <code>SharedUtil.propertyIdToHumanFriendly</code> of Vaadin.
+	 */
+	static String caption(String name) {
+		if (name.matches("^[0-9A-Z_]+$")) {
+			StringBuilder caption = new StringBuilder();
+			for (String part : name.replaceFirst("^_*", "").split("_")) {
+				caption.append(caption.length()>0 ? " " : "").append(capitalize(part.toLowerCase(Locale.ENGLISH)));
+			}
+			return caption.toString();
+		}
+		StringBuilder caption = new StringBuilder();
+		for (int i = 0; i < name.length(); i++) {
+			char c = name.charAt(i);
+			boolean wordComplete = i>0 && (!Character.isUpperCase(name.charAt(i - 1))
+					|| i + 1<name.length() && !Character.isUpperCase(name.charAt(i + 1)));
+			if (Character.isUpperCase(c) && wordComplete) {
+				caption.append(' ');
+			}
+			caption.append(c);
+		}
+		StringBuilder words = new StringBuilder();
+		for (String part : caption.toString().split(" ")) {
+			words.append(words.length()>0 ? " " : "").append(capitalize(part));
+		}
+		return words.toString();
+	}
+
+	private static String capitalize(String string) {
+		if (string.length()<=1) {
+			return string.toUpperCase(Locale.ENGLISH);
+		}
+		return string.substring(0, 1).toUpperCase(Locale.ENGLISH) + string.substring(1);
+	}
+}
@@ -0,0 +1,162 @@
+package org.vaadin.bread.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.vaadin.bread.data.BeanMetadata;
+
+import com.vaadin.data.ValueProvider;
+import com.vaadin.server.Setter;
+
+public class BreadProcessorTest {
+
+    private static final String SOURCE = String.join("\n",
+            "package sample;",
+            "",
+            "import java.util.List;",
+            "import javax.persistence.*;",
+            "",
+            "@Entity",
+            "public class Department {",
+            "",
+            "    @Id @GeneratedValue",
+            "    private Long id;",
+            "    @Column(length = 40, nullable = false)",
+            "    private String name;",
+            "    private int size;",
+            "    private boolean active;",
+            "    @ElementCollection",
+            "    private List<String> tags;",
+            "",
+            "    public Long getId() { return id; }",
+            "    public void setId(Long id) { this.id = id; }",
+            "    public String getName() { return name; }",
+            "    public void setName(String name) { this.name = name; }",
+            "    public int getSize() { return size; }",
+            "    public void setSize(int size) { this.size = size; }",
+            "    public boolean isActive() { return active; }",
+            "    public void setActive(boolean active) { this.active = active; }",
+            "    public List<String> getTags() { return tags; }",
+            "    public void setTags(List<String> tags) { this.tags = tags; }",
+            "    public String getDisplayName() { return name + \" (\" + size + \")\"; }",
+            "}");
+
+    private Path directory;
+
+    @Before
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("bread-processor-test");
+    }
+
+    @After
+    public void deleteDirectory() throws IOException {
+        List<Path> paths = new ArrayList<>();
+        Files.walk(directory).forEach(paths::add);
+        Collections.reverse(paths);
+        for (Path path : paths) {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void descriptorGivesTheMetadataOfTheIntrospection() throws Exception {
+        Class<?> described = compile("described", true);
+        Class<?> introspected = compile("introspected", false);
+
+        BeanMetadata<?> fromDescriptor = BeanMetadata.of(described);
+        BeanMetadata<?> fromIntrospection = BeanMetadata.of(introspected);
+        assertTrue(fromDescriptor.isDescribed());
+        assertFalse(fromIntrospection.isDescribed());
+
+        assertEquals(names(fromIntrospection), names(fromDescriptor));
+        for (BeanMetadata.Property expected : fromIntrospection.getProperties()) {
+            BeanMetadata.Property actual = fromDescriptor.getProperty(expected.getName()).get();
+            String name = expected.getName();
+            assertEquals(name, expected.getType(), actual.getType());
+            assertEquals(name, expected.getCaption(), actual.getCaption());
+            assertEquals(name, expected.isCollection(), actual.isCollection());
+            assertEquals(name, expected.isGenerated(), actual.isGenerated());
+            assertEquals(name, expected.isRequired(), actual.isRequired());
+            assertEquals(name, expected.isId(), actual.isId());
+            assertEquals(name, expected.getMaxLength(), actual.getMaxLength());
+            assertEquals(name, expected.isWritable(), actual.isWritable());
+        }
+        assertEquals("id", fromDescriptor.getIdProperty().get().getName());
+
+        assertEquals(Arrays.asList(7L, "Sales", 3, true, Collections.singletonList("a"), "Sales (3)"),
+                values(fromDescriptor));
+        assertEquals(values(fromIntrospection), values(fromDescriptor));
+    }
+
+    private Class<?> compile(String name, boolean process) throws Exception {
+        Path sources = directory.resolve(name + "-src").resolve("sample");
+        Path classes = directory.resolve(name);
+        Files.createDirectories(sources);
+        Files.createDirectories(classes);
+        Path source = Files.write(sources.resolve("Department.java"), SOURCE.getBytes(StandardCharsets.UTF_8));
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8)) {
+            List<String> options = new ArrayList<>(Arrays.asList("-d", classes.toString(),
+                    "-classpath", System.getProperty("java.class.path")));
+            if (!process) {
+                options.add("-proc:none");
+            }
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, null, options, null,
+                    fileManager.getJavaFileObjects(source.toFile()));
+            if (process) {
+                // the generated descriptor is compiled with the entity
+                task.setProcessors(Collections.singletonList(new BreadProcessor()));
+            }
+            assertTrue(task.call());
+        }
+        URLClassLoader loader = new URLClassLoader(new URL[] { classes.toUri().toURL() }, getClass().getClassLoader());
+        return loader.loadClass("sample.Department");
+    }
+
+    private static List<String> names(BeanMetadata<?> metadata) {
+        List<String> names = new ArrayList<>();
+        metadata.getProperties().forEach(property -> names.add(property.getName()));
+        Collections.sort(names);
+        return names;
+    }
+
+    /**
+     * Writes a bean through the setters of <code>metadata</code> and reads it
+     * back through its getters.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> List<Object> values(BeanMetadata<T> metadata) throws Exception {
+        T bean = metadata.getType().newInstance();
+        List<Object> written = Arrays.asList(7L, "Sales", 3, true, Collections.singletonList("a"));
+        List<String> names = Arrays.asList("id", "name", "size", "active", "tags");
+        for (int i = 0; i < names.size(); i++) {
+            ((Setter<T, Object>) metadata.getSetter(names.get(i))).accept(bean, written.get(i));
+        }
+        List<Object> values = new ArrayList<>();
+        for (String name : Arrays.asList("id", "name", "size", "active", "tags", "displayName")) {
+            ValueProvider<T, ?> getter = metadata.getGetter(name);
+            values.add(getter.apply(bean));
+        }
+        return values;
+    }
+}